@@ -0,0 +1,49 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of model compilation depending on the number of states and tokens.
+ * Each invocation uses a new factory, so the class is generated and defined from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompileBenchmark {
+    @Param({"8", "32", "128"})
+    public int states;
+
+    @Param({"4", "16", "32"})
+    public int tokens;
+
+    @Param({"char", "int", "string"})
+    public String type;
+
+    private MachineModel<Integer, ?> model;
+
+    @Setup
+    public void setup() {
+        var type = Models.getType(this.type);
+        model = create(type);
+    }
+
+    private <T> MachineModel<Integer, T> create(Class<T> type) {
+        return Models.generate(type, Models.alphabet(type, tokens, 1), states, 42);
+    }
+
+    @Benchmark
+    public StateMachine<Integer, ?> compile() {
+        return new AsmMachineFactory().create(model);
+    }
+
+    @Benchmark
+    public StateMachine<Integer, ?> interpret() {
+        return new InterpretedMachineFactory().create(model);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.LazyMachine;
+import com.github.romanqed.jsm.interpreter.LazyMachineFactory;
+import com.github.romanqed.jsm.model.Regex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time to the first result of full determinization with code generation and of lazy
+ * determinization for an alternation of many words, and the throughput of the warmed up lazy machine.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LazyBenchmark {
+    private static final int LENGTH = 4096;
+
+    @Param({"100", "1000"})
+    public int words;
+
+    private String regex;
+    private String first;
+    private Character[] firstTokens;
+    private LazyMachine<Integer, Character> machine;
+    private Character[] tokens;
+
+    @Setup
+    public void setup() {
+        var random = new Random(7);
+        var builder = new StringBuilder();
+        for (var i = 0; i < words; ++i) {
+            if (i > 0) {
+                builder.append('|');
+            }
+            var length = 3 + random.nextInt(8);
+            for (var j = 0; j < length; ++j) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        regex = "(?:" + builder + ")+";
+        first = regex.substring(3, regex.indexOf('|'));
+        firstTokens = first.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+        machine = new LazyMachineFactory().create(Regex.toNfa(regex));
+        tokens = new Character[LENGTH];
+        var length = 0;
+        var alternatives = builder.toString().split("\\|");
+        while (length < LENGTH) {
+            var word = alternatives[random.nextInt(alternatives.length)];
+            for (var i = 0; i < word.length() && length < LENGTH; ++i) {
+                tokens[length++] = word.charAt(i);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int firstResultDeterminized() {
+        return new AsmMachineFactory().createCharMachine(Regex.compile(regex)).runToId(first);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int firstResultLazy() {
+        return new LazyMachineFactory().create(Regex.toNfa(regex)).runToId(firstTokens);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(LENGTH)
+    public int lazyRun() {
+        return machine.runToId(tokens);
+    }
+}
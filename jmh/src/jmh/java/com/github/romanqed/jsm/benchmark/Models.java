@@ -0,0 +1,154 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A utility class generating reproducible models and inputs of configurable size for benchmarks.
+ */
+public final class Models {
+    /**
+     * The id of the initial state of generated models.
+     */
+    public static final int INIT = -1;
+    /**
+     * The id of the exit state of generated models.
+     */
+    public static final int EXIT = -2;
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "char", Character.class,
+            "byte", Byte.class,
+            "short", Short.class,
+            "int", Integer.class,
+            "long", Long.class,
+            "float", Float.class,
+            "double", Double.class,
+            "string", String.class
+    );
+
+    private Models() {
+    }
+
+    /**
+     * Returns the token type by its short name.
+     *
+     * @param name the short name, for example, char or string
+     * @return the token type
+     */
+    public static Class<?> getType(String name) {
+        var ret = TYPES.get(name);
+        if (ret == null) {
+            throw new IllegalArgumentException("Unknown token type: " + name);
+        }
+        return ret;
+    }
+
+    private static Object getValue(Class<?> type, int index, int spread) {
+        var value = index * spread;
+        if (type == Character.class) {
+            return (char) ('0' + value);
+        }
+        if (type == Byte.class) {
+            return (byte) value;
+        }
+        if (type == Short.class) {
+            return (short) value;
+        }
+        if (type == Integer.class) {
+            return value;
+        }
+        if (type == Long.class) {
+            return (long) value;
+        }
+        if (type == Float.class) {
+            return value + 0.5f;
+        }
+        if (type == Double.class) {
+            return value + 0.5;
+        }
+        return "t" + value;
+    }
+
+    /**
+     * Generates the alphabet of distinct token values.
+     *
+     * @param type   the token type
+     * @param size   the number of tokens
+     * @param spread the distance between neighbouring integral values
+     * @param <T>    token type
+     * @return the list of token values
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> alphabet(Class<T> type, int size, int spread) {
+        if (type == Byte.class && (long) size * spread > 256) {
+            throw new IllegalArgumentException("Too many byte tokens");
+        }
+        var ret = new ArrayList<T>(size);
+        for (var i = 0; i < size; ++i) {
+            ret.add((T) getValue(type, i, spread));
+        }
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] toArray(Class<T> type, List<T> values) {
+        return values.toArray((T[]) Array.newInstance(type, values.size()));
+    }
+
+    /**
+     * Generates a random complete model: every state has a transition by every token of the alphabet,
+     * so the generated machine never reaches the exit state. States are integers from 0 to states - 1.
+     *
+     * @param type     the token type
+     * @param alphabet the token values
+     * @param states   the number of intermediate states
+     * @param seed     the random seed
+     * @param <T>      token type
+     * @return the generated model
+     */
+    public static <T> MachineModel<Integer, T> generate(Class<T> type, List<T> alphabet, int states, long seed) {
+        var random = new Random(seed);
+        var builder = MachineModelBuilder.create(Integer.class, type)
+                .setInitState(INIT)
+                .setExitState(EXIT);
+        for (var i = 0; i < states; ++i) {
+            builder.addState(i);
+        }
+        for (var from = INIT; from < states; ++from) {
+            var targets = new HashMap<Integer, List<T>>();
+            for (var token : alphabet) {
+                targets.computeIfAbsent(random.nextInt(states), k -> new ArrayList<>()).add(token);
+            }
+            for (var entry : targets.entrySet()) {
+                builder.addTransition(from, entry.getKey(), toArray(type, entry.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generates a random input of the specified length from the alphabet.
+     *
+     * @param type     the token type
+     * @param alphabet the token values
+     * @param length   the input length
+     * @param seed     the random seed
+     * @param <T>      token type
+     * @return the array of tokens
+     */
+    public static <T> T[] input(Class<T> type, List<T> alphabet, int length, long seed) {
+        var random = new Random(seed);
+        var ret = new ArrayList<T>(length);
+        for (var i = 0; i < length; ++i) {
+            ret.add(alphabet.get(random.nextInt(alphabet.size())));
+        }
+        return toArray(type, ret);
+    }
+}
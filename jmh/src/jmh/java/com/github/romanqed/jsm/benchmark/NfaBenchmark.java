@@ -0,0 +1,73 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.NfaModel;
+import com.github.romanqed.jsm.model.NfaModelBuilder;
+import com.github.romanqed.jsm.model.NfaSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares machines compiled from determinized models with the simulation of nondeterministic models on bit sets.
+ * The model (a|b)*a(a|b){n - 1} has n + 1 states, but its deterministic equivalent has 2^n states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NfaBenchmark {
+    private static final int LENGTH = 4096;
+
+    @Param({"4", "10"})
+    public int depth;
+
+    private CharStateMachine<Integer> machine;
+    private NfaSimulator<Integer, Character> simulator;
+    private char[] chars;
+    private Character[] tokens;
+
+    private static NfaModel<Integer, Character> createModel(int depth) {
+        var builder = NfaModelBuilder.create(Integer.class, Character.class)
+                .setInitState(0)
+                .addTransition(0, 0, 'a', 'b');
+        for (var i = 1; i <= depth; ++i) {
+            builder.addState(i).addTransition(i - 1, i, i == 1 ? new Character[]{'a'} : new Character[]{'a', 'b'});
+        }
+        return builder.addAcceptingState(depth).build();
+    }
+
+    @Setup
+    public void setup() {
+        var model = createModel(depth);
+        machine = new AsmMachineFactory().createCharMachine(MachineModels.determinize(model));
+        simulator = new NfaSimulator<>(model);
+        var random = new Random(7);
+        chars = new char[LENGTH];
+        tokens = new Character[LENGTH];
+        for (var i = 0; i < LENGTH; ++i) {
+            chars[i] = random.nextBoolean() ? 'a' : 'b';
+            tokens[i] = chars[i];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public int dfaChars() {
+        return machine.feed(machine.getInitId(), chars, 0, LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer dfaTokens() {
+        return machine.run(tokens);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public boolean nfaBitSets() {
+        return simulator.matches(tokens);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.ByteStateMachine;
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of machines specialized for char and byte tokens on primitive inputs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PrimitiveBenchmark {
+    private static final int LENGTH = 4096;
+
+    @Param({"asm", "interpreter"})
+    public String factory;
+
+    @Param({"16"})
+    public int states;
+
+    @Param({"16"})
+    public int tokens;
+
+    private CharStateMachine<Integer> charMachine;
+    private ByteStateMachine<Integer> byteMachine;
+    private char[] chars;
+    private String string;
+    private byte[] bytes;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setup() {
+        var charAlphabet = Models.alphabet(Character.class, tokens, 1);
+        var charModel = Models.generate(Character.class, charAlphabet, states, 42);
+        var byteAlphabet = Models.alphabet(Byte.class, tokens, 1);
+        var byteModel = Models.generate(Byte.class, byteAlphabet, states, 42);
+        if (factory.equals("asm")) {
+            var factory = new AsmMachineFactory();
+            charMachine = factory.createCharMachine(charModel);
+            byteMachine = factory.createByteMachine(byteModel);
+        } else {
+            var factory = new InterpretedMachineFactory();
+            charMachine = factory.createCharMachine(charModel);
+            byteMachine = factory.createByteMachine(byteModel);
+        }
+        var boxedChars = Models.input(Character.class, charAlphabet, LENGTH, 7);
+        chars = new char[LENGTH];
+        for (var i = 0; i < LENGTH; ++i) {
+            chars[i] = boxedChars[i];
+        }
+        string = new String(chars);
+        var boxedBytes = Models.input(Byte.class, byteAlphabet, LENGTH, 7);
+        bytes = new byte[LENGTH];
+        for (var i = 0; i < LENGTH; ++i) {
+            bytes[i] = boxedBytes[i];
+        }
+        direct = ByteBuffer.allocateDirect(LENGTH).put(bytes).flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer runChars() {
+        return charMachine.run(chars, 0, LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer runString() {
+        return charMachine.run(string);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public long stampChars() {
+        return charMachine.stamp(chars, 0, LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer runBytes() {
+        return byteMachine.run(bytes, 0, LENGTH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer runDirectBuffer() {
+        return byteMachine.run(direct);
+    }
+}
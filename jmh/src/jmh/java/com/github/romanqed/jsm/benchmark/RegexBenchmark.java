@@ -0,0 +1,58 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.Regex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares whole-input matching by machines compiled from regular expressions with {@link java.util.regex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RegexBenchmark {
+    private static final int LENGTH = 4096;
+    private static final String REGEX = "(?:[a-z]+=(?:\\d+|\"[^\"]*\");)*";
+
+    private CharStateMachine<Integer> machine;
+    private Pattern pattern;
+    private String input;
+
+    @Setup
+    public void setup() {
+        machine = new AsmMachineFactory().createCharMachine(Regex.compile(REGEX));
+        pattern = Pattern.compile(REGEX);
+        var random = new Random(7);
+        var builder = new StringBuilder(LENGTH + 32);
+        while (builder.length() < LENGTH) {
+            builder.append((char) ('a' + random.nextInt(26))).append('=');
+            if (random.nextBoolean()) {
+                builder.append(random.nextInt(100_000));
+            } else {
+                builder.append('"').append(Integer.toHexString(random.nextInt())).append('"');
+            }
+            builder.append(';');
+        }
+        input = builder.toString();
+        if (!pattern.matcher(input).matches() || !machine.isAccepting(machine.runToId(input))) {
+            throw new IllegalStateException("Input must match the expression");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public int machine() {
+        return machine.runToId(input);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public boolean javaRegex() {
+        return pattern.matcher(input).matches();
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jeflect.loader.DefineClassLoader;
+import com.github.romanqed.jeflect.loader.DefineObjectFactory;
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the choice between table and lookup switches, controlled by maxDelta,
+ * affects run throughput for token values of different density.
+ * Long tokens are used, so switches are built over token hashes without alphabet compression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SwitchBenchmark {
+    private static final int LENGTH = 4096;
+
+    @Param({"1", "10", "100"})
+    public int maxDelta;
+
+    @Param({"1", "4", "16"})
+    public int spread;
+
+    @Param({"16"})
+    public int states;
+
+    @Param({"32"})
+    public int tokens;
+
+    private StateMachine<Integer, Long> machine;
+    private Long[] input;
+
+    @Setup
+    public void setup() {
+        var alphabet = Models.alphabet(Long.class, tokens, spread);
+        var model = Models.generate(Long.class, alphabet, states, 42);
+        var factory = new AsmMachineFactory(new DefineObjectFactory<>(new DefineClassLoader()), maxDelta);
+        machine = factory.create(model);
+        input = Models.input(Long.class, alphabet, LENGTH, 7);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer run() {
+        return machine.run(input);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.romanqed.jsm.benchmark;
+
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.StateMachineFactory;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures run, stamp and step throughput for each supported token type,
+ * for generated and interpreted machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThroughputBenchmark {
+    private static final int LENGTH = 4096;
+
+    @Param({"char", "byte", "short", "int", "long", "float", "double", "string"})
+    public String type;
+
+    @Param({"asm", "interpreter"})
+    public String factory;
+
+    @Param({"16"})
+    public int states;
+
+    @Param({"16"})
+    public int tokens;
+
+    private StateMachine<Integer, Object> machine;
+    private Object[] input;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        var factory = this.factory.equals("asm") ?
+                new AsmMachineFactory()
+                : new InterpretedMachineFactory();
+        prepare((Class<Object>) Models.getType(type), factory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void prepare(Class<T> type, StateMachineFactory factory) {
+        var alphabet = Models.alphabet(type, tokens, 1);
+        var model = Models.generate(type, alphabet, states, 42);
+        machine = (StateMachine<Integer, Object>) factory.create(model);
+        input = Models.input(type, alphabet, LENGTH, 7);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public Integer run() {
+        return machine.run(input);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public long stamp() {
+        return machine.stamp(input);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public void step(Blackhole blackhole) {
+        machine.reset();
+        for (var token : input) {
+            blackhole.consume(machine.step(token));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.romanqed.jsm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+final class Batches {
+
+    private Batches() {
+    }
+
+    static int count(int[] offsets, int[] results) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("Offsets must contain at least one element");
+        }
+        var ret = offsets.length - 1;
+        Objects.checkFromIndexSize(0, ret, results.length);
+        return ret;
+    }
+
+    static int count(List<?> sequences, int[] results) {
+        var ret = sequences.size();
+        Objects.checkFromIndexSize(0, ret, results.length);
+        return ret;
+    }
+
+    static void run(int count, boolean parallel, IntConsumer task) {
+        if (parallel) {
+            // Common ForkJoin pool splits the range across available cores
+            IntStream.range(0, count).parallel().forEach(task);
+            return;
+        }
+        for (var i = 0; i < count; ++i) {
+            task.accept(i);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.romanqed.jsm;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface describing a cursor over a finite state machine specialized for byte tokens.
+ *
+ * @param <S> state type
+ * @see MachineCursor
+ */
+public interface ByteMachineCursor<S> extends MachineCursor<S, Byte> {
+
+    /**
+     * Performs a transition for the specified byte.
+     *
+     * @param token analyzed byte
+     * @return machine state after transition
+     */
+    S step(byte token);
+
+    /**
+     * Performs a transition for the specified byte and returns the raw id of the new state.
+     *
+     * @param token analyzed byte
+     * @return the raw id of machine state after transition
+     */
+    int stepId(byte token);
+
+    /**
+     * Performs transitions for the bytes of the specified array region.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return machine state after bytes processing
+     */
+    S feed(byte[] bytes, int offset, int length);
+
+    /**
+     * Performs transitions for the remaining bytes of the specified buffer.
+     * Stops as soon as the exit state is reached. The position of the buffer is not changed.
+     *
+     * @param buffer the buffer contains analyzed bytes
+     * @return machine state after bytes processing
+     */
+    S feed(ByteBuffer buffer);
+}
@@ -0,0 +1,386 @@
+package com.github.romanqed.jsm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Interface describing a finite state machine specialized for byte tokens.
+ * Allows to process byte arrays and buffers without boxing and copying.
+ *
+ * @param <S> state type
+ */
+public interface ByteStateMachine<S> extends StateMachine<S, Byte> {
+
+    /**
+     * Runs the finite state machine on a region of the byte array.
+     * Does not change the internal state of the machine.
+     *
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return final machine state after bytes processing
+     */
+    S run(byte[] bytes, int offset, int length);
+
+    /**
+     * Runs the finite state machine on the remaining bytes of the buffer (from position to limit).
+     * Both heap and direct buffers are supported. Does not change the position of the buffer
+     * and the internal state of the machine.
+     *
+     * @param buffer the buffer contains analyzed bytes
+     * @return final machine state after bytes processing
+     */
+    S run(ByteBuffer buffer);
+
+    /**
+     * Starts the finite state machine on a region of the byte array and calculates a unique stamp for
+     * the sequence of states that the machine has passed through.
+     * If the machine has reached the exit state, the stamp will be -1.
+     *
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return the stamp of this run
+     * @see StateMachine#stamp(Iterable)
+     */
+    long stamp(byte[] bytes, int offset, int length);
+
+    /**
+     * Starts the finite state machine on the remaining bytes of the buffer (from position to limit)
+     * and calculates a unique stamp for the sequence of states that the machine has passed through.
+     * If the machine has reached the exit state, the stamp will be -1.
+     * Does not change the position of the buffer.
+     *
+     * @param buffer the buffer contains analyzed bytes
+     * @return the stamp of this run
+     * @see StateMachine#stamp(Iterable)
+     */
+    long stamp(ByteBuffer buffer);
+
+    /**
+     * Runs the finite state machine on the file contents from the current channel position to its end.
+     * The file is memory-mapped in read-only windows, so the bytes are never copied to the heap.
+     * Does not change the position of the channel and the internal state of the machine.
+     *
+     * @param channel the channel of the analyzed file
+     * @return final machine state after bytes processing
+     * @throws IOException if an I/O error occurs during file mapping
+     */
+    S run(FileChannel channel) throws IOException;
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the byte array,
+     * recording the id of each state passed to the specified trace. Recording stops after the exit state.
+     * Does not change the internal state of the machine.
+     * By default, bytes are fed one by one by {@link #feed(int, byte[], int, int)}.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @param trace  the trace receiving state ids
+     * @return the raw id of the machine state after bytes processing
+     * @see StateMachine#trace(int, Object[], int, int, StateTrace)
+     */
+    default int trace(int state, byte[] bytes, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        var exit = getExitId();
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = feed(state, bytes, i, 1);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Continues a run of the finite state machine from the specified state on the remaining bytes of the buffer,
+     * recording the id of each state passed to the specified trace. Recording stops after the exit state.
+     * Does not change the position of the buffer and the internal state of the machine.
+     * By default, bytes are fed one by one by {@link #feed(int, byte[], int, int)}.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param buffer the buffer contains analyzed bytes
+     * @param trace  the trace receiving state ids
+     * @return the raw id of the machine state after bytes processing
+     * @see StateMachine#trace(int, Object[], int, int, StateTrace)
+     */
+    default int trace(int state, ByteBuffer buffer, StateTrace trace) {
+        var exit = getExitId();
+        var limit = buffer.limit();
+        var token = new byte[1];
+        for (var i = buffer.position(); i < limit && state != exit; ++i) {
+            token[0] = buffer.get(i);
+            state = feed(state, token, 0, 1);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Searches the region of the byte array for all non-overlapping matches.
+     * Does not change the internal state of the machine.
+     * By default, bytes are fed one by one by {@link #feed(int, byte[], int, int)}.
+     *
+     * @param bytes   the array contains analyzed bytes
+     * @param offset  the index of the first analyzed byte
+     * @param length  the number of analyzed bytes
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     * @see StateMachine#findAll(Object[], int, int, MatchMode, MatchBuffer)
+     */
+    default int findAll(byte[] bytes, int offset, int length, MatchMode mode, MatchBuffer matches) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        var scanner = MatchScanner.of(this, (state, index) -> feed(state, bytes, index, 1));
+        return scanner.scan(offset, offset + length, mode, matches);
+    }
+
+    /**
+     * Searches the remaining bytes of the buffer for all non-overlapping matches. Positions of matches
+     * are absolute indices in the buffer. Does not change the position of the buffer and the internal
+     * state of the machine.
+     * By default, bytes are fed one by one by {@link #feed(int, byte[], int, int)}.
+     *
+     * @param buffer  the buffer contains analyzed bytes
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     * @see StateMachine#findAll(Object[], int, int, MatchMode, MatchBuffer)
+     */
+    default int findAll(ByteBuffer buffer, MatchMode mode, MatchBuffer matches) {
+        var token = new byte[1];
+        var scanner = MatchScanner.of(this, (state, index) -> {
+            token[0] = buffer.get(index);
+            return feed(state, token, 0, 1);
+        });
+        return scanner.scan(buffer.position(), buffer.limit(), mode, matches);
+    }
+
+    /**
+     * Runs the finite state machine on a region of the byte array and returns the raw id of the final state.
+     * Does not change the internal state of the machine.
+     *
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return the raw id of the final state
+     * @see StateMachine#stateOf(int)
+     */
+    default int runToId(byte[] bytes, int offset, int length) {
+        return feed(getInitId(), bytes, offset, length);
+    }
+
+    /**
+     * Runs the finite state machine on the remaining bytes of the buffer and returns the raw id of the final state.
+     * Does not change the position of the buffer and the internal state of the machine.
+     *
+     * @param buffer the buffer contains analyzed bytes
+     * @return the raw id of the final state
+     * @see StateMachine#stateOf(int)
+     */
+    default int runToId(ByteBuffer buffer) {
+        return feed(getInitId(), buffer);
+    }
+
+    /**
+     * Runs the finite state machine on a large region of the byte array, splitting it into chunks processed
+     * in parallel. Does not change the internal state of the machine.
+     * By default, the region is processed sequentially by {@link #run(byte[], int, int)}.
+     *
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return final machine state after bytes processing
+     * @see StateMachine#runParallel(Object[])
+     */
+    default S runParallel(byte[] bytes, int offset, int length) {
+        return run(bytes, offset, length);
+    }
+
+    /**
+     * Runs the finite state machine on the file contents from the current channel position to its end,
+     * splitting them into chunks mapped and processed in parallel.
+     * Does not change the position of the channel and the internal state of the machine.
+     * By default, the file is processed sequentially by {@link #run(FileChannel)}.
+     *
+     * @param channel the channel of the analyzed file
+     * @return final machine state after bytes processing
+     * @throws IOException if an I/O error occurs during file mapping
+     * @see StateMachine#runParallel(Object[])
+     */
+    default S runParallel(FileChannel channel) throws IOException {
+        return run(channel);
+    }
+
+    /**
+     * Starts the finite state machine on the file contents from the current channel position to its end
+     * and calculates a unique stamp for the sequence of states that the machine has passed through.
+     * If the machine has reached the exit state, the stamp will be -1.
+     * Does not change the position of the channel.
+     *
+     * @param channel the channel of the analyzed file
+     * @return the stamp of this run
+     * @throws IOException if an I/O error occurs during file mapping
+     * @see #run(FileChannel)
+     */
+    long stamp(FileChannel channel) throws IOException;
+
+    /**
+     * Runs the finite state machine on the contents of the specified file.
+     *
+     * @param path the path to the analyzed file
+     * @return final machine state after bytes processing
+     * @throws IOException if an I/O error occurs during file opening or mapping
+     * @see #run(FileChannel)
+     */
+    default S run(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return run(channel);
+        }
+    }
+
+    /**
+     * Starts the finite state machine on the contents of the specified file and calculates a unique stamp for
+     * the sequence of states that the machine has passed through.
+     *
+     * @param path the path to the analyzed file
+     * @return the stamp of this run
+     * @throws IOException if an I/O error occurs during file opening or mapping
+     * @see #stamp(FileChannel)
+     */
+    default long stamp(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return stamp(channel);
+        }
+    }
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the byte array.
+     * Does not change the internal state of the machine.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param bytes  the array contains analyzed bytes
+     * @param offset the index of the first analyzed byte
+     * @param length the number of analyzed bytes
+     * @return the raw id of the machine state after bytes processing
+     * @see StateMachine#feed(int, Object[], int, int)
+     */
+    int feed(int state, byte[] bytes, int offset, int length);
+
+    /**
+     * Continues a run of the finite state machine from the specified state
+     * on the remaining bytes of the buffer (from position to limit).
+     * Does not change the position of the buffer and the internal state of the machine.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param buffer the buffer contains analyzed bytes
+     * @return the raw id of the machine state after bytes processing
+     * @see StateMachine#feed(int, Object[], int, int)
+     */
+    int feed(int state, ByteBuffer buffer);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on the bytes pulled from the stream.
+     * The specified buffer is reused for all reads, so the stream is processed in constant memory.
+     * Reading stops at the end of the stream or as soon as the machine reaches the exit state.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param stream the stream of analyzed bytes
+     * @param buffer the buffer used for reading, must be non-empty
+     * @return the raw id of the machine state after bytes processing
+     * @throws IOException if an I/O error occurs during reading
+     */
+    default int feed(int state, InputStream stream, byte[] buffer) throws IOException {
+        var exit = getExitId();
+        int read;
+        while (state != exit && (read = stream.read(buffer)) >= 0) {
+            state = feed(state, buffer, 0, read);
+        }
+        return state;
+    }
+
+    /**
+     * Continues a run of the finite state machine from the specified state on the bytes pulled from the channel.
+     * The specified buffer is cleared and reused for all reads, so the channel is processed in constant memory.
+     * Reading stops at the end of the channel or as soon as the machine reaches the exit state.
+     * The channel is expected to be in blocking mode.
+     *
+     * @param state   the raw id of the state from which the run continues
+     * @param channel the channel of analyzed bytes
+     * @param buffer  the buffer used for reading, must have non-zero capacity
+     * @return the raw id of the machine state after bytes processing
+     * @throws IOException if an I/O error occurs during reading
+     */
+    default int feed(int state, ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        var exit = getExitId();
+        while (state != exit) {
+            buffer.clear();
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+            buffer.flip();
+            state = feed(state, buffer);
+        }
+        return state;
+    }
+
+    /**
+     * Runs the finite state machine on the bytes pulled from the stream.
+     * Does not change the internal state of the machine.
+     *
+     * @param stream the stream of analyzed bytes
+     * @return final machine state after bytes processing
+     * @throws IOException if an I/O error occurs during reading
+     * @see #feed(int, InputStream, byte[])
+     */
+    default S run(InputStream stream) throws IOException {
+        return stateOf(feed(getInitId(), stream, new byte[8192]));
+    }
+
+    /**
+     * Runs the finite state machine on the bytes pulled from the channel.
+     * Does not change the internal state of the machine.
+     *
+     * @param channel the channel of analyzed bytes
+     * @return final machine state after bytes processing
+     * @throws IOException if an I/O error occurs during reading
+     * @see #feed(int, ReadableByteChannel, ByteBuffer)
+     */
+    default S run(ReadableByteChannel channel) throws IOException {
+        return stateOf(feed(getInitId(), channel, ByteBuffer.allocate(8192)));
+    }
+
+    /**
+     * Runs the finite state machine on each sequence of the flattened byte array and writes the raw ids
+     * of final states to the results array. Does not change the internal state of the machine.
+     *
+     * @param bytes    the array contains the bytes of all sequences
+     * @param offsets  the array of sequence boundaries, containing the number of sequences plus one elements
+     * @param results  the array receiving final state ids, one per sequence
+     * @param parallel whether the batch should be split across cores of the common ForkJoin pool
+     * @see StateMachine#runBatch(Object[], int[], int[], boolean)
+     */
+    default void runBatch(byte[] bytes, int[] offsets, int[] results, boolean parallel) {
+        var count = Batches.count(offsets, results);
+        var init = getInitId();
+        Batches.run(count, parallel, i -> results[i] = feed(init, bytes, offsets[i], offsets[i + 1] - offsets[i]));
+    }
+
+    @Override
+    ByteMachineCursor<S> cursor();
+
+    /**
+     * Performs a transition for the specified byte.
+     *
+     * @param token analyzed byte
+     * @return machine state after transition
+     */
+    S step(byte token);
+}
@@ -0,0 +1,46 @@
+package com.github.romanqed.jsm;
+
+/**
+ * Interface describing a cursor over a finite state machine specialized for char tokens.
+ *
+ * @param <S> state type
+ * @see MachineCursor
+ */
+public interface CharMachineCursor<S> extends MachineCursor<S, Character> {
+
+    /**
+     * Performs a transition for the specified char.
+     *
+     * @param token analyzed char
+     * @return machine state after transition
+     */
+    S step(char token);
+
+    /**
+     * Performs a transition for the specified char and returns the raw id of the new state.
+     *
+     * @param token analyzed char
+     * @return the raw id of machine state after transition
+     */
+    int stepId(char token);
+
+    /**
+     * Performs transitions for the chars of the specified array region.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return machine state after chars processing
+     */
+    S feed(char[] chars, int offset, int length);
+
+    /**
+     * Performs transitions for the chars of the specified sequence.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param chars the sequence of analyzed chars
+     * @return machine state after chars processing
+     */
+    S feed(CharSequence chars);
+}
@@ -0,0 +1,302 @@
+package com.github.romanqed.jsm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Interface describing a finite state machine specialized for char tokens.
+ * Allows to process char sequences and arrays without boxing and allocations.
+ *
+ * @param <S> state type
+ */
+public interface CharStateMachine<S> extends StateMachine<S, Character> {
+
+    /**
+     * Runs the finite state machine on a char sequence.
+     * Does not change the internal state of the machine.
+     *
+     * @param chars the sequence of analyzed chars
+     * @return final machine state after chars processing
+     */
+    S run(CharSequence chars);
+
+    /**
+     * Runs the finite state machine on a region of the char array.
+     * Does not change the internal state of the machine.
+     *
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return final machine state after chars processing
+     */
+    S run(char[] chars, int offset, int length);
+
+    /**
+     * Runs the finite state machine on a large char sequence, splitting it into chunks processed in parallel.
+     * Does not change the internal state of the machine.
+     * By default, the sequence is processed sequentially by {@link #run(CharSequence)}.
+     *
+     * @param chars the sequence of analyzed chars
+     * @return final machine state after chars processing
+     * @see StateMachine#runParallel(Object[])
+     */
+    default S runParallel(CharSequence chars) {
+        return run(chars);
+    }
+
+    /**
+     * Runs the finite state machine on a large region of the char array, splitting it into chunks processed
+     * in parallel. Does not change the internal state of the machine.
+     * By default, the region is processed sequentially by {@link #run(char[], int, int)}.
+     *
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return final machine state after chars processing
+     * @see StateMachine#runParallel(Object[])
+     */
+    default S runParallel(char[] chars, int offset, int length) {
+        return run(chars, offset, length);
+    }
+
+    /**
+     * Runs the finite state machine on a char sequence and returns the raw id of the final state.
+     * Does not change the internal state of the machine.
+     *
+     * @param chars the sequence of analyzed chars
+     * @return the raw id of the final state
+     * @see StateMachine#stateOf(int)
+     */
+    default int runToId(CharSequence chars) {
+        return feed(getInitId(), chars, 0, chars.length());
+    }
+
+    /**
+     * Runs the finite state machine on a region of the char array and returns the raw id of the final state.
+     * Does not change the internal state of the machine.
+     *
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return the raw id of the final state
+     * @see StateMachine#stateOf(int)
+     */
+    default int runToId(char[] chars, int offset, int length) {
+        return feed(getInitId(), chars, offset, length);
+    }
+
+    /**
+     * Starts the finite state machine on a char sequence and calculates a unique stamp for
+     * the sequence of states that the machine has passed through.
+     * If the machine has reached the exit state, the stamp will be -1.
+     *
+     * @param chars the sequence of analyzed chars
+     * @return the stamp of this run
+     * @see StateMachine#stamp(Iterable)
+     */
+    long stamp(CharSequence chars);
+
+    /**
+     * Starts the finite state machine on a region of the char array and calculates a unique stamp for
+     * the sequence of states that the machine has passed through.
+     * If the machine has reached the exit state, the stamp will be -1.
+     *
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return the stamp of this run
+     * @see StateMachine#stamp(Iterable)
+     */
+    long stamp(char[] chars, int offset, int length);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the char sequence.
+     * Does not change the internal state of the machine.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param chars  the sequence of analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return the raw id of the machine state after chars processing
+     * @see StateMachine#feed(int, Object[], int, int)
+     */
+    int feed(int state, CharSequence chars, int offset, int length);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the char array.
+     * Does not change the internal state of the machine.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @return the raw id of the machine state after chars processing
+     * @see StateMachine#feed(int, Object[], int, int)
+     */
+    int feed(int state, char[] chars, int offset, int length);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the char sequence,
+     * recording the id of each state passed to the specified trace. Recording stops after the exit state.
+     * Does not change the internal state of the machine.
+     * By default, chars are fed one by one by {@link #feed(int, CharSequence, int, int)}.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param chars  the sequence of analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @param trace  the trace receiving state ids
+     * @return the raw id of the machine state after chars processing
+     * @see StateMachine#trace(int, Object[], int, int, StateTrace)
+     */
+    default int trace(int state, CharSequence chars, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, chars.length());
+        var exit = getExitId();
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = feed(state, chars, i, 1);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the char array,
+     * recording the id of each state passed to the specified trace. Recording stops after the exit state.
+     * Does not change the internal state of the machine.
+     * By default, chars are fed one by one by {@link #feed(int, char[], int, int)}.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param chars  the array contains analyzed chars
+     * @param offset the index of the first analyzed char
+     * @param length the number of analyzed chars
+     * @param trace  the trace receiving state ids
+     * @return the raw id of the machine state after chars processing
+     * @see StateMachine#trace(int, Object[], int, int, StateTrace)
+     */
+    default int trace(int state, char[] chars, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var exit = getExitId();
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = feed(state, chars, i, 1);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Searches the char sequence for all non-overlapping matches.
+     * Does not change the internal state of the machine.
+     * By default, chars are fed one by one by {@link #feed(int, CharSequence, int, int)}.
+     *
+     * @param chars   the sequence of analyzed chars
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     * @see StateMachine#findAll(Object[], int, int, MatchMode, MatchBuffer)
+     */
+    default int findAll(CharSequence chars, MatchMode mode, MatchBuffer matches) {
+        var scanner = MatchScanner.of(this, (state, index) -> feed(state, chars, index, 1));
+        return scanner.scan(0, chars.length(), mode, matches);
+    }
+
+    /**
+     * Searches the region of the char array for all non-overlapping matches.
+     * Does not change the internal state of the machine.
+     * By default, chars are fed one by one by {@link #feed(int, char[], int, int)}.
+     *
+     * @param chars   the array contains analyzed chars
+     * @param offset  the index of the first analyzed char
+     * @param length  the number of analyzed chars
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     * @see StateMachine#findAll(Object[], int, int, MatchMode, MatchBuffer)
+     */
+    default int findAll(char[] chars, int offset, int length, MatchMode mode, MatchBuffer matches) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var scanner = MatchScanner.of(this, (state, index) -> feed(state, chars, index, 1));
+        return scanner.scan(offset, offset + length, mode, matches);
+    }
+
+    /**
+     * Continues a run of the finite state machine from the specified state on the chars pulled from the reader.
+     * The specified buffer is reused for all reads, so the stream is processed in constant memory.
+     * Reading stops at the end of the stream or as soon as the machine reaches the exit state.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param reader the reader of analyzed chars
+     * @param buffer the buffer used for reading, must be non-empty
+     * @return the raw id of the machine state after chars processing
+     * @throws IOException if an I/O error occurs during reading
+     */
+    default int feed(int state, Reader reader, char[] buffer) throws IOException {
+        var exit = getExitId();
+        int read;
+        while (state != exit && (read = reader.read(buffer)) >= 0) {
+            state = feed(state, buffer, 0, read);
+        }
+        return state;
+    }
+
+    /**
+     * Runs the finite state machine on the chars pulled from the reader.
+     * Does not change the internal state of the machine.
+     *
+     * @param reader the reader of analyzed chars
+     * @return final machine state after chars processing
+     * @throws IOException if an I/O error occurs during reading
+     * @see #feed(int, Reader, char[])
+     */
+    default S run(Reader reader) throws IOException {
+        return stateOf(feed(getInitId(), reader, new char[8192]));
+    }
+
+    /**
+     * Runs the finite state machine on each sequence of the flattened char array and writes the raw ids
+     * of final states to the results array. Does not change the internal state of the machine.
+     *
+     * @param chars    the array contains the chars of all sequences
+     * @param offsets  the array of sequence boundaries, containing the number of sequences plus one elements
+     * @param results  the array receiving final state ids, one per sequence
+     * @param parallel whether the batch should be split across cores of the common ForkJoin pool
+     * @see StateMachine#runBatch(Object[], int[], int[], boolean)
+     */
+    default void runBatch(char[] chars, int[] offsets, int[] results, boolean parallel) {
+        var count = Batches.count(offsets, results);
+        var init = getInitId();
+        Batches.run(count, parallel, i -> results[i] = feed(init, chars, offsets[i], offsets[i + 1] - offsets[i]));
+    }
+
+    /**
+     * Runs the finite state machine on each of the specified char sequences and writes the raw ids
+     * of final states to the results array. Does not change the internal state of the machine.
+     *
+     * @param sequences the list of char sequences
+     * @param results   the array receiving final state ids, one per sequence
+     * @param parallel  whether the batch should be split across cores of the common ForkJoin pool
+     * @see StateMachine#runBatch(List, int[], boolean)
+     */
+    default void runSequences(List<? extends CharSequence> sequences, int[] results, boolean parallel) {
+        var count = Batches.count(sequences, results);
+        var init = getInitId();
+        Batches.run(count, parallel, i -> {
+            var chars = sequences.get(i);
+            results[i] = feed(init, chars, 0, chars.length());
+        });
+    }
+
+    @Override
+    CharMachineCursor<S> cursor();
+
+    /**
+     * Performs a transition for the specified char.
+     *
+     * @param token analyzed char
+     * @return machine state after transition
+     */
+    S step(char token);
+}
@@ -0,0 +1,51 @@
+package com.github.romanqed.jsm;
+
+/**
+ * Default cursor performing each transition by feeding a single token to the machine.
+ */
+final class FeedCursor<S, T> implements MachineCursor<S, T> {
+    private final StateMachine<S, T> machine;
+    private final T[] token;
+    private int state;
+
+    @SuppressWarnings("unchecked")
+    FeedCursor(StateMachine<S, T> machine) {
+        this.machine = machine;
+        this.token = (T[]) new Object[1];
+        this.state = machine.getInitId();
+    }
+
+    @Override
+    public S getState() {
+        return machine.stateOf(state);
+    }
+
+    @Override
+    public int getStateId() {
+        return state;
+    }
+
+    @Override
+    public S step(T token) {
+        return machine.stateOf(stepId(token));
+    }
+
+    @Override
+    public int stepId(T token) {
+        this.token[0] = token;
+        this.state = machine.feed(state, this.token, 0, 1);
+        this.token[0] = null;
+        return state;
+    }
+
+    @Override
+    public S feed(T[] tokens, int offset, int length) {
+        this.state = machine.feed(state, tokens, offset, length);
+        return machine.stateOf(state);
+    }
+
+    @Override
+    public void reset() {
+        this.state = machine.getInitId();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.romanqed.jsm;
+
+/**
+ * An interface describing a maximal-munch tokenizer built from a finite state machine model,
+ * in which every accepting state carries a token kind.
+ * <br>
+ * Starting from the beginning of the region, the lexer runs the machine from the initial state,
+ * emits the longest token it has found and continues from the end of that token. Tokenization stops
+ * at the end of the region or at the first position where no non-empty token can be found.
+ * <br>
+ * Lexers are stateless, so one instance can be shared between threads.
+ */
+public interface Lexer {
+
+    /**
+     * Tokenizes the specified region of the char sequence.
+     *
+     * @param chars  the sequence of chars, must be non-null
+     * @param offset the index of the first char
+     * @param length the number of chars
+     * @param tokens the buffer the found tokens are appended to, must be non-null
+     * @return the position where tokenization stopped, equal to offset + length if the whole region was consumed
+     */
+    int tokenize(CharSequence chars, int offset, int length, TokenBuffer tokens);
+
+    /**
+     * Tokenizes the specified region of the char array.
+     *
+     * @param chars  the array of chars, must be non-null
+     * @param offset the index of the first char
+     * @param length the number of chars
+     * @param tokens the buffer the found tokens are appended to, must be non-null
+     * @return the position where tokenization stopped, equal to offset + length if the whole region was consumed
+     */
+    int tokenize(char[] chars, int offset, int length, TokenBuffer tokens);
+
+    /**
+     * Tokenizes the whole char sequence.
+     *
+     * @param chars  the sequence of chars, must be non-null
+     * @param tokens the buffer the found tokens are appended to, must be non-null
+     * @return the position where tokenization stopped, equal to the sequence length if it was fully consumed
+     */
+    default int tokenize(CharSequence chars, TokenBuffer tokens) {
+        return tokenize(chars, 0, chars.length(), tokens);
+    }
+}
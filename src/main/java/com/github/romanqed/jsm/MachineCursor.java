@@ -0,0 +1,61 @@
+package com.github.romanqed.jsm;
+
+/**
+ * Interface describing a cursor over a finite state machine, which holds the current state of a stepwise run.
+ * <br>
+ * The machine itself is immutable and thread-safe, so it can be shared by any number of cursors, while each cursor
+ * consists of a few fields and must be confined to one thread at a time. Cursors can be pooled and reused
+ * after {@link #reset()}.
+ *
+ * @param <S> state type
+ * @param <T> token type
+ */
+public interface MachineCursor<S, T> {
+
+    /**
+     * Returns current machine state.
+     *
+     * @return current machine state
+     */
+    S getState();
+
+    /**
+     * Returns the raw id of the current machine state.
+     *
+     * @return current state id
+     * @see StateMachine#stateOf(int)
+     */
+    int getStateId();
+
+    /**
+     * Performs a transition for the specified token.
+     *
+     * @param token analyzed token
+     * @return machine state after transition
+     */
+    S step(T token);
+
+    /**
+     * Performs a transition for the specified token and returns the raw id of the new state.
+     *
+     * @param token analyzed token
+     * @return the raw id of machine state after transition
+     */
+    int stepId(T token);
+
+    /**
+     * Performs transitions for the tokens of the specified array region.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param tokens the array contains analyzed tokens
+     * @param offset the index of the first analyzed token
+     * @param length the number of analyzed tokens
+     * @return machine state after token processing
+     */
+    S feed(T[] tokens, int offset, int length);
+
+    /**
+     * Resets the cursor to the initial state.
+     */
+    void reset();
+}
@@ -0,0 +1,119 @@
+package com.github.romanqed.jsm;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A class describing a reusable buffer of matches, each consisting of the start position (inclusive),
+ * the end position (exclusive) and the raw id of the accepting state in which the match ended.
+ * <br>
+ * Matches are stored as int triples in one growable array, which keeps its capacity after {@link #clear()},
+ * so searching into a reused buffer does not allocate. Instances are not thread-safe.
+ */
+public final class MatchBuffer {
+    private static final int DEFAULT_CAPACITY = 16;
+    private int[] data;
+    private int size;
+
+    /**
+     * Constructs {@link MatchBuffer} with the specified initial capacity in matches.
+     *
+     * @param capacity the initial capacity, must be non-negative
+     */
+    public MatchBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative");
+        }
+        this.data = new int[capacity * 3];
+    }
+
+    /**
+     * Constructs {@link MatchBuffer} with the default initial capacity.
+     */
+    public MatchBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Appends the specified match to the buffer.
+     *
+     * @param start the start position of the match, inclusive
+     * @param end   the end position of the match, exclusive
+     * @param state the raw id of the accepting state
+     */
+    public void add(int start, int end, int state) {
+        var index = size * 3;
+        if (index == data.length) {
+            data = Arrays.copyOf(data, Math.max(DEFAULT_CAPACITY * 3, index << 1));
+        }
+        data[index] = start;
+        data[index + 1] = end;
+        data[index + 2] = state;
+        ++size;
+    }
+
+    /**
+     * Returns the number of matches in the buffer.
+     *
+     * @return the number of matches
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the start position of the match with the specified index.
+     *
+     * @param index the index of the match
+     * @return the start position, inclusive
+     */
+    public int getStart(int index) {
+        return data[Objects.checkIndex(index, size) * 3];
+    }
+
+    /**
+     * Returns the end position of the match with the specified index.
+     *
+     * @param index the index of the match
+     * @return the end position, exclusive
+     */
+    public int getEnd(int index) {
+        return data[Objects.checkIndex(index, size) * 3 + 1];
+    }
+
+    /**
+     * Returns the raw id of the accepting state of the match with the specified index.
+     *
+     * @param index the index of the match
+     * @return the raw state id
+     * @see StateMachine#stateOf(int)
+     */
+    public int getStateId(int index) {
+        return data[Objects.checkIndex(index, size) * 3 + 2];
+    }
+
+    /**
+     * Returns the backing array of this buffer, containing (start, end, state) triples up to {@link #size()}.
+     * The array is replaced when the buffer grows.
+     *
+     * @return the backing array
+     */
+    public int[] getData() {
+        return data;
+    }
+
+    /**
+     * Removes all matches, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchBuffer{" +
+                "size=" + size +
+                ", data=" + Arrays.toString(Arrays.copyOf(data, size * 3)) +
+                '}';
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.romanqed.jsm;
+
+/**
+ * Enumeration of the ways to choose matches when searching for occurrences of a finite state machine model
+ * in an input. In both modes, matches do not overlap, have non-zero length and start at the leftmost
+ * possible position, and the search continues from the end of the previous match.
+ */
+public enum MatchMode {
+    /**
+     * The match ends at the last position where the machine was in an accepting state.
+     */
+    LEFTMOST_LONGEST,
+    /**
+     * The match ends at the first position where the machine was in an accepting state.
+     * Since the model is deterministic, there is no priority between alternatives, so this is
+     * the shortest match at the leftmost position.
+     */
+    LEFTMOST_FIRST
+}
@@ -0,0 +1,374 @@
+package com.github.romanqed.jsm;
+
+import java.util.Arrays;
+
+/**
+ * Unanchored search of matches over an indexed input.
+ * <br>
+ * A run is started from the initial state at every position, and all runs are advanced together in one pass.
+ * Runs reaching the same state at the same position have the same future, so they are merged into one group,
+ * which bounds the number of groups by the number of states. Each run starts in its own leaf node, and each merge
+ * makes the nodes of merged groups children of a common node, so the nodes a run passed through form the path
+ * from its leaf to the root. Positions where a group reaches an accepting state are recorded in its current node
+ * together with the reached state, and the match end of a start is the last (leftmost-longest) or the first
+ * (leftmost-first) position recorded on its path. Once all runs started before some position are dead, the ends
+ * of these starts are final, so the matches among them are reported, and the nodes no longer needed are discarded.
+ * <br>
+ * Each token is read once by every group, and nothing is read again after a match, so the search takes
+ * O(n * s) time for n tokens and s states. The kept nodes are proportional to the distance between the last
+ * reported match and the leftmost live run, which is the whole input in the worst case, for example,
+ * when a run started at the beginning can reach an accepting state only at the end.
+ * <br>
+ * The scanner is used by the default implementations of
+ * {@link StateMachine#findAll(Object[], int, int, MatchMode, MatchBuffer)} and its specializations.
+ * It keeps its buffers between searches, so instances are not thread-safe.
+ */
+final class MatchScanner {
+    private static final int NONE = -1;
+    private static final int UNKNOWN = -2;
+    private static final int DEFAULT_CAPACITY = 64;
+    private final IndexedFunction function;
+    private final boolean[] accepting;
+    private final int init;
+    private final int exit;
+    // Groups are found by their states: marks of the current generation and indices of groups
+    private final int[] marks;
+    private final int[] slots;
+    // Groups: state, node and the bounds of start positions
+    private int[] states;
+    private int[] nodes;
+    private int[] mins;
+    private int[] maxs;
+    private int[] nextStates;
+    private int[] nextNodes;
+    private int[] nextMins;
+    private int[] nextMaxs;
+    private int count;
+    private int generation;
+    // Nodes: parent, recorded match end with its state, and match end with its state aggregated over the path
+    private int[] parents;
+    private int[] values;
+    private int[] accepts;
+    private int[] aggregates;
+    private int[] aggregated;
+    private int size;
+    // Leaf nodes of start positions, indexed from the base
+    private int[] leaves;
+    private int base;
+    private int[] path;
+    private int accept;
+    private boolean longest;
+    // The end of the last reported match and the first start whose match is not decided yet
+    private int position;
+    private int cursor;
+    private int found;
+
+    /**
+     * Constructs {@link MatchScanner} over the specified transition function.
+     *
+     * @param function  the function performing a transition by the token at the specified index, must be non-null
+     * @param accepting the acceptance flags indexed by state ids, must be non-null
+     * @param init      the id of the initial state
+     * @param exit      the id of the exit state
+     */
+    MatchScanner(IndexedFunction function, boolean[] accepting, int init, int exit) {
+        var count = accepting.length;
+        this.function = function;
+        this.accepting = accepting;
+        this.init = init;
+        this.exit = exit;
+        this.marks = new int[count];
+        this.slots = new int[count];
+        this.states = new int[count];
+        this.nodes = new int[count];
+        this.mins = new int[count];
+        this.maxs = new int[count];
+        this.nextStates = new int[count];
+        this.nextNodes = new int[count];
+        this.nextMins = new int[count];
+        this.nextMaxs = new int[count];
+        this.parents = new int[DEFAULT_CAPACITY];
+        this.values = new int[DEFAULT_CAPACITY];
+        this.accepts = new int[DEFAULT_CAPACITY];
+        this.aggregates = new int[DEFAULT_CAPACITY];
+        this.aggregated = new int[DEFAULT_CAPACITY];
+        this.leaves = new int[DEFAULT_CAPACITY];
+        this.path = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates the {@link MatchScanner} over the specified machine, using the acceptance of its state ids.
+     *
+     * @param machine  the machine, must be non-null
+     * @param function the function performing a transition by the token at the specified index, must be non-null
+     * @return the {@link MatchScanner} instance
+     */
+    static MatchScanner of(StateMachine<?, ?> machine, IndexedFunction function) {
+        var accepting = new boolean[machine.getStateCount()];
+        for (var i = 0; i < accepting.length; ++i) {
+            accepting[i] = machine.isAccepting(i);
+        }
+        return new MatchScanner(function, accepting, machine.getInitId(), machine.getExitId());
+    }
+
+    /**
+     * Searches the input from offset (inclusive) to end (exclusive) for all non-overlapping matches.
+     *
+     * @param offset  the index of the first token
+     * @param end     the index after the last token
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     */
+    int scan(int offset, int end, MatchMode mode, MatchBuffer matches) {
+        this.longest = mode == MatchMode.LEFTMOST_LONGEST;
+        this.count = 0;
+        this.size = 0;
+        this.base = offset;
+        this.position = offset;
+        this.cursor = offset;
+        this.found = 0;
+        nextGeneration();
+        for (var i = offset; i < end; ++i) {
+            // A step creates a leaf and at most one node per merged group
+            reserve(i, count + 1);
+            var fresh = size;
+            start(i);
+            advance(i, fresh);
+            // Starts before the leftmost live start of a group are not live
+            var limit = i + 1;
+            for (var j = 0; j < count; ++j) {
+                limit = Math.min(limit, Math.max(mins[j], position));
+            }
+            report(limit, matches);
+        }
+        report(end, matches);
+        return found;
+    }
+
+    private void nextGeneration() {
+        if (++generation == 0) {
+            // Marks of previous generations could be confused with new ones after overflow
+            Arrays.fill(marks, 0);
+            generation = 1;
+        }
+    }
+
+    private int newNode() {
+        var ret = size++;
+        parents[ret] = -1;
+        values[ret] = NONE;
+        aggregates[ret] = UNKNOWN;
+        return ret;
+    }
+
+    private void reserve(int index, int nodes) {
+        // Nodes below the leaf of the cursor are needed neither by undecided starts nor by live groups
+        var first = cursor - base;
+        var cut = cursor < index ? leaves[first] : size;
+        if (size + nodes > parents.length) {
+            if (cut >= parents.length / 2 && size - cut + nodes <= parents.length) {
+                compact(cut);
+            } else {
+                var capacity = Math.max(parents.length * 2, size + nodes);
+                parents = Arrays.copyOf(parents, capacity);
+                values = Arrays.copyOf(values, capacity);
+                accepts = Arrays.copyOf(accepts, capacity);
+                aggregates = Arrays.copyOf(aggregates, capacity);
+                aggregated = Arrays.copyOf(aggregated, capacity);
+            }
+        }
+        if (index - base < leaves.length) {
+            return;
+        }
+        if (first >= leaves.length / 2) {
+            System.arraycopy(leaves, first, leaves, 0, index - cursor);
+            base = cursor;
+        } else {
+            leaves = Arrays.copyOf(leaves, leaves.length * 2);
+        }
+    }
+
+    private void compact(int cut) {
+        var length = size - cut;
+        System.arraycopy(parents, cut, parents, 0, length);
+        System.arraycopy(values, cut, values, 0, length);
+        System.arraycopy(accepts, cut, accepts, 0, length);
+        System.arraycopy(aggregates, cut, aggregates, 0, length);
+        System.arraycopy(aggregated, cut, aggregated, 0, length);
+        for (var i = 0; i < length; ++i) {
+            if (parents[i] >= 0) {
+                parents[i] -= cut;
+            }
+        }
+        for (var i = 0; i < count; ++i) {
+            // Groups with discarded nodes contain only starts inside reported matches
+            nodes[i] = nodes[i] < cut ? -1 : nodes[i] - cut;
+        }
+        for (var i = cursor - base; i < leaves.length; ++i) {
+            leaves[i] -= cut;
+        }
+        size = length;
+    }
+
+    private void start(int index) {
+        var leaf = newNode();
+        leaves[index - base] = leaf;
+        if (marks[init] == generation) {
+            var slot = slots[init];
+            if (maxs[slot] < position || nodes[slot] < 0) {
+                // All starts of the group are inside reported matches, so it is replaced
+                mins[slot] = index;
+            } else {
+                parents[nodes[slot]] = leaf;
+            }
+            nodes[slot] = leaf;
+            maxs[slot] = index;
+            return;
+        }
+        marks[init] = generation;
+        slots[init] = count;
+        states[count] = init;
+        nodes[count] = leaf;
+        mins[count] = index;
+        maxs[count] = index;
+        ++count;
+    }
+
+    private int merge(int left, int right, int fresh) {
+        if (left < 0) {
+            return right;
+        }
+        if (right < 0) {
+            return left;
+        }
+        // Nodes created at this step have no recorded ends yet, so they can adopt other nodes
+        if (left >= fresh) {
+            parents[right] = left;
+            return left;
+        }
+        if (right >= fresh) {
+            parents[left] = right;
+            return right;
+        }
+        var ret = newNode();
+        parents[left] = ret;
+        parents[right] = ret;
+        return ret;
+    }
+
+    private void advance(int index, int fresh) {
+        nextGeneration();
+        var next = 0;
+        for (var i = 0; i < count; ++i) {
+            if (maxs[i] < position) {
+                // All starts of the group are inside reported matches
+                continue;
+            }
+            var state = function.transit(states[i], index);
+            if (state == exit) {
+                continue;
+            }
+            if (marks[state] == generation) {
+                var slot = slots[state];
+                nextNodes[slot] = merge(nextNodes[slot], nodes[i], fresh);
+                nextMins[slot] = Math.min(nextMins[slot], mins[i]);
+                nextMaxs[slot] = Math.max(nextMaxs[slot], maxs[i]);
+                continue;
+            }
+            marks[state] = generation;
+            slots[state] = next;
+            nextStates[next] = state;
+            nextNodes[next] = nodes[i];
+            nextMins[next] = mins[i];
+            nextMaxs[next] = maxs[i];
+            ++next;
+        }
+        var end = index + 1;
+        for (var i = 0; i < next; ++i) {
+            var node = nextNodes[i];
+            if (node < 0 || !accepting[nextStates[i]]) {
+                continue;
+            }
+            if (longest || values[node] == NONE) {
+                values[node] = end;
+                accepts[node] = nextStates[i];
+            }
+        }
+        swap();
+        count = next;
+    }
+
+    private void swap() {
+        var states = this.states;
+        var nodes = this.nodes;
+        var mins = this.mins;
+        var maxs = this.maxs;
+        this.states = nextStates;
+        this.nodes = nextNodes;
+        this.mins = nextMins;
+        this.maxs = nextMaxs;
+        this.nextStates = states;
+        this.nextNodes = nodes;
+        this.nextMins = mins;
+        this.nextMaxs = maxs;
+    }
+
+    private int resolve(int leaf) {
+        // The path of a dead start is final, so aggregates are cached for the starts sharing it
+        var length = 0;
+        var node = leaf;
+        while (node >= 0 && aggregates[node] == UNKNOWN) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = node;
+            node = parents[node];
+        }
+        var ret = node < 0 ? NONE : aggregates[node];
+        var state = node < 0 ? exit : aggregated[node];
+        while (length > 0) {
+            node = path[--length];
+            var value = values[node];
+            // Equal ends of the same start are reached in the same state
+            if (value != NONE && (ret == NONE || (longest ? value > ret : value < ret))) {
+                ret = value;
+                state = accepts[node];
+            }
+            aggregates[node] = ret;
+            aggregated[node] = state;
+        }
+        accept = state;
+        return ret;
+    }
+
+    private void report(int limit, MatchBuffer matches) {
+        while (cursor < limit) {
+            var end = resolve(leaves[cursor - base]);
+            if (end == NONE) {
+                ++cursor;
+                continue;
+            }
+            matches.add(cursor, end, accept);
+            ++found;
+            position = end;
+            cursor = end;
+        }
+    }
+
+    /**
+     * A function performing a transition by the token at the specified index of the scanned input.
+     */
+    @FunctionalInterface
+    interface IndexedFunction {
+
+        /**
+         * Performs a transition from the specified state by the token at the specified index.
+         *
+         * @param state the source state id
+         * @param index the index of the token
+         * @return the target state id
+         */
+        int transit(int state, int index);
+    }
+}
@@ -1,7 +1,14 @@
 package com.github.romanqed.jsm;
 
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Interface describing a finite state machine.
+ * <br>
+ * Runs, stamps and feeds do not change the internal state of the machine, so they can be called concurrently.
+ * Stepwise processing by {@link #step(Object)} changes the internal state and is not thread-safe; to process
+ * many sequences stepwise, including from different threads, use separate cursors created by {@link #cursor()}.
  *
  * @param <S> state type
  * @param <T> token type
@@ -26,6 +33,22 @@ public interface StateMachine<S, T> {
      */
     S run(T[] tokens);
 
+    /**
+     * Runs the finite state machine on a large token array, splitting it into chunks processed
+     * in parallel by the common ForkJoin pool. The result is the same as the result of {@link #run(Object[])}.
+     * Does not change the internal state of the machine.
+     * <br>
+     * For each chunk except the first, the machine is run from all states at once, merging runs that
+     * have converged, so the speedup depends on how fast the states of the model converge.
+     * By default, the array is processed sequentially by {@link #run(Object[])}.
+     *
+     * @param tokens the array contains analyzed tokens
+     * @return final machine state after token processing
+     */
+    default S runParallel(T[] tokens) {
+        return run(tokens);
+    }
+
     /**
      * Starts the finite state machine and calculates a unique stamp for
      * the sequence of states that the machine has passed through.
@@ -52,6 +75,185 @@ public interface StateMachine<S, T> {
      */
     long stamp(T[] tokens);
 
+    /**
+     * Runs the finite state machine on a token chain and returns the raw id of the final state.
+     * Does not change the internal state of the machine.
+     * By default, the id is found by {@link #idOf(Object)}.
+     *
+     * @param tokens the chain of analyzed tokens
+     * @return the raw id of the final state
+     * @see #stateOf(int)
+     */
+    default int runToId(Iterable<T> tokens) {
+        return idOf(run(tokens));
+    }
+
+    /**
+     * Runs the finite state machine on a token array and returns the raw id of the final state.
+     * Does not change the internal state of the machine.
+     *
+     * @param tokens the array contains analyzed tokens
+     * @return the raw id of the final state
+     * @see #stateOf(int)
+     */
+    default int runToId(T[] tokens) {
+        return feed(getInitId(), tokens, 0, tokens.length);
+    }
+
+    /**
+     * Returns the number of raw state ids. Ids are dense, from 0 (inclusive) to the count (exclusive),
+     * so per-state data can be kept in flat arrays indexed by id.
+     *
+     * @return the number of state ids
+     */
+    int getStateCount();
+
+    /**
+     * Returns the raw id of the initial state, which is used as the starting point of continuable runs.
+     *
+     * @return the initial state id
+     * @see #feed(int, Object[], int, int)
+     */
+    int getInitId();
+
+    /**
+     * Returns the raw id of the exit state. Once the machine has reached it, it will never leave it.
+     *
+     * @return the exit state id
+     */
+    int getExitId();
+
+    /**
+     * Returns the machine state corresponding to the specified raw id.
+     *
+     * @param id the raw state id
+     * @return the machine state
+     */
+    S stateOf(int id);
+
+    /**
+     * Returns the raw id of the specified machine state.
+     *
+     * @param state the machine state
+     * @return the raw state id, or -1 if the machine has no such state
+     */
+    int idOf(S state);
+
+    /**
+     * Checks whether the state with the specified raw id is accepting. If the model does not declare
+     * accepting states, all states except the exit state are accepting.
+     *
+     * @param id the raw state id
+     * @return true if the state is accepting, false otherwise
+     * @see com.github.romanqed.jsm.model.MachineModel#isAccepting(Object)
+     */
+    boolean isAccepting(int id);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the token array.
+     * Allows to process a sequence that arrives in chunks: the result of the previous call is passed
+     * as the state of the next one, starting with {@link #getInitId()}.
+     * Does not change the internal state of the machine.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param tokens the array contains analyzed tokens
+     * @param offset the index of the first analyzed token
+     * @param length the number of analyzed tokens
+     * @return the raw id of the machine state after token processing
+     */
+    int feed(int state, T[] tokens, int offset, int length);
+
+    /**
+     * Continues a run of the finite state machine from the specified state on a region of the token array,
+     * recording the id of each state passed to the specified trace. Recording stops after the exit state.
+     * Does not change the internal state of the machine.
+     * By default, tokens are fed one by one by {@link #feed(int, Object[], int, int)}.
+     *
+     * @param state  the raw id of the state from which the run continues
+     * @param tokens the array contains analyzed tokens
+     * @param offset the index of the first analyzed token
+     * @param length the number of analyzed tokens
+     * @param trace  the trace receiving state ids
+     * @return the raw id of the machine state after token processing
+     */
+    default int trace(int state, T[] tokens, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        var exit = getExitId();
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = feed(state, tokens, i, 1);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Searches the region of the token array for all non-overlapping matches, that is, subsequences
+     * on which the machine, started from the initial state, ends in an accepting state. The search is
+     * performed in one pass, and each match is added to the buffer as (start, end, accepting state id).
+     * Empty matches are not reported. Does not change the internal state of the machine.
+     * By default, tokens are fed one by one by {@link #feed(int, Object[], int, int)}.
+     *
+     * @param tokens  the array contains analyzed tokens
+     * @param offset  the index of the first analyzed token
+     * @param length  the number of analyzed tokens
+     * @param mode    the mode choosing matches
+     * @param matches the buffer receiving matches
+     * @return the number of found matches
+     * @see #isAccepting(int)
+     */
+    default int findAll(T[] tokens, int offset, int length, MatchMode mode, MatchBuffer matches) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        var scanner = MatchScanner.of(this, (state, index) -> feed(state, tokens, index, 1));
+        return scanner.scan(offset, offset + length, mode, matches);
+    }
+
+    /**
+     * Runs the finite state machine on each sequence of the flattened token array, where sequence i
+     * occupies the region from offsets[i] (inclusive) to offsets[i + 1] (exclusive), and writes the raw
+     * ids of final states to the results array. Does not change the internal state of the machine.
+     *
+     * @param tokens   the array contains the tokens of all sequences
+     * @param offsets  the array of sequence boundaries, containing the number of sequences plus one elements
+     * @param results  the array receiving final state ids, one per sequence
+     * @param parallel whether the batch should be split across cores of the common ForkJoin pool
+     * @see #stateOf(int)
+     */
+    default void runBatch(T[] tokens, int[] offsets, int[] results, boolean parallel) {
+        var count = Batches.count(offsets, results);
+        var init = getInitId();
+        Batches.run(count, parallel, i -> results[i] = feed(init, tokens, offsets[i], offsets[i + 1] - offsets[i]));
+    }
+
+    /**
+     * Runs the finite state machine on each of the specified token arrays and writes the raw ids
+     * of final states to the results array. Does not change the internal state of the machine.
+     *
+     * @param sequences the list of token arrays
+     * @param results   the array receiving final state ids, one per sequence
+     * @param parallel  whether the batch should be split across cores of the common ForkJoin pool
+     * @see #stateOf(int)
+     */
+    default void runBatch(List<T[]> sequences, int[] results, boolean parallel) {
+        var count = Batches.count(sequences, results);
+        var init = getInitId();
+        Batches.run(count, parallel, i -> {
+            var tokens = sequences.get(i);
+            results[i] = feed(init, tokens, 0, tokens.length);
+        });
+    }
+
+    /**
+     * Creates a new cursor starting from the initial state. The cursor shares the compiled machine,
+     * so it is cheap to create.
+     * By default, the cursor performs transitions by {@link #feed(int, Object[], int, int)}.
+     *
+     * @return the {@link MachineCursor} instance
+     */
+    default MachineCursor<S, T> cursor() {
+        return new FeedCursor<>(this);
+    }
+
     /**
      * Returns current machine state.
      *
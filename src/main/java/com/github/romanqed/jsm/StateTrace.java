@@ -0,0 +1,119 @@
+package com.github.romanqed.jsm;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A class describing a reusable buffer recording the raw ids of the states a finite state machine has passed
+ * through, together with a 64-bit stamp of the recorded path.
+ * <br>
+ * The buffer grows as needed and keeps its capacity after {@link #clear()}, so recording into a reused trace
+ * does not allocate. Instances are not thread-safe.
+ */
+public final class StateTrace {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long SEED = 0xCBF29CE484222325L;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private int[] ids;
+    private int size;
+    private long hash;
+
+    /**
+     * Constructs {@link StateTrace} with the specified initial capacity.
+     *
+     * @param capacity the initial capacity, must be non-negative
+     */
+    public StateTrace(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative");
+        }
+        this.ids = new int[capacity];
+        this.hash = SEED;
+    }
+
+    /**
+     * Constructs {@link StateTrace} with the default initial capacity.
+     */
+    public StateTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Appends the specified state id to the trace.
+     *
+     * @param id the raw state id
+     */
+    public void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(DEFAULT_CAPACITY, size << 1));
+        }
+        ids[size++] = id;
+        var mixed = (hash ^ id) * MULTIPLIER;
+        hash = mixed ^ (mixed >>> 32);
+    }
+
+    /**
+     * Returns the number of recorded state ids.
+     *
+     * @return the number of recorded ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the state id recorded at the specified position.
+     *
+     * @param index the position of the id
+     * @return the raw state id
+     */
+    public int get(int index) {
+        return ids[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the backing array of this trace, valid up to {@link #size()}.
+     * The array is replaced when the trace grows.
+     *
+     * @return the backing array
+     */
+    public int[] getIds() {
+        return ids;
+    }
+
+    /**
+     * Returns the copy of the recorded state ids.
+     *
+     * @return the array of recorded ids
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Returns the 64-bit stamp of the recorded path. Unlike {@link StateMachine#stamp(Object[])},
+     * the stamp uses all 64 bits and a multiplicative mix, so equal stamps of different paths are unlikely.
+     *
+     * @return the stamp of the recorded path
+     */
+    public long getStamp() {
+        var ret = (hash ^ size) * MULTIPLIER;
+        return ret ^ (ret >>> 29);
+    }
+
+    /**
+     * Removes all recorded state ids and resets the stamp, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+        hash = SEED;
+    }
+
+    @Override
+    public String toString() {
+        return "StateTrace{" +
+                "ids=" + Arrays.toString(toArray()) +
+                ", stamp=" + getStamp() +
+                '}';
+    }
+}
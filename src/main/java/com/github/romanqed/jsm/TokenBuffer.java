@@ -0,0 +1,118 @@
+package com.github.romanqed.jsm;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A class describing a reusable buffer of lexical tokens, each consisting of the token kind,
+ * the start position (inclusive) and the end position (exclusive).
+ * <br>
+ * Tokens are stored as int triples in one growable array, which keeps its capacity after {@link #clear()},
+ * so tokenizing into a reused buffer does not allocate. Instances are not thread-safe.
+ */
+public final class TokenBuffer {
+    private static final int DEFAULT_CAPACITY = 16;
+    private int[] data;
+    private int size;
+
+    /**
+     * Constructs {@link TokenBuffer} with the specified initial capacity in tokens.
+     *
+     * @param capacity the initial capacity, must be non-negative
+     */
+    public TokenBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative");
+        }
+        this.data = new int[capacity * 3];
+    }
+
+    /**
+     * Constructs {@link TokenBuffer} with the default initial capacity.
+     */
+    public TokenBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Appends the specified token to the buffer.
+     *
+     * @param kind  the kind of the token
+     * @param start the start position of the token, inclusive
+     * @param end   the end position of the token, exclusive
+     */
+    public void add(int kind, int start, int end) {
+        var index = size * 3;
+        if (index == data.length) {
+            data = Arrays.copyOf(data, Math.max(DEFAULT_CAPACITY * 3, index << 1));
+        }
+        data[index] = kind;
+        data[index + 1] = start;
+        data[index + 2] = end;
+        ++size;
+    }
+
+    /**
+     * Returns the number of tokens in the buffer.
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the kind of the token with the specified index.
+     *
+     * @param index the index of the token
+     * @return the token kind
+     */
+    public int getKind(int index) {
+        return data[Objects.checkIndex(index, size) * 3];
+    }
+
+    /**
+     * Returns the start position of the token with the specified index.
+     *
+     * @param index the index of the token
+     * @return the start position, inclusive
+     */
+    public int getStart(int index) {
+        return data[Objects.checkIndex(index, size) * 3 + 1];
+    }
+
+    /**
+     * Returns the end position of the token with the specified index.
+     *
+     * @param index the index of the token
+     * @return the end position, exclusive
+     */
+    public int getEnd(int index) {
+        return data[Objects.checkIndex(index, size) * 3 + 2];
+    }
+
+    /**
+     * Returns the backing array of this buffer, containing (kind, start, end) triples up to {@link #size()}.
+     * The array is replaced when the buffer grows.
+     *
+     * @return the backing array
+     */
+    public int[] getData() {
+        return data;
+    }
+
+    /**
+     * Removes all tokens, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBuffer{" +
+                "size=" + size +
+                ", data=" + Arrays.toString(Arrays.copyOf(data, size * 3)) +
+                '}';
+    }
+}
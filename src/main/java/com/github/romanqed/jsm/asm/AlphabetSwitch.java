@@ -0,0 +1,294 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.model.Alphabet;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.RangeToken;
+import com.github.romanqed.jsm.model.SetToken;
+import com.github.romanqed.jsm.model.SingleToken;
+import com.github.romanqed.jsm.model.State;
+import com.github.romanqed.jsm.model.TokenVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates the bytecode of a transition function compressed by token classes.
+ * <br>
+ * Integral tokens behaving identically in all states are merged into one class. The token is mapped
+ * to its class once, by a static lookup table or a lookup switch, and then each state switches
+ * on the small class id. Compression is used only if it is estimated to shrink the generated code.
+ */
+final class AlphabetSwitch {
+    private static final int DENSE_LIMIT = 4096;
+    private static final int MIN_CASES = 64;
+    private static final int MAX_RANGE_CASES = 256;
+    private static final String CLASSES_NAME = "CLASSES";
+    private static final String CLASSES_DESCRIPTOR = "[C";
+    private final int[][] rows;
+    private final int[] points;
+    private final int[] classes;
+    private final int nullClass;
+    private final int min;
+    private final boolean dense;
+
+    private AlphabetSwitch(int[][] rows,
+                           int[] points,
+                           int[] classes,
+                           int nullClass,
+                           int min,
+                           boolean dense) {
+        this.rows = rows;
+        this.points = points;
+        this.classes = classes;
+        this.nullClass = nullClass;
+        this.min = min;
+        this.dense = dense;
+    }
+
+    private static int countCases(State<?, ?> state) {
+        var counter = new CaseCounter();
+        for (var transition : state.getTransitions().values()) {
+            transition.getToken().accept(counter);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Creates the compressed transition switch for the specified model, if compression is possible and profitable.
+     *
+     * @param model       the machine model
+     * @param translation the translation of model states to ids
+     * @return the {@link AlphabetSwitch} instance, or null if the model should be compiled without compression
+     */
+    @SuppressWarnings("unchecked")
+    static AlphabetSwitch of(MachineModel<?, ?> model, Translation translation) {
+        var type = model.getTokenType();
+        if (!RangeSwitch.INTEGRAL_TYPES.contains(type)) {
+            return null;
+        }
+        var states = model.getStates();
+        var cases = countCases(model.getInit());
+        for (var state : states.values()) {
+            cases += countCases(state);
+        }
+        if (cases < MIN_CASES) {
+            return null;
+        }
+        var alphabet = (Alphabet<Object>) Alphabet.of(model);
+        var size = alphabet.size();
+        var to = (Map<Object, Integer>) translation.to;
+        var rows = new int[translation.size][];
+        rows[0] = new int[size];
+        rows[1] = alphabet.getTransitions((State<Object, Object>) model.getInit(), to::get, 0);
+        for (var i = 2; i < rows.length; ++i) {
+            var state = (State<Object, Object>) states.get(translation.from[i]);
+            rows[i] = alphabet.getTransitions(state, to::get, 0);
+        }
+        var remap = new int[size];
+        var width = Alphabet.mergeClasses(rows, remap);
+        var compressed = new int[rows.length][width];
+        for (var i = 0; i < rows.length; ++i) {
+            for (var j = 0; j < size; ++j) {
+                compressed[i][remap[j]] = rows[i][j];
+            }
+        }
+        var sorted = alphabet.getPoints();
+        var points = new int[sorted.size()];
+        for (var i = 0; i < points.length; ++i) {
+            points[i] = sorted.get(i).hashCode();
+        }
+        var boxer = RangeSwitch.getBoxer(type);
+        // Null tokens are treated as zero, like in uncompressed functions, unless the model has its own null token
+        var point = alphabet.classOf(null);
+        var nullClass = remap[point == 0 ? alphabet.classOf(boxer.apply(0)) : point];
+        var min = points.length == 0 ? 0 : points[0];
+        var span = points.length == 0 ? 0L : (long) points[points.length - 1] - min + 1;
+        var dense = span <= DENSE_LIMIT;
+        int[] classes;
+        if (dense) {
+            classes = new int[(int) span];
+            for (var i = 0; i < classes.length; ++i) {
+                classes[i] = remap[alphabet.classOf(boxer.apply(min + i))];
+            }
+        } else {
+            // Sparse alphabets are mapped by lookup switch, so only point classes are supported
+            for (var i = 0; i <= points.length; ++i) {
+                if (alphabet.getGapClass(i) != 0) {
+                    return null;
+                }
+            }
+            classes = new int[points.length];
+            for (var i = 0; i < points.length; ++i) {
+                classes[i] = remap[i + 1];
+            }
+        }
+        var estimate = (long) rows.length * width + (dense ? span / 8 : points.length);
+        if (estimate * 2 > cases) {
+            return null;
+        }
+        return new AlphabetSwitch(compressed, points, classes, nullClass, min, dense);
+    }
+
+    /**
+     * Creates the static lookup table and its initializer, if the alphabet is dense.
+     *
+     * @param writer the class writer
+     * @param owner  the internal name of the generated class
+     */
+    void visitTable(ClassVisitor writer, String owner) {
+        if (!dense) {
+            return;
+        }
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+                CLASSES_NAME,
+                CLASSES_DESCRIPTOR,
+                null,
+                null).visitEnd();
+        // Table is packed into a string constant: CLASSES = "...".toCharArray();
+        var chars = new char[classes.length];
+        for (var i = 0; i < chars.length; ++i) {
+            chars[i] = (char) classes[i];
+        }
+        var init = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        init.visitCode();
+        init.visitLdcInsn(new String(chars));
+        init.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                Type.getInternalName(String.class),
+                "toCharArray",
+                "()" + CLASSES_DESCRIPTOR,
+                false);
+        init.visitFieldInsn(Opcodes.PUTSTATIC, owner, CLASSES_NAME, CLASSES_DESCRIPTOR);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+    }
+
+    private void visitClassify(MethodVisitor visitor, String owner, int buffer, int clazz) {
+        var done = new Label();
+        var zero = new Label();
+        if (dense) {
+            // index = buffer - min; clazz = 0 <= index < length ? CLASSES[index] : 0;
+            visitor.visitVarInsn(Opcodes.ILOAD, buffer);
+            Util.pushInt(visitor, min);
+            visitor.visitInsn(Opcodes.ISUB);
+            visitor.visitVarInsn(Opcodes.ISTORE, clazz);
+            visitor.visitVarInsn(Opcodes.ILOAD, clazz);
+            visitor.visitJumpInsn(Opcodes.IFLT, zero);
+            visitor.visitVarInsn(Opcodes.ILOAD, clazz);
+            Util.pushInt(visitor, classes.length);
+            visitor.visitJumpInsn(Opcodes.IF_ICMPGE, zero);
+            visitor.visitFieldInsn(Opcodes.GETSTATIC, owner, CLASSES_NAME, CLASSES_DESCRIPTOR);
+            visitor.visitVarInsn(Opcodes.ILOAD, clazz);
+            visitor.visitInsn(Opcodes.CALOAD);
+            visitor.visitVarInsn(Opcodes.ISTORE, clazz);
+            visitor.visitJumpInsn(Opcodes.GOTO, done);
+        } else {
+            // Points are grouped by classes
+            var labels = new LinkedHashMap<Integer, Label>();
+            var targets = new Label[points.length];
+            for (var i = 0; i < points.length; ++i) {
+                targets[i] = labels.computeIfAbsent(classes[i], k -> new Label());
+            }
+            visitor.visitVarInsn(Opcodes.ILOAD, buffer);
+            visitor.visitLookupSwitchInsn(zero, points, targets);
+            for (var entry : labels.entrySet()) {
+                visitor.visitLabel(entry.getValue());
+                Util.pushInt(visitor, entry.getKey());
+                visitor.visitVarInsn(Opcodes.ISTORE, clazz);
+                visitor.visitJumpInsn(Opcodes.GOTO, done);
+            }
+        }
+        visitor.visitLabel(zero);
+        visitor.visitInsn(Opcodes.ICONST_0);
+        visitor.visitVarInsn(Opcodes.ISTORE, clazz);
+        visitor.visitLabel(done);
+    }
+
+    private static void visitRow(MethodVisitor visitor, int[] row, int clazz) {
+        var labels = new LinkedHashMap<Integer, Label>();
+        var targets = new Label[row.length];
+        for (var i = 0; i < row.length; ++i) {
+            targets[i] = labels.computeIfAbsent(row[i], k -> new Label());
+        }
+        if (labels.size() == 1) {
+            Util.pushInt(visitor, row[0]);
+            visitor.visitInsn(Opcodes.IRETURN);
+            return;
+        }
+        visitor.visitVarInsn(Opcodes.ILOAD, clazz);
+        visitor.visitTableSwitchInsn(0, row.length - 1, targets[0], targets);
+        for (var entry : labels.entrySet()) {
+            visitor.visitLabel(entry.getValue());
+            Util.pushInt(visitor, entry.getKey());
+            visitor.visitInsn(Opcodes.IRETURN);
+        }
+    }
+
+    /**
+     * Creates the body of the transit method.
+     *
+     * @param visitor the method visitor
+     * @param owner   the internal name of the generated class
+     * @param state   the index of the local containing the state id
+     * @param buffer  the index of the local containing the int value of the token
+     * @param token   the index of the local containing the token object, or -1 for primitive tokens
+     * @param clazz   the index of the free int local used to store the token class
+     */
+    void visit(MethodVisitor visitor, String owner, int state, int buffer, int token, int clazz) {
+        if (token < 0) {
+            visitClassify(visitor, owner, buffer, clazz);
+        } else {
+            // Null tokens have the precomputed class
+            var nonNull = new Label();
+            var done = new Label();
+            visitor.visitVarInsn(Opcodes.ALOAD, token);
+            visitor.visitJumpInsn(Opcodes.IFNONNULL, nonNull);
+            Util.pushInt(visitor, nullClass);
+            visitor.visitVarInsn(Opcodes.ISTORE, clazz);
+            visitor.visitJumpInsn(Opcodes.GOTO, done);
+            visitor.visitLabel(nonNull);
+            visitClassify(visitor, owner, buffer, clazz);
+            visitor.visitLabel(done);
+        }
+        // switch (state) { case i: switch (clazz) { ... } default: return exit; }
+        var exit = new Label();
+        var labels = new Label[rows.length - 1];
+        for (var i = 0; i < labels.length; ++i) {
+            labels[i] = new Label();
+        }
+        visitor.visitVarInsn(Opcodes.ILOAD, state);
+        visitor.visitTableSwitchInsn(1, rows.length - 1, exit, labels);
+        for (var i = 0; i < labels.length; ++i) {
+            visitor.visitLabel(labels[i]);
+            visitRow(visitor, rows[i + 1], clazz);
+        }
+        visitor.visitLabel(exit);
+        visitor.visitInsn(Opcodes.ICONST_0);
+        visitor.visitInsn(Opcodes.IRETURN);
+    }
+
+    private static final class CaseCounter implements TokenVisitor {
+        private int count;
+
+        @Override
+        public <T> void visit(SingleToken<T> token) {
+            ++count;
+        }
+
+        @Override
+        public <T> void visit(RangeToken<T> token) {
+            var length = (long) token.getEnd().hashCode() - token.getStart().hashCode() + 1;
+            count += (int) Math.min(length, MAX_RANGE_CASES);
+        }
+
+        @Override
+        public <T> void visit(SetToken<T> token) {
+            count += token.getValues().size();
+        }
+    }
+}
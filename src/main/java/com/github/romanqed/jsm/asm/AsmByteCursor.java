@@ -0,0 +1,38 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.ByteMachineCursor;
+
+import java.nio.ByteBuffer;
+
+final class AsmByteCursor<S> extends AsmCursor<S, Byte> implements ByteMachineCursor<S> {
+    private final AsmByteMachine<S> machine;
+
+    AsmByteCursor(AsmByteMachine<S> machine) {
+        super(machine);
+        this.machine = machine;
+    }
+
+    @Override
+    public S step(byte token) {
+        this.state = machine.function.transit(state, token);
+        return machine.from[state];
+    }
+
+    @Override
+    public int stepId(byte token) {
+        this.state = machine.function.transit(state, token);
+        return state;
+    }
+
+    @Override
+    public S feed(byte[] bytes, int offset, int length) {
+        this.state = machine.feed(state, bytes, offset, length);
+        return machine.from[state];
+    }
+
+    @Override
+    public S feed(ByteBuffer buffer) {
+        this.state = machine.feed(state, buffer);
+        return machine.from[state];
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.ByteMachineCursor;
+import com.github.romanqed.jsm.ByteStateMachine;
+import com.github.romanqed.jsm.StateTrace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+final class AsmByteMachine<S> extends AsmMachine<S, Byte> implements ByteStateMachine<S> {
+    // Mapped regions are limited by Integer.MAX_VALUE, so large files are processed by chained windows
+    private static final long MAP_WINDOW = 1L << 30;
+    final ByteTransitionFunction function;
+
+    AsmByteMachine(ByteTransitionFunction function, S[] from, boolean[] accepting, int init, int exit) {
+        super(function, from, accepting, init, exit);
+        this.function = function;
+    }
+
+    private int run(int state, ByteBuffer buffer) {
+        var limit = buffer.limit();
+        if (buffer.hasArray()) {
+            var offset = buffer.arrayOffset();
+            return function.feed(state, buffer.array(), offset + buffer.position(), offset + limit, exit);
+        }
+        return function.feed(state, buffer, buffer.position(), limit, exit);
+    }
+
+    @Override
+    public S run(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return from[function.feed(init, bytes, offset, offset + length, exit)];
+    }
+
+    @Override
+    public S run(ByteBuffer buffer) {
+        return from[run(init, buffer)];
+    }
+
+    @Override
+    public S runParallel(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return from[ParallelScan.run(init, exit, from.length, length, (start, size) -> {
+            var base = offset + (int) start;
+            return (state, begin, end) -> function.feed(state, bytes, base + begin, base + end, exit);
+        })];
+    }
+
+    @Override
+    public S runParallel(FileChannel channel) throws IOException {
+        var position = channel.position();
+        var size = channel.size() - position;
+        try {
+            return from[ParallelScan.run(init, exit, from.length, Math.max(size, 0), (start, length) -> {
+                MappedByteBuffer buffer;
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + start, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return (state, begin, end) -> function.feed(state, buffer, begin, end, exit);
+            })];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public long stamp(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return function.stamp(init, bytes, offset, offset + length, exit);
+    }
+
+    @Override
+    public long stamp(ByteBuffer buffer) {
+        var limit = buffer.limit();
+        if (buffer.hasArray()) {
+            var offset = buffer.arrayOffset();
+            return function.stamp(init, buffer.array(), offset + buffer.position(), offset + limit, exit);
+        }
+        return function.stamp(init, buffer, buffer.position(), limit, exit);
+    }
+
+    @Override
+    public int feed(int state, byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return function.feed(state, bytes, offset, offset + length, exit);
+    }
+
+    @Override
+    public int feed(int state, ByteBuffer buffer) {
+        return run(state, buffer);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+    }
+
+    @Override
+    public S run(FileChannel channel) throws IOException {
+        var state = this.init;
+        var size = channel.size();
+        for (var position = channel.position(); position < size; position += MAP_WINDOW) {
+            state = run(state, map(channel, position, size));
+            if (state == exit) {
+                break;
+            }
+        }
+        return from[state];
+    }
+
+    @Override
+    public long stamp(FileChannel channel) throws IOException {
+        var state = this.init;
+        var hash = 1;
+        var size = channel.size();
+        for (var position = channel.position(); position < size; position += MAP_WINDOW) {
+            var buffer = map(channel, position, size);
+            var packed = function.stamp(state, buffer, 0, buffer.limit(), exit, hash);
+            state = (int) packed;
+            if (state == exit) {
+                return -1;
+            }
+            hash = (int) (packed >>> 32);
+        }
+        return hash;
+    }
+
+    @Override
+    public int trace(int state, byte[] bytes, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = function.transit(state, bytes[i]);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    @Override
+    public int trace(int state, ByteBuffer buffer, StateTrace trace) {
+        var limit = buffer.limit();
+        for (var i = buffer.position(); i < limit && state != exit; ++i) {
+            state = function.transit(state, buffer.get(i));
+            trace.add(state);
+        }
+        return state;
+    }
+
+    @Override
+    public ByteMachineCursor<S> cursor() {
+        return new AsmByteCursor<>(this);
+    }
+
+    @Override
+    public S step(byte token) {
+        this.state = function.transit(this.state, token);
+        return from[this.state];
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.CharMachineCursor;
+
+final class AsmCharCursor<S> extends AsmCursor<S, Character> implements CharMachineCursor<S> {
+    private final AsmCharMachine<S> machine;
+
+    AsmCharCursor(AsmCharMachine<S> machine) {
+        super(machine);
+        this.machine = machine;
+    }
+
+    @Override
+    public S step(char token) {
+        this.state = machine.function.transit(state, token);
+        return machine.from[state];
+    }
+
+    @Override
+    public int stepId(char token) {
+        this.state = machine.function.transit(state, token);
+        return state;
+    }
+
+    @Override
+    public S feed(char[] chars, int offset, int length) {
+        this.state = machine.feed(state, chars, offset, length);
+        return machine.from[state];
+    }
+
+    @Override
+    public S feed(CharSequence chars) {
+        this.state = machine.feed(state, chars, 0, chars.length());
+        return machine.from[state];
+    }
+}
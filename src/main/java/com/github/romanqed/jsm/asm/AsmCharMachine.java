@@ -0,0 +1,99 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.CharMachineCursor;
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.StateTrace;
+
+import java.util.Objects;
+
+final class AsmCharMachine<S> extends AsmMachine<S, Character> implements CharStateMachine<S> {
+    final CharTransitionFunction function;
+
+    AsmCharMachine(CharTransitionFunction function, S[] from, boolean[] accepting, int init, int exit) {
+        super(function, from, accepting, init, exit);
+        this.function = function;
+    }
+
+    @Override
+    public S run(CharSequence chars) {
+        return from[function.feed(init, chars, 0, chars.length(), exit)];
+    }
+
+    @Override
+    public S run(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        return from[function.feed(init, chars, offset, offset + length, exit)];
+    }
+
+    @Override
+    public S runParallel(CharSequence chars) {
+        return from[ParallelScan.run(init, exit, from.length, chars.length(), (start, length) ->
+                (state, begin, end) -> function.feed(state, chars, (int) start + begin, (int) start + end, exit)
+        )];
+    }
+
+    @Override
+    public S runParallel(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        return from[ParallelScan.run(init, exit, from.length, length, (start, size) -> {
+            var base = offset + (int) start;
+            return (state, begin, end) -> function.feed(state, chars, base + begin, base + end, exit);
+        })];
+    }
+
+    @Override
+    public long stamp(CharSequence chars) {
+        return function.stamp(init, chars, 0, chars.length(), exit);
+    }
+
+    @Override
+    public long stamp(char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        return function.stamp(init, chars, offset, offset + length, exit);
+    }
+
+    @Override
+    public int feed(int state, CharSequence chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length());
+        return function.feed(state, chars, offset, offset + length, exit);
+    }
+
+    @Override
+    public int feed(int state, char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        return function.feed(state, chars, offset, offset + length, exit);
+    }
+
+    @Override
+    public int trace(int state, CharSequence chars, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, chars.length());
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = function.transit(state, chars.charAt(i));
+            trace.add(state);
+        }
+        return state;
+    }
+
+    @Override
+    public int trace(int state, char[] chars, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = function.transit(state, chars[i]);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    @Override
+    public CharMachineCursor<S> cursor() {
+        return new AsmCharCursor<>(this);
+    }
+
+    @Override
+    public S step(char token) {
+        this.state = function.transit(this.state, token);
+        return from[this.state];
+    }
+}
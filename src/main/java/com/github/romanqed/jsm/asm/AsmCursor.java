@@ -0,0 +1,46 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.MachineCursor;
+
+class AsmCursor<S, T> implements MachineCursor<S, T> {
+    private final AsmMachine<S, T> machine;
+    int state;
+
+    AsmCursor(AsmMachine<S, T> machine) {
+        this.machine = machine;
+        this.state = machine.init;
+    }
+
+    @Override
+    public S getState() {
+        return machine.from[state];
+    }
+
+    @Override
+    public int getStateId() {
+        return state;
+    }
+
+    @Override
+    public S step(T token) {
+        this.state = machine.function.transit(state, token);
+        return machine.from[state];
+    }
+
+    @Override
+    public int stepId(T token) {
+        this.state = machine.function.transit(state, token);
+        return state;
+    }
+
+    @Override
+    public S feed(T[] tokens, int offset, int length) {
+        this.state = machine.feed(state, tokens, offset, length);
+        return machine.from[state];
+    }
+
+    @Override
+    public void reset() {
+        this.state = machine.init;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.Lexer;
+import com.github.romanqed.jsm.TokenBuffer;
+
+import java.util.Objects;
+
+final class AsmLexer implements Lexer {
+    private final CharTransitionFunction function;
+    private final int[] kinds;
+    private final int init;
+    private final int exit;
+
+    AsmLexer(CharTransitionFunction function, int[] kinds, int init, int exit) {
+        this.function = function;
+        this.kinds = kinds;
+        this.init = init;
+        this.exit = exit;
+    }
+
+    @Override
+    public int tokenize(CharSequence chars, int offset, int length, TokenBuffer tokens) {
+        Objects.checkFromIndexSize(offset, length, chars.length());
+        var end = offset + length;
+        while (offset < end) {
+            var found = function.munch(init, chars, offset, end, exit, kinds);
+            if (found < 0) {
+                break;
+            }
+            var last = (int) found;
+            tokens.add((int) (found >>> 32), offset, last);
+            offset = last;
+        }
+        return offset;
+    }
+
+    @Override
+    public int tokenize(char[] chars, int offset, int length, TokenBuffer tokens) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var end = offset + length;
+        while (offset < end) {
+            var found = function.munch(init, chars, offset, end, exit, kinds);
+            if (found < 0) {
+                break;
+            }
+            var last = (int) found;
+            tokens.add((int) (found >>> 32), offset, last);
+            offset = last;
+        }
+        return offset;
+    }
+}
@@ -1,17 +1,26 @@
 package com.github.romanqed.jsm.asm;
 
+import com.github.romanqed.jsm.MachineCursor;
 import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.StateTrace;
 
-final class AsmMachine<S, T> implements StateMachine<S, T> {
-    private final TransitionFunction<T> function;
-    private final S[] from;
-    private final int init;
-    private final int exit;
-    private int state;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 
-    AsmMachine(TransitionFunction<T> function, S[] from, int init, int exit) {
+class AsmMachine<S, T> implements StateMachine<S, T> {
+    final S[] from;
+    final boolean[] accepting;
+    final int init;
+    final int exit;
+    int state;
+    final TransitionFunction<T> function;
+    private volatile Map<S, Integer> ids;
+
+    AsmMachine(TransitionFunction<T> function, S[] from, boolean[] accepting, int init, int exit) {
         this.function = function;
         this.from = from;
+        this.accepting = accepting;
         this.init = init;
         this.exit = exit;
         this.state = init;
@@ -19,56 +28,96 @@ final class AsmMachine<S, T> implements StateMachine<S, T> {
 
     @Override
     public S run(Iterable<T> tokens) {
-        var state = this.init;
-        for (var token : tokens) {
-            state = function.transit(state, token);
-            if (state == exit) {
-                return from[exit];
-            }
-        }
-        return from[state];
+        return from[function.feed(init, tokens.iterator(), exit)];
     }
 
     @Override
     public S run(T[] tokens) {
-        var state = this.init;
-        for (var token : tokens) {
-            state = function.transit(state, token);
-            if (state == exit) {
-                return from[exit];
-            }
-        }
-        return from[state];
+        return from[function.feed(init, tokens, 0, tokens.length, exit)];
+    }
+
+    @Override
+    public S runParallel(T[] tokens) {
+        return from[ParallelScan.run(init, exit, from.length, tokens.length, (start, length) ->
+                (state, begin, end) -> function.feed(state, tokens, (int) start + begin, (int) start + end, exit)
+        )];
     }
 
     @Override
-    @SuppressWarnings("Duplicates")
     public long stamp(Iterable<T> tokens) {
-        var state = this.init;
-        var ret = 1;
-        for (var token : tokens) {
-            state = function.transit(state, token);
-            if (state == exit) {
-                return -1;
-            }
-            ret = 31 * ret + state;
-        }
-        return ret;
+        return function.stamp(init, tokens.iterator(), exit);
     }
 
     @Override
-    @SuppressWarnings("Duplicates")
     public long stamp(T[] tokens) {
-        var state = this.init;
-        var ret = 1;
-        for (var token : tokens) {
-            state = function.transit(state, token);
-            if (state == exit) {
-                return -1;
+        return function.stamp(init, tokens, 0, tokens.length, exit);
+    }
+
+    @Override
+    public int runToId(Iterable<T> tokens) {
+        return function.feed(init, tokens.iterator(), exit);
+    }
+
+    @Override
+    public int getStateCount() {
+        return from.length;
+    }
+
+    @Override
+    public int getInitId() {
+        return init;
+    }
+
+    @Override
+    public int getExitId() {
+        return exit;
+    }
+
+    @Override
+    public S stateOf(int id) {
+        return from[id];
+    }
+
+    @Override
+    public int idOf(S state) {
+        var map = ids;
+        if (map == null) {
+            // Machine is immutable, so concurrent initializations produce equal maps
+            map = new HashMap<>();
+            for (var i = from.length - 1; i >= 0; --i) {
+                map.put(from[i], i);
             }
-            ret = 31 * ret + state;
+            ids = map;
+        }
+        var ret = map.get(state);
+        return ret == null ? -1 : ret;
+    }
+
+    @Override
+    public boolean isAccepting(int id) {
+        return accepting[id];
+    }
+
+    @Override
+    public int feed(int state, T[] tokens, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        return function.feed(state, tokens, offset, offset + length, exit);
+    }
+
+    @Override
+    public MachineCursor<S, T> cursor() {
+        return new AsmCursor<>(this);
+    }
+
+    @Override
+    public int trace(int state, T[] tokens, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        var end = offset + length;
+        for (var i = offset; i < end && state != exit; ++i) {
+            state = function.transit(state, tokens[i]);
+            trace.add(state);
         }
-        return ret;
+        return state;
     }
 
     @Override
@@ -1,25 +1,23 @@
 package com.github.romanqed.jsm.asm;
 
-import com.github.romanqed.asm.sorter.LocalVariablesWriter;
 import com.github.romanqed.jeflect.loader.DefineClassLoader;
 import com.github.romanqed.jeflect.loader.DefineLoader;
 import com.github.romanqed.jeflect.loader.DefineObjectFactory;
 import com.github.romanqed.jeflect.loader.ObjectFactory;
 import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jsm.ByteStateMachine;
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.Lexer;
 import com.github.romanqed.jsm.StateMachine;
 import com.github.romanqed.jsm.StateMachineFactory;
 import com.github.romanqed.jsm.model.MachineModel;
-import com.github.romanqed.jsm.model.SingleToken;
-import com.github.romanqed.jsm.model.State;
-import com.github.romanqed.switchgen.SwitchMaps;
-import org.objectweb.asm.*;
-
-import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.ModelTransformer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Implementation of a finite state machine factory using jit compilation of the transition function.
@@ -27,23 +25,115 @@ import java.util.function.Consumer;
 public final class AsmMachineFactory implements StateMachineFactory {
     private static final int DEFAULT_MAX_DELTA = 10;
     private static final String FUNCTION_NAME = "T";
-    private static final Class<?> INTERFACE = TransitionFunction.class;
-    private static final Method TRANSIT = Exceptions.silent(
-            () -> INTERFACE.getDeclaredMethod("transit", int.class, Object.class)
-    );
-    private static final Method HASH_CODE = Exceptions.silent(
-            () -> Object.class.getDeclaredMethod("hashCode")
-    );
-    private static final int STATE_INDEX = 1;
-    private static final int TOKEN_INDEX = 2;
     private final ObjectFactory<TransitionFunction<?>> factory;
-    private final Map<String, Object[]> translations;
-    private final int maxDelta;
+    private final FunctionGenerator generator;
+    private final ModelTransformer transformer;
+    private final BytecodeCache cache;
+    private final FunctionCache functions;
 
-    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory, int maxDelta) {
+    /**
+     * Constructs {@link AsmMachineFactory} applying the specified transformer to models before code generation,
+     * for example, {@code MachineModels::minimize}.
+     * <br>
+     * Each generated class contains its own loops feeding tokens to its transit method. Indexed loops
+     * (over arrays, char sequences and byte buffers) are unrolled by the specified factor.
+     *
+     * @param factory     the factory used to define generated classes
+     * @param maxDelta    the maximum delta for table switches
+     * @param transformer the model transformer, may be null
+     * @param unroll      the unroll factor of generated loops, 1 means no unrolling
+     * @param cache       the cache of generated bytecode, may be null
+     * @param functions   the cache of compiled functions, may be null
+     */
+    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory,
+                             int maxDelta,
+                             ModelTransformer transformer,
+                             int unroll,
+                             BytecodeCache cache,
+                             FunctionCache functions) {
         this.factory = Objects.requireNonNull(factory);
-        this.translations = new ConcurrentHashMap<>();
-        this.maxDelta = maxDelta;
+        this.generator = new FunctionGenerator(maxDelta, unroll);
+        this.transformer = transformer;
+        this.cache = cache;
+        this.functions = functions;
+    }
+
+    /**
+     * Constructs {@link AsmMachineFactory} applying the specified transformer to models before code generation,
+     * for example, {@code MachineModels::minimize}.
+     * <br>
+     * Each generated class contains its own loops feeding tokens to its transit method. Indexed loops
+     * (over arrays, char sequences and byte buffers) are unrolled by the specified factor.
+     *
+     * @param factory     the factory used to define generated classes
+     * @param maxDelta    the maximum delta for table switches
+     * @param transformer the model transformer, may be null
+     * @param unroll      the unroll factor of generated loops, 1 means no unrolling
+     * @param cache       the cache of generated bytecode, may be null
+     */
+    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory,
+                             int maxDelta,
+                             ModelTransformer transformer,
+                             int unroll,
+                             BytecodeCache cache) {
+        this(factory, maxDelta, transformer, unroll, cache, null);
+    }
+
+    /**
+     * Constructs {@link AsmMachineFactory} applying the specified transformer to models before code generation,
+     * for example, {@code MachineModels::minimize}.
+     * <br>
+     * Each generated class contains its own loops feeding tokens to its transit method. Indexed loops
+     * (over arrays, char sequences and byte buffers) are unrolled by the specified factor.
+     *
+     * @param factory     the factory used to define generated classes
+     * @param maxDelta    the maximum delta for table switches
+     * @param transformer the model transformer, may be null
+     * @param unroll      the unroll factor of generated loops, 1 means no unrolling
+     */
+    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory,
+                             int maxDelta,
+                             ModelTransformer transformer,
+                             int unroll) {
+        this(factory, maxDelta, transformer, unroll, null);
+    }
+
+    /**
+     * Constructs {@link AsmMachineFactory} applying the specified transformer to models before code generation,
+     * for example, {@code MachineModels::minimize}.
+     *
+     * @param factory     the factory used to define generated classes
+     * @param maxDelta    the maximum delta for table switches
+     * @param transformer the model transformer, may be null
+     */
+    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory, int maxDelta, ModelTransformer transformer) {
+        this(factory, maxDelta, transformer, 1);
+    }
+
+    /**
+     * Constructs {@link AsmMachineFactory} pruning unreachable and dead states of models before code generation.
+     *
+     * @param factory  the factory used to define generated classes
+     * @param maxDelta the maximum delta for table switches
+     */
+    public AsmMachineFactory(ObjectFactory<TransitionFunction<?>> factory, int maxDelta) {
+        this(factory, maxDelta, MachineModels::prune);
+    }
+
+    /**
+     * Constructs {@link AsmMachineFactory} defining each generated class in its own class loader and keeping
+     * compiled functions in the specified bounded cache. Classes evicted from the cache are unloaded as soon as
+     * the machines using them become unreachable.
+     *
+     * @param functions the cache of compiled functions, must be non-null
+     * @param maxDelta  the maximum delta for table switches
+     */
+    public AsmMachineFactory(FunctionCache functions, int maxDelta) {
+        this(new IsolatedObjectFactory<>(), maxDelta, MachineModels::prune, 1, null, Objects.requireNonNull(functions));
+    }
+
+    public AsmMachineFactory(int maxDelta, ModelTransformer transformer) {
+        this(new DefineObjectFactory<>(new DefineClassLoader()), maxDelta, transformer);
     }
 
     public AsmMachineFactory(DefineLoader loader, int maxDelta) {
@@ -58,140 +148,115 @@ public final class AsmMachineFactory implements StateMachineFactory {
         this(DEFAULT_MAX_DELTA);
     }
 
-    private void processState(State<?, ?> state,
-                              MethodVisitor visitor,
-                              Consumer<MethodVisitor> loader,
-                              int buffer,
-                              int exit,
-                              Map<?, Integer> translation) {
-        var transitions = state.getTransitions().values();
-        // Handle empty transitions
-        if (transitions.isEmpty()) {
-            Util.processExit(state, visitor, exit, translation);
-            return;
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> StateMachine<S, T> create(MachineModel<S, T> source) {
+        var model = transformer == null ? source : transformer.transform(source);
+        Util.checkType(model.getTokenType());
+        var digest = model.getDigest().toHex();
+        var unroll = generator.unroll;
+        var name = FUNCTION_NAME + digest + (unroll == 1 ? "" : "U" + unroll);
+        if (functions == null) {
+            var from = FunctionMachines.getStates(model);
+            var function = (TransitionFunction<T>) compile(name, digest, model, from);
+            var accepting = FunctionMachines.getAccepting(model, from);
+            return FunctionMachines.create(function, from, accepting, 1, 0);
         }
-        visitor.visitVarInsn(Opcodes.ILOAD, buffer);
-        // Handle 1 transition (if it is single token)
-        if (transitions.size() == 1) {
-            var transition = transitions.iterator().next();
-            var token = transition.getToken();
-            if (token instanceof SingleToken) {
-                var single = (SingleToken<?>) token;
-                var out = new Label();
-                Util.pushInt(visitor, single.getValue().hashCode());
-                visitor.visitJumpInsn(Opcodes.IF_ICMPNE, out);
-                Util.pushInt(visitor, translation.get(transition.getTarget()));
-                visitor.visitInsn(Opcodes.IRETURN);
-                visitor.visitLabel(out);
-                Util.processExit(state, visitor, exit, translation);
-                return;
+        var entry = functions.get(name);
+        if (entry == null) {
+            var from = FunctionMachines.getStates(model);
+            var function = compile(name, digest, model, from);
+            var accepting = FunctionMachines.getAccepting(model, from);
+            entry = functions.put(name, new FunctionCache.Entry(function, from, accepting));
+        }
+        var function = (TransitionFunction<T>) entry.function;
+        return FunctionMachines.create(function, (S[]) entry.from, entry.accepting, 1, 0);
+    }
+
+    private TransitionFunction<?> compile(String name, String digest, MachineModel<?, ?> model, Object[] from) {
+        return factory.create(name, () -> {
+            var translation = Translation.of(from);
+            if (cache == null) {
+                return generator.generate(name, model, translation);
             }
+            var key = getCacheKey(digest);
+            var ret = cache.load(key);
+            if (ret == null) {
+                ret = generator.generate(name, model, translation);
+                cache.store(key, ret);
+            }
+            return ret;
+        });
+    }
+
+    private String getCacheKey(String digest) {
+        var version = AsmMachineFactory.class.getPackage().getImplementationVersion();
+        var hash = Exceptions.silent(() -> MessageDigest.getInstance("SHA-256"));
+        // Model digest covers token and state types, so only the generator format and options are added
+        var key = (version == null ? "dev" : version) + '\n' +
+                FunctionGenerator.FORMAT + '\n' +
+                generator.maxDelta + '\n' +
+                generator.unroll + '\n' +
+                digest;
+        var bytes = hash.digest(key.getBytes(StandardCharsets.UTF_8));
+        var builder = new StringBuilder(bytes.length * 2);
+        for (var b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
-        // Handle other cases
-        var map = new HashMap<Object, Integer>();
-        for (var transition : state.getTransitions().values()) {
-            var target = translation.get(transition.getTarget());
-            var handler = new MapVisitor(map, target);
-            transition.getToken().accept(handler);
+        return builder.toString();
+    }
+
+    /**
+     * Creates a finite state machine specialized for char tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Character} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> CharStateMachine<S> createCharMachine(MachineModel<S, Character> model) {
+        if (model.getTokenType() != Character.class) {
+            throw new IllegalArgumentException("Char machine can be created only for char tokens");
         }
-        var switchMap = SwitchMaps.create(map.keySet(), maxDelta);
-        switchMap.visit(
-                visitor,
-                loader,
-                v -> Util.processExit(state, v, exit, translation),
-                (v, value) -> {
-                    Util.pushInt(v, map.get(value));
-                    v.visitInsn(Opcodes.IRETURN);
-                }
-        );
-    }
-
-    private byte[] generateTransitionFunction(String name, MachineModel<?, ?> model, Translation translation) {
-        // Init class writer
-        var writer = new LocalVariablesWriter(ClassWriter.COMPUTE_FRAMES);
-        // Declare class header
-        writer.visit(Opcodes.V11,
-                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
-                name,
-                null,
-                Type.getInternalName(Object.class),
-                new String[]{Type.getInternalName(INTERFACE)});
-        // Define empty constructor
-        Util.createEmptyConstructor(writer);
-        // Define transit method
-        var visitor = writer.visitMethodWithLocals(
-                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
-                TRANSIT.getName(),
-                Type.getMethodDescriptor(TRANSIT),
-                null,
-                null);
-        visitor.visitCode();
-        // {
-        // Define buffer: int buffer;
-        var buffer = visitor.newLocal(Type.INT_TYPE);
-        // Calculate hash code: buffer = arg@2 == null ? 0 : arg@2.hashCode();
-        var invoke = new Label();
-        var store = new Label();
-        visitor.visitVarInsn(Opcodes.ALOAD, TOKEN_INDEX);
-        visitor.visitInsn(Opcodes.ACONST_NULL);
-        visitor.visitJumpInsn(Opcodes.IF_ACMPNE, invoke);
-        // If arg@2 == null
-        visitor.visitInsn(Opcodes.ICONST_0);
-        visitor.visitJumpInsn(Opcodes.GOTO, store);
-        // If arg@2 != null
-        visitor.visitLabel(invoke);
-        visitor.visitVarInsn(Opcodes.ALOAD, TOKEN_INDEX);
-        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
-                Type.getInternalName(HASH_CODE.getDeclaringClass()),
-                HASH_CODE.getName(),
-                Type.getMethodDescriptor(HASH_CODE),
-                false);
-        // Store hash to buffer
-        visitor.visitLabel(store);
-        visitor.visitVarInsn(Opcodes.ISTORE, buffer);
-        // Load state from parameter
-        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
-        // Build table-switch map
-        var map = SwitchMaps.createTable(1, translation.size - 1);
-        // Prepare data
-        var to = translation.to;
-        var exit = to.get(model.getExit().getValue());
-        var states = model.getStates();
-        var init = model.getInit();
-        var loader = Util.getLoader(model.getTokenType(), TOKEN_INDEX);
-        map.visit(
-                visitor,
-                null,
-                v -> {
-                    Util.pushInt(v, exit);
-                    visitor.visitInsn(Opcodes.IRETURN);
-                },
-                (v, state) -> {
-                    var resolved = state == 1 ? init : states.get(translation.from[state]);
-                    processState(resolved, v, loader, buffer, exit, to);
-                }
-        );
-        visitor.visitMaxs(0, 0);
-        visitor.visitEnd();
-        writer.visitEnd();
-        return writer.toByteArray();
+        return (CharStateMachine<S>) create(model);
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public <S, T> StateMachine<S, T> create(MachineModel<S, T> model) {
-        Util.checkType(model.getTokenType());
-        var spec = model.format();
-        var name = FUNCTION_NAME + spec.hashCode();
-        var function = (TransitionFunction<T>) factory.create(name, () -> {
-            var translation = Translation.of(model);
-            translations.computeIfAbsent(spec, k -> translation.from);
-            return generateTransitionFunction(name, model, translation);
-        });
-        var table = (S[]) translations.get(spec);
-        if (table == null) {
-            throw new IllegalStateException("Translation for spec " + spec + " not found");
+    /**
+     * Creates a finite state machine specialized for byte tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Byte} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> ByteStateMachine<S> createByteMachine(MachineModel<S, Byte> model) {
+        if (model.getTokenType() != Byte.class) {
+            throw new IllegalArgumentException("Byte machine can be created only for byte tokens");
+        }
+        return (ByteStateMachine<S>) create(model);
+    }
+
+    /**
+     * Creates a maximal-munch lexer based on the specified model, in which the kind of each state
+     * is provided by the specified function. States with negative kinds do not end tokens.
+     * <br>
+     * The lexer uses the same generated class as the char machine of the model, so the configured transformer
+     * must not merge states of different kinds. Pruning, used by default, satisfies this.
+     *
+     * @param model specified machine model with {@link Character} tokens, must be non-null
+     * @param kinds the function returning the token kind of a state, must be non-null
+     * @param <S>   state type
+     * @return created lexer
+     */
+    public <S> Lexer createLexer(MachineModel<S, Character> model, ToIntFunction<? super S> kinds) {
+        Objects.requireNonNull(kinds);
+        var machine = (AsmCharMachine<S>) createCharMachine(model);
+        var from = machine.from;
+        var table = new int[from.length];
+        table[machine.exit] = -1;
+        for (var i = 0; i < from.length; ++i) {
+            if (i != machine.exit) {
+                table[i] = kinds.applyAsInt(from[i]);
+            }
         }
-        return new AsmMachine<>(function, table, 1, 0);
+        return new AsmLexer(machine.function, table, machine.init, machine.exit);
     }
 }
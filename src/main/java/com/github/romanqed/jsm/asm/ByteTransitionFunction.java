@@ -0,0 +1,133 @@
+package com.github.romanqed.jsm.asm;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An interface describing a transition function specialized for byte tokens.
+ * Allows to process primitive bytes without boxing.
+ */
+public interface ByteTransitionFunction extends TransitionFunction<Byte> {
+
+    /**
+     * Performs a transition from the specified state by the specified byte.
+     *
+     * @param state the source state id
+     * @param token the analyzed byte
+     * @return the target state id
+     */
+    int transit(int state, byte token);
+
+    /**
+     * Performs transitions by the bytes of the specified array from offset (inclusive) to end (exclusive).
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param bytes  the array of bytes
+     * @param offset the index of the first byte
+     * @param end    the index after the last byte
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, byte[] bytes, int offset, int end, int exit) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, bytes[i]);
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Performs transitions by the bytes of the specified buffer from offset (inclusive) to end (exclusive),
+     * using absolute get operations. Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param buffer the buffer of bytes
+     * @param offset the index of the first byte
+     * @param end    the index after the last byte
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, ByteBuffer buffer, int offset, int end, int exit) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, buffer.get(i));
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the bytes of the specified array
+     * from offset (inclusive) to end (exclusive).
+     *
+     * @param state  the source state id
+     * @param bytes  the array of bytes
+     * @param offset the index of the first byte
+     * @param end    the index after the last byte
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    @SuppressWarnings("Duplicates")
+    default long stamp(int state, byte[] bytes, int offset, int end, int exit) {
+        var ret = 1;
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, bytes[i]);
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the bytes of the specified buffer
+     * from offset (inclusive) to end (exclusive), using absolute get operations.
+     *
+     * @param state  the source state id
+     * @param buffer the buffer of bytes
+     * @param offset the index of the first byte
+     * @param end    the index after the last byte
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    @SuppressWarnings("Duplicates")
+    default long stamp(int state, ByteBuffer buffer, int offset, int end, int exit) {
+        var ret = 1;
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, buffer.get(i));
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
+
+    /**
+     * Continues the stamp of a path by the bytes of the specified buffer from offset (inclusive)
+     * to end (exclusive), using absolute get operations. Allows to stamp a path split into several buffers.
+     *
+     * @param state  the source state id
+     * @param buffer the buffer of bytes
+     * @param offset the index of the first byte
+     * @param end    the index after the last byte
+     * @param exit   the id of the exit state
+     * @param hash   the stamp of the path passed before, 1 for an empty path
+     * @return the stamp in the high 32 bits and the last state id in the low 32 bits,
+     * the last state id is the exit state id if it has been reached
+     */
+    default long stamp(int state, ByteBuffer buffer, int offset, int end, int exit, int hash) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, buffer.get(i));
+            if (state == exit) {
+                break;
+            }
+            hash = 31 * hash + state;
+        }
+        return ((long) hash << 32) | (state & 0xFFFFFFFFL);
+    }
+}
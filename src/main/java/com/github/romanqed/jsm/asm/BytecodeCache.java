@@ -0,0 +1,27 @@
+package com.github.romanqed.jsm.asm;
+
+/**
+ * An interface describing a cache of generated class bytecode, used to skip code generation
+ * for models that have already been compiled, for example, in previous runs.
+ * <br>
+ * Implementations must be thread-safe. Cache failures must not break compilation,
+ * so implementations should report unavailable or damaged entries as missing.
+ */
+public interface BytecodeCache {
+
+    /**
+     * Loads the bytecode stored by the specified key.
+     *
+     * @param key the key, consisting of letters and digits
+     * @return the stored bytecode, or null if there is no valid entry for the key
+     */
+    byte[] load(String key);
+
+    /**
+     * Stores the bytecode by the specified key.
+     *
+     * @param key      the key, consisting of letters and digits
+     * @param bytecode the bytecode to be stored
+     */
+    void store(String key, byte[] bytecode);
+}
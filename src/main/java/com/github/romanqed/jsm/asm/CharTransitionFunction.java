@@ -0,0 +1,167 @@
+package com.github.romanqed.jsm.asm;
+
+/**
+ * An interface describing a transition function specialized for char tokens.
+ * Allows to process primitive chars without boxing.
+ */
+public interface CharTransitionFunction extends TransitionFunction<Character> {
+
+    /**
+     * Performs a transition from the specified state by the specified char.
+     *
+     * @param state the source state id
+     * @param token the analyzed char
+     * @return the target state id
+     */
+    int transit(int state, char token);
+
+    /**
+     * Performs transitions by the chars of the specified array from offset (inclusive) to end (exclusive).
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param chars  the array of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, char[] chars, int offset, int end, int exit) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, chars[i]);
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Performs transitions by the chars of the specified sequence from offset (inclusive) to end (exclusive).
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param chars  the sequence of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, CharSequence chars, int offset, int end, int exit) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, chars.charAt(i));
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the chars of the specified array
+     * from offset (inclusive) to end (exclusive).
+     *
+     * @param state  the source state id
+     * @param chars  the array of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    @SuppressWarnings("Duplicates")
+    default long stamp(int state, char[] chars, int offset, int end, int exit) {
+        var ret = 1;
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, chars[i]);
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the chars of the specified sequence
+     * from offset (inclusive) to end (exclusive).
+     *
+     * @param state  the source state id
+     * @param chars  the sequence of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    @SuppressWarnings("Duplicates")
+    default long stamp(int state, CharSequence chars, int offset, int end, int exit) {
+        var ret = 1;
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, chars.charAt(i));
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
+
+    /**
+     * Finds the longest prefix of the array region from offset (inclusive) to end (exclusive), on which
+     * the function, started from the specified state, ends in a state with a non-negative kind.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param chars  the array of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @param kinds  the kinds of states indexed by state ids, negative for states that do not end a prefix
+     * @return the kind in the high 32 bits and the end of the prefix in the low 32 bits, or -1 if there is no prefix
+     */
+    default long munch(int state, char[] chars, int offset, int end, int exit, int[] kinds) {
+        var kind = -1;
+        var last = -1;
+        for (var i = offset; i < end; ) {
+            state = transit(state, chars[i++]);
+            if (state == exit) {
+                break;
+            }
+            var current = kinds[state];
+            if (current >= 0) {
+                kind = current;
+                last = i;
+            }
+        }
+        return ((long) kind << 32) | (last & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Finds the longest prefix of the sequence region from offset (inclusive) to end (exclusive), on which
+     * the function, started from the specified state, ends in a state with a non-negative kind.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param chars  the sequence of chars
+     * @param offset the index of the first char
+     * @param end    the index after the last char
+     * @param exit   the id of the exit state
+     * @param kinds  the kinds of states indexed by state ids, negative for states that do not end a prefix
+     * @return the kind in the high 32 bits and the end of the prefix in the low 32 bits, or -1 if there is no prefix
+     */
+    default long munch(int state, CharSequence chars, int offset, int end, int exit, int[] kinds) {
+        var kind = -1;
+        var last = -1;
+        for (var i = offset; i < end; ) {
+            state = transit(state, chars.charAt(i++));
+            if (state == exit) {
+                break;
+            }
+            var current = kinds[state];
+            if (current >= 0) {
+                kind = current;
+                last = i;
+            }
+        }
+        return ((long) kind << 32) | (last & 0xFFFFFFFFL);
+    }
+}
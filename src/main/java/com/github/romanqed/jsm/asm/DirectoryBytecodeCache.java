@@ -0,0 +1,149 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jfunc.Exceptions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Implementation of a bytecode cache storing each entry in a separate file of the specified directory.
+ * <br>
+ * Entries are written to a temporary file and then atomically moved to their place, so concurrent readers
+ * never observe partially written entries. Each entry contains a header and a SHA-256 checksum of the bytecode,
+ * damaged entries are deleted and reported as missing.
+ */
+public final class DirectoryBytecodeCache implements BytecodeCache {
+    private static final int MAGIC = 0x4A534D43;
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".jsmc";
+    private static final String DIGEST = "SHA-256";
+    private static final int CHECKSUM_LENGTH = 32;
+    private static final int HEADER_LENGTH = 12 + CHECKSUM_LENGTH;
+    private final Path directory;
+
+    /**
+     * Constructs {@link DirectoryBytecodeCache} for the specified directory.
+     * The directory is created if it does not exist.
+     *
+     * @param directory the cache directory
+     */
+    public DirectoryBytecodeCache(Path directory) {
+        this.directory = Objects.requireNonNull(directory);
+        Exceptions.silent(() -> Files.createDirectories(directory));
+    }
+
+    private static byte[] checksum(byte[] bytes, int offset, int length) {
+        var digest = Exceptions.silent(() -> MessageDigest.getInstance(DIGEST));
+        digest.update(bytes, offset, length);
+        return digest.digest();
+    }
+
+    private static void checkKey(String key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Cache key must be non-empty");
+        }
+        for (var i = 0; i < key.length(); ++i) {
+            if (!Character.isLetterOrDigit(key.charAt(i))) {
+                throw new IllegalArgumentException("Cache key must consist of letters and digits: " + key);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache directory.
+     *
+     * @return the cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path resolve(String key) {
+        checkKey(key);
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static byte[] decode(byte[] entry) {
+        if (entry.length < HEADER_LENGTH) {
+            return null;
+        }
+        var buffer = ByteBuffer.wrap(entry);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        var length = buffer.getInt();
+        if (length != entry.length - HEADER_LENGTH) {
+            return null;
+        }
+        var expected = new byte[CHECKSUM_LENGTH];
+        buffer.get(expected);
+        if (!Arrays.equals(expected, checksum(entry, HEADER_LENGTH, length))) {
+            return null;
+        }
+        return Arrays.copyOfRange(entry, HEADER_LENGTH, entry.length);
+    }
+
+    private static byte[] encode(byte[] bytecode) throws IOException {
+        var stream = new ByteArrayOutputStream(HEADER_LENGTH + bytecode.length);
+        var output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(bytecode.length);
+        output.write(checksum(bytecode, 0, bytecode.length));
+        output.write(bytecode);
+        output.flush();
+        return stream.toByteArray();
+    }
+
+    @Override
+    public byte[] load(String key) {
+        var path = resolve(key);
+        byte[] entry;
+        try {
+            entry = Files.readAllBytes(path);
+        } catch (IOException e) {
+            return null;
+        }
+        var ret = decode(entry);
+        if (ret == null) {
+            // Damaged entry will be overwritten by the next store
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void store(String key, byte[] bytecode) {
+        var path = resolve(key);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, encode(bytecode));
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Cache is optional, so failed stores are ignored
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
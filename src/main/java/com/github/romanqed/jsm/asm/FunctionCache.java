@@ -0,0 +1,132 @@
+package com.github.romanqed.jsm.asm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class describing the bounded cache of compiled transition functions, evicting the least recently used ones.
+ * <br>
+ * Used together with {@link IsolatedObjectFactory}, it limits the number of generated classes reachable
+ * from the factory: evicted classes are unloaded as soon as the machines using them become unreachable.
+ * Functions are keyed by the digests of compiled models, so the cache can be shared between factories.
+ */
+public final class FunctionCache {
+    private final int maximumSize;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructs {@link FunctionCache} with the specified maximum number of functions.
+     *
+     * @param maximumSize the maximum number of cached functions, must be positive
+     */
+    public FunctionCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum cache size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FunctionCache.Entry> eldest) {
+                if (size() <= FunctionCache.this.maximumSize) {
+                    return false;
+                }
+                ++evictions;
+                return true;
+            }
+        };
+    }
+
+    synchronized Entry get(String key) {
+        var ret = entries.get(key);
+        if (ret == null) {
+            ++misses;
+        } else {
+            ++hits;
+        }
+        return ret;
+    }
+
+    synchronized Entry put(String key, Entry entry) {
+        // Concurrently compiled function may be already cached, so the first one wins
+        var ret = entries.putIfAbsent(key, entry);
+        return ret == null ? entry : ret;
+    }
+
+    /**
+     * Returns the maximum number of cached functions.
+     *
+     * @return the maximum number of cached functions
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the current number of cached functions.
+     *
+     * @return the current number of cached functions
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a compiled function.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that required compilation.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of functions evicted due to the size limit.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes all cached functions. Statistics are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FunctionCache{" +
+                "size=" + entries.size() +
+                ", maximumSize=" + maximumSize +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+
+    static final class Entry {
+        final TransitionFunction<?> function;
+        final Object[] from;
+        final boolean[] accepting;
+
+        Entry(TransitionFunction<?> function, Object[] from, boolean[] accepting) {
+            this.function = function;
+            this.from = from;
+            this.accepting = accepting;
+        }
+    }
+}
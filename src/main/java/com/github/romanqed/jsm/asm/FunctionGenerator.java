@@ -0,0 +1,293 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.asm.sorter.LocalVariablesWriter;
+import com.github.romanqed.jfunc.Exceptions;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.SingleToken;
+import com.github.romanqed.jsm.model.State;
+import com.github.romanqed.switchgen.SwitchMaps;
+import org.objectweb.asm.*;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Generates the bytecode of transition functions. Used both by {@link AsmMachineFactory},
+ * which defines generated classes at runtime, and by {@link MachineCompiler}, which writes them to class files.
+ */
+final class FunctionGenerator {
+    /**
+     * The version of the generated code format, part of bytecode cache keys.
+     * Must be incremented whenever the generated code changes.
+     */
+    static final int FORMAT = 2;
+    private static final Class<?> INTERFACE = TransitionFunction.class;
+    private static final Method TRANSIT = Exceptions.silent(
+            () -> INTERFACE.getDeclaredMethod("transit", int.class, Object.class)
+    );
+    private static final Class<?> CHAR_INTERFACE = CharTransitionFunction.class;
+    private static final Method CHAR_TRANSIT = Exceptions.silent(
+            () -> CHAR_INTERFACE.getDeclaredMethod("transit", int.class, char.class)
+    );
+    private static final Class<?> BYTE_INTERFACE = ByteTransitionFunction.class;
+    private static final Method BYTE_TRANSIT = Exceptions.silent(
+            () -> BYTE_INTERFACE.getDeclaredMethod("transit", int.class, byte.class)
+    );
+    private static final Method HASH_CODE = Exceptions.silent(
+            () -> Object.class.getDeclaredMethod("hashCode")
+    );
+    private static final int STATE_INDEX = 1;
+    private static final int TOKEN_INDEX = 2;
+    final int maxDelta;
+    final int unroll;
+
+    FunctionGenerator(int maxDelta, int unroll) {
+        if (unroll < 1) {
+            throw new IllegalArgumentException("Unroll factor must be positive");
+        }
+        this.maxDelta = maxDelta;
+        this.unroll = unroll;
+    }
+
+    private void processState(State<?, ?> state,
+                              MethodVisitor visitor,
+                              Class<?> type,
+                              Consumer<MethodVisitor> loader,
+                              int buffer,
+                              int exit,
+                              Map<?, Integer> translation) {
+        var transitions = state.getTransitions().values();
+        // Handle empty transitions
+        if (transitions.isEmpty()) {
+            Util.processExit(state, visitor, exit, translation);
+            return;
+        }
+        // Handle 1 transition (if it is single token)
+        if (transitions.size() == 1) {
+            var transition = transitions.iterator().next();
+            var token = transition.getToken();
+            if (token instanceof SingleToken) {
+                var single = (SingleToken<?>) token;
+                var out = new Label();
+                visitor.visitVarInsn(Opcodes.ILOAD, buffer);
+                Util.pushInt(visitor, single.getValue().hashCode());
+                visitor.visitJumpInsn(Opcodes.IF_ICMPNE, out);
+                Util.pushInt(visitor, translation.get(transition.getTarget()));
+                visitor.visitInsn(Opcodes.IRETURN);
+                visitor.visitLabel(out);
+                Util.processExit(state, visitor, exit, translation);
+                return;
+            }
+        }
+        // Handle other cases
+        var map = new HashMap<Object, Integer>();
+        var ranges = new RangeSwitch(type);
+        for (var transition : state.getTransitions().values()) {
+            var target = translation.get(transition.getTarget());
+            var handler = new MapVisitor(map, ranges, target);
+            transition.getToken().accept(handler);
+        }
+        Consumer<MethodVisitor> fallback = v -> Util.processExit(state, v, exit, translation);
+        // Ranges are checked only if token does not match any single value
+        if (!ranges.isEmpty() && !ranges.expand(map)) {
+            var defaultHandler = fallback;
+            fallback = v -> ranges.visit(v, buffer, TOKEN_INDEX, defaultHandler);
+        }
+        if (map.isEmpty()) {
+            fallback.accept(visitor);
+            return;
+        }
+        visitor.visitVarInsn(Opcodes.ILOAD, buffer);
+        var switchMap = SwitchMaps.create(map.keySet(), maxDelta);
+        switchMap.visit(
+                visitor,
+                loader,
+                fallback,
+                (v, value) -> {
+                    Util.pushInt(v, map.get(value));
+                    v.visitInsn(Opcodes.IRETURN);
+                }
+        );
+    }
+
+    private void visitTransitions(MethodVisitor visitor,
+                                  MachineModel<?, ?> model,
+                                  Translation translation,
+                                  int buffer) {
+        // Load state from parameter
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        // Build table-switch map
+        var map = SwitchMaps.createTable(1, translation.size - 1);
+        // Prepare data
+        var to = translation.to;
+        var exit = to.get(model.getExit().getValue());
+        var states = model.getStates();
+        var init = model.getInit();
+        var type = model.getTokenType();
+        var loader = Util.getLoader(type, TOKEN_INDEX);
+        map.visit(
+                visitor,
+                null,
+                v -> {
+                    Util.pushInt(v, exit);
+                    visitor.visitInsn(Opcodes.IRETURN);
+                },
+                (v, state) -> {
+                    var resolved = state == 1 ? init : states.get(translation.from[state]);
+                    processState(resolved, v, type, loader, buffer, exit, to);
+                }
+        );
+    }
+
+    private void generateObjectTransit(LocalVariablesWriter writer,
+                                       String name,
+                                       MachineModel<?, ?> model,
+                                       Translation translation,
+                                       AlphabetSwitch alphabet) {
+        var visitor = writer.visitMethodWithLocals(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                TRANSIT.getName(),
+                Type.getMethodDescriptor(TRANSIT),
+                null,
+                null);
+        visitor.visitCode();
+        // {
+        // Define buffer: int buffer;
+        var buffer = visitor.newLocal(Type.INT_TYPE);
+        // Calculate hash code: buffer = arg@2 == null ? 0 : arg@2.hashCode();
+        var invoke = new Label();
+        var store = new Label();
+        visitor.visitVarInsn(Opcodes.ALOAD, TOKEN_INDEX);
+        visitor.visitInsn(Opcodes.ACONST_NULL);
+        visitor.visitJumpInsn(Opcodes.IF_ACMPNE, invoke);
+        // If arg@2 == null
+        visitor.visitInsn(Opcodes.ICONST_0);
+        visitor.visitJumpInsn(Opcodes.GOTO, store);
+        // If arg@2 != null
+        visitor.visitLabel(invoke);
+        visitor.visitVarInsn(Opcodes.ALOAD, TOKEN_INDEX);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                Type.getInternalName(HASH_CODE.getDeclaringClass()),
+                HASH_CODE.getName(),
+                Type.getMethodDescriptor(HASH_CODE),
+                false);
+        // Store hash to buffer
+        visitor.visitLabel(store);
+        visitor.visitVarInsn(Opcodes.ISTORE, buffer);
+        if (alphabet == null) {
+            visitTransitions(visitor, model, translation, buffer);
+        } else {
+            alphabet.visit(visitor, name, STATE_INDEX, buffer, TOKEN_INDEX, visitor.newLocal(Type.INT_TYPE));
+        }
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    private void generatePrimitiveTransit(LocalVariablesWriter writer,
+                                          String name,
+                                          Method transit,
+                                          MachineModel<?, ?> model,
+                                          Translation translation,
+                                          AlphabetSwitch alphabet) {
+        var type = model.getTokenType();
+        var primitive = transit.getParameterTypes()[1];
+        // Define primitive transit method, primitive value is used as hash without any calculations
+        var visitor = writer.visitMethodWithLocals(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                transit.getName(),
+                Type.getMethodDescriptor(transit),
+                null,
+                null);
+        visitor.visitCode();
+        if (alphabet == null) {
+            visitTransitions(visitor, model, translation, TOKEN_INDEX);
+        } else {
+            alphabet.visit(visitor, name, STATE_INDEX, TOKEN_INDEX, -1, visitor.newLocal(Type.INT_TYPE));
+        }
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+        // Define bridge: return transit(arg@1, arg@2 == null ? 0 : ((Type) arg@2).typeValue());
+        visitor = writer.visitMethodWithLocals(
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                TRANSIT.getName(),
+                Type.getMethodDescriptor(TRANSIT),
+                null,
+                null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        Util.unboxNullable(visitor,
+                TOKEN_INDEX,
+                type,
+                primitive.getName() + "Value",
+                "()" + Type.getDescriptor(primitive));
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                name,
+                transit.getName(),
+                Type.getMethodDescriptor(transit),
+                false);
+        visitor.visitInsn(Opcodes.IRETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    /**
+     * Generates the class implementing the transition function of the specified model.
+     *
+     * @param name        the internal name of the generated class
+     * @param model       the machine model
+     * @param translation the translation of model states to ids
+     * @return the bytecode of the generated class
+     */
+    byte[] generate(String name, MachineModel<?, ?> model, Translation translation) {
+        var tokenType = model.getTokenType();
+        var transit = tokenType == Character.class ? CHAR_TRANSIT
+                : tokenType == Byte.class ? BYTE_TRANSIT
+                : null;
+        var type = transit == null ? INTERFACE : transit.getDeclaringClass();
+        // Init class writer
+        var writer = new LocalVariablesWriter(ClassWriter.COMPUTE_FRAMES);
+        // Declare class header
+        writer.visit(Opcodes.V11,
+                Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                name,
+                null,
+                Type.getInternalName(Object.class),
+                new String[]{Type.getInternalName(type)});
+        // Define empty constructor
+        Util.createEmptyConstructor(writer);
+        // Compress token alphabet if it shrinks the code
+        var alphabet = AlphabetSwitch.of(model, translation);
+        if (alphabet != null) {
+            alphabet.visitTable(writer, name);
+        }
+        // Define transit methods
+        if (transit != null) {
+            generatePrimitiveTransit(writer, name, transit, model, translation, alphabet);
+        } else {
+            generateObjectTransit(writer, name, model, translation, alphabet);
+        }
+        // Define loops calling own transit methods
+        var loops = new LoopGenerator(writer, name, unroll);
+        for (var method : LoopGenerator.getLoops(type)) {
+            loops.generate(method);
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Generates the class implementing the transition function of the specified model,
+     * using the state ids returned by {@link FunctionMachines#getStates(MachineModel)}.
+     *
+     * @param name  the internal name of the generated class
+     * @param model the machine model
+     * @return the bytecode of the generated class
+     */
+    byte[] generate(String name, MachineModel<?, ?> model) {
+        Util.checkType(model.getTokenType());
+        return generate(name, model, Translation.of(FunctionMachines.getStates(model)));
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.model.MachineModel;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A utility class containing methods that create finite state machines on top of transition functions.
+ */
+public final class FunctionMachines {
+
+    private FunctionMachines() {
+    }
+
+    /**
+     * Returns the table mapping state ids to the states of the specified model.
+     * The exit state always gets id 0, the initial state always gets id 1,
+     * other states get ids in the order of {@link MachineModel#getStates()}.
+     *
+     * @param model the model, must be non-null
+     * @param <S>   state type
+     * @return the array of states indexed by state ids
+     */
+    @SuppressWarnings("unchecked")
+    public static <S> S[] getStates(MachineModel<S, ?> model) {
+        var values = model.getStates().values();
+        var ret = (S[]) Array.newInstance(model.getStateType(), values.size() + 2);
+        ret[0] = model.getExit().getValue();
+        ret[1] = model.getInit().getValue();
+        var count = 2;
+        for (var state : values) {
+            ret[count++] = state.getValue();
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the acceptance flags of the specified states of the model, indexed by state ids.
+     *
+     * @param model  the model the states belong to, must be non-null
+     * @param states the table mapping state ids to states, must be non-null
+     * @param <S>    state type
+     * @return the array of acceptance flags
+     * @see MachineModel#isAccepting(Object)
+     */
+    public static <S> boolean[] getAccepting(MachineModel<S, ?> model, S[] states) {
+        var ret = new boolean[states.length];
+        for (var i = 0; i < states.length; ++i) {
+            ret[i] = model.isAccepting(states[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * Creates a finite state machine driven by the specified transition function.
+     * If the function is a {@link CharTransitionFunction} or a {@link ByteTransitionFunction},
+     * the created machine will be a {@link com.github.romanqed.jsm.CharStateMachine}
+     * or a {@link com.github.romanqed.jsm.ByteStateMachine} respectively.
+     *
+     * @param function  the transition function, must be non-null
+     * @param states    the table mapping state ids to states, must be non-null
+     * @param accepting the acceptance flags indexed by state ids, must be non-null
+     * @param init      the id of the initial state
+     * @param exit      the id of the exit state
+     * @param <S>       state type
+     * @param <T>       token type
+     * @return created finite state machine
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> StateMachine<S, T> create(TransitionFunction<T> function,
+                                                   S[] states,
+                                                   boolean[] accepting,
+                                                   int init,
+                                                   int exit) {
+        Objects.requireNonNull(function);
+        Objects.requireNonNull(states);
+        Objects.checkIndex(init, states.length);
+        Objects.checkIndex(exit, states.length);
+        if (accepting.length != states.length) {
+            throw new IllegalArgumentException("Acceptance flags must be specified for each state");
+        }
+        if (function instanceof CharTransitionFunction) {
+            var machine = new AsmCharMachine<>((CharTransitionFunction) function, states, accepting, init, exit);
+            return (StateMachine<S, T>) machine;
+        }
+        if (function instanceof ByteTransitionFunction) {
+            var machine = new AsmByteMachine<>((ByteTransitionFunction) function, states, accepting, init, exit);
+            return (StateMachine<S, T>) machine;
+        }
+        return new AsmMachine<>(function, states, accepting, init, exit);
+    }
+
+    /**
+     * Creates a finite state machine driven by the specified transition function,
+     * in which all states except the exit state are accepting.
+     *
+     * @param function the transition function, must be non-null
+     * @param states   the table mapping state ids to states, must be non-null
+     * @param init     the id of the initial state
+     * @param exit     the id of the exit state
+     * @param <S>      state type
+     * @param <T>      token type
+     * @return created finite state machine
+     * @see #create(TransitionFunction, Object[], boolean[], int, int)
+     */
+    public static <S, T> StateMachine<S, T> create(TransitionFunction<T> function, S[] states, int init, int exit) {
+        var accepting = new boolean[states.length];
+        Arrays.fill(accepting, true);
+        Objects.checkIndex(exit, states.length);
+        accepting[exit] = false;
+        return create(function, states, accepting, init, exit);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jeflect.loader.DefineClassLoader;
+import com.github.romanqed.jeflect.loader.DefineObjectFactory;
+import com.github.romanqed.jeflect.loader.ObjectFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Implementation of an object factory defining each class in its own class loader.
+ * <br>
+ * A class defined this way can be unloaded as soon as its instances become unreachable, which is not possible
+ * for classes sharing a loader. Since nothing is shared, each call defines a new class, so the factory should
+ * be used together with {@link FunctionCache}.
+ *
+ * @param <T> object type
+ */
+public final class IsolatedObjectFactory<T> implements ObjectFactory<T> {
+
+    @Override
+    public T create(String name, Supplier<byte[]> provider) {
+        return new DefineObjectFactory<T>(new DefineClassLoader()).create(name, provider);
+    }
+}
@@ -0,0 +1,322 @@
+package com.github.romanqed.jsm.asm;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Generates the loops feeding tokens to the transit method of the generated transition function.
+ * The loops keep the state in a local variable and call the transit method of their own class,
+ * so each model gets its own monomorphic call site that can be fully inlined.
+ * Indexed loops can be unrolled, checking for the exit state after each token.
+ */
+final class LoopGenerator {
+    private static final String TRANSIT = "transit";
+    private static final String FEED = "feed";
+    private static final String STAMP = "stamp";
+    private static final String MUNCH = "munch";
+    private static final int STATE_INDEX = 1;
+    private static final int SOURCE_INDEX = 2;
+    // Indexed loop locals: offset, end, exit, hash, limit
+    private static final int OFFSET_INDEX = 3;
+    private static final int END_INDEX = 4;
+    private static final int EXIT_INDEX = 5;
+    private static final int HASH_INDEX = 6;
+    private static final int LIMIT_INDEX = 7;
+    // Iterator loop locals: exit, hash
+    private static final int ITERATOR_EXIT_INDEX = 3;
+    private static final int ITERATOR_HASH_INDEX = 4;
+    // Munch loop locals: kinds, kind, last, current
+    private static final int KINDS_INDEX = 6;
+    private static final int KIND_INDEX = 7;
+    private static final int LAST_INDEX = 8;
+    private static final int CURRENT_INDEX = 9;
+    private final ClassVisitor writer;
+    private final String owner;
+    private final int unroll;
+
+    LoopGenerator(ClassVisitor writer, String owner, int unroll) {
+        this.writer = writer;
+        this.owner = owner;
+        this.unroll = unroll;
+    }
+
+    /**
+     * Returns the loop methods declared by the specified function interface and its super interfaces.
+     *
+     * @param type the function interface
+     * @return the list of loop methods
+     */
+    static List<Method> getLoops(Class<?> type) {
+        var ret = new ArrayList<Method>();
+        for (var method : type.getMethods()) {
+            var name = method.getName();
+            if (!Modifier.isStatic(method.getModifiers())
+                    && (name.equals(FEED) || name.equals(STAMP) || name.equals(MUNCH))) {
+                ret.add(method);
+            }
+        }
+        // Keep the order of generated methods stable
+        ret.sort(Comparator.comparing((Method method) -> method.getName() + Type.getMethodDescriptor(method)));
+        return ret;
+    }
+
+    private static Class<?> getElementType(Class<?> source) {
+        if (source.isArray()) {
+            var component = source.getComponentType();
+            return component.isPrimitive() ? component : Object.class;
+        }
+        if (source == CharSequence.class) {
+            return char.class;
+        }
+        if (source == ByteBuffer.class) {
+            return byte.class;
+        }
+        return Object.class;
+    }
+
+    // Expects the source and the index on the stack
+    private static void loadElement(MethodVisitor visitor, Class<?> source) {
+        if (source.isArray()) {
+            visitor.visitInsn(Type.getType(getElementType(source)).getOpcode(Opcodes.IALOAD));
+        } else if (source == CharSequence.class) {
+            visitor.visitMethodInsn(Opcodes.INVOKEINTERFACE,
+                    Type.getInternalName(CharSequence.class),
+                    "charAt",
+                    "(I)C",
+                    true);
+        } else if (source == ByteBuffer.class) {
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                    Type.getInternalName(ByteBuffer.class),
+                    "get",
+                    "(I)B",
+                    false);
+        } else {
+            throw new IllegalArgumentException("Unsupported token source: " + source);
+        }
+    }
+
+    /**
+     * Generates the implementation of the specified loop method.
+     *
+     * @param method the loop method of the function interface
+     */
+    void generate(Method method) {
+        var source = method.getParameterTypes()[1];
+        var stamp = method.getName().equals(STAMP);
+        // Seeded stamp loops take the hash as the last parameter and return it packed with the last state
+        var seeded = stamp && method.getParameterCount() == 6;
+        var visitor = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL,
+                method.getName(),
+                Type.getMethodDescriptor(method),
+                null,
+                null);
+        visitor.visitCode();
+        if (method.getName().equals(MUNCH)) {
+            generateMunch(visitor, source);
+        } else if (source == Iterator.class) {
+            generateIterator(visitor, stamp);
+        } else {
+            generateIndexed(visitor, source, stamp, seeded);
+        }
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+    }
+
+    // state = transit(state, token); if (state == exit) goto fail; [hash = 31 * hash + state;]
+    private void visitStep(MethodVisitor visitor,
+                           Runnable loader,
+                           Class<?> element,
+                           int exit,
+                           int hash,
+                           Label fail) {
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        loader.run();
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                owner,
+                TRANSIT,
+                Type.getMethodDescriptor(Type.INT_TYPE, Type.INT_TYPE, Type.getType(element)),
+                false);
+        visitor.visitVarInsn(Opcodes.ISTORE, STATE_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, exit);
+        visitor.visitJumpInsn(Opcodes.IF_ICMPEQ, fail);
+        if (hash < 0) {
+            return;
+        }
+        visitor.visitIntInsn(Opcodes.BIPUSH, 31);
+        visitor.visitVarInsn(Opcodes.ILOAD, hash);
+        visitor.visitInsn(Opcodes.IMUL);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        visitor.visitInsn(Opcodes.IADD);
+        visitor.visitVarInsn(Opcodes.ISTORE, hash);
+    }
+
+    private static void visitReturns(MethodVisitor visitor, int exit, int hash, Label done, Label fail) {
+        visitor.visitLabel(done);
+        if (hash < 0) {
+            visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+            visitor.visitInsn(Opcodes.IRETURN);
+            visitor.visitLabel(fail);
+            visitor.visitVarInsn(Opcodes.ILOAD, exit);
+            visitor.visitInsn(Opcodes.IRETURN);
+            return;
+        }
+        visitor.visitVarInsn(Opcodes.ILOAD, hash);
+        visitor.visitInsn(Opcodes.I2L);
+        visitor.visitInsn(Opcodes.LRETURN);
+        visitor.visitLabel(fail);
+        visitor.visitLdcInsn(-1L);
+        visitor.visitInsn(Opcodes.LRETURN);
+    }
+
+    private void generateIndexed(MethodVisitor visitor, Class<?> source, boolean stamp, boolean seeded) {
+        var element = getElementType(source);
+        var hash = stamp ? HASH_INDEX : -1;
+        var done = new Label();
+        // Seeded loops return the packed state on exit as well
+        var fail = seeded ? done : new Label();
+        if (stamp && !seeded) {
+            visitor.visitInsn(Opcodes.ICONST_1);
+            visitor.visitVarInsn(Opcodes.ISTORE, HASH_INDEX);
+        }
+        if (unroll > 1) {
+            // limit = end - unroll; while (offset <= limit) { <unroll steps>; offset += unroll; }
+            var loop = new Label();
+            var tail = new Label();
+            visitor.visitVarInsn(Opcodes.ILOAD, END_INDEX);
+            Util.pushInt(visitor, unroll);
+            visitor.visitInsn(Opcodes.ISUB);
+            visitor.visitVarInsn(Opcodes.ISTORE, LIMIT_INDEX);
+            visitor.visitLabel(loop);
+            visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+            visitor.visitVarInsn(Opcodes.ILOAD, LIMIT_INDEX);
+            visitor.visitJumpInsn(Opcodes.IF_ICMPGT, tail);
+            for (var i = 0; i < unroll; ++i) {
+                var shift = i;
+                visitStep(visitor, () -> {
+                    visitor.visitVarInsn(Opcodes.ALOAD, SOURCE_INDEX);
+                    visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+                    if (shift != 0) {
+                        Util.pushInt(visitor, shift);
+                        visitor.visitInsn(Opcodes.IADD);
+                    }
+                    loadElement(visitor, source);
+                }, element, EXIT_INDEX, hash, fail);
+            }
+            visitor.visitIincInsn(OFFSET_INDEX, unroll);
+            visitor.visitJumpInsn(Opcodes.GOTO, loop);
+            visitor.visitLabel(tail);
+        }
+        // while (offset < end) { <step>; ++offset; }
+        var loop = new Label();
+        visitor.visitLabel(loop);
+        visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, END_INDEX);
+        visitor.visitJumpInsn(Opcodes.IF_ICMPGE, done);
+        visitStep(visitor, () -> {
+            visitor.visitVarInsn(Opcodes.ALOAD, SOURCE_INDEX);
+            visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+            loadElement(visitor, source);
+        }, element, EXIT_INDEX, hash, fail);
+        visitor.visitIincInsn(OFFSET_INDEX, 1);
+        visitor.visitJumpInsn(Opcodes.GOTO, loop);
+        if (!seeded) {
+            visitReturns(visitor, EXIT_INDEX, hash, done, fail);
+            return;
+        }
+        // return ((long) hash << 32) | (state & 0xFFFFFFFFL);
+        visitor.visitLabel(done);
+        visitor.visitVarInsn(Opcodes.ILOAD, HASH_INDEX);
+        visitor.visitInsn(Opcodes.I2L);
+        visitor.visitIntInsn(Opcodes.BIPUSH, 32);
+        visitor.visitInsn(Opcodes.LSHL);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        visitor.visitInsn(Opcodes.I2L);
+        visitor.visitLdcInsn(0xFFFFFFFFL);
+        visitor.visitInsn(Opcodes.LAND);
+        visitor.visitInsn(Opcodes.LOR);
+        visitor.visitInsn(Opcodes.LRETURN);
+    }
+
+    private void generateMunch(MethodVisitor visitor, Class<?> source) {
+        var done = new Label();
+        var loop = new Label();
+        // kind = -1; last = -1;
+        visitor.visitInsn(Opcodes.ICONST_M1);
+        visitor.visitVarInsn(Opcodes.ISTORE, KIND_INDEX);
+        visitor.visitInsn(Opcodes.ICONST_M1);
+        visitor.visitVarInsn(Opcodes.ISTORE, LAST_INDEX);
+        // while (offset < end) {
+        //     <step>; ++offset;
+        //     if ((current = kinds[state]) >= 0) { kind = current; last = offset; }
+        // }
+        visitor.visitLabel(loop);
+        visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, END_INDEX);
+        visitor.visitJumpInsn(Opcodes.IF_ICMPGE, done);
+        visitStep(visitor, () -> {
+            visitor.visitVarInsn(Opcodes.ALOAD, SOURCE_INDEX);
+            visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+            loadElement(visitor, source);
+        }, getElementType(source), EXIT_INDEX, -1, done);
+        visitor.visitIincInsn(OFFSET_INDEX, 1);
+        visitor.visitVarInsn(Opcodes.ALOAD, KINDS_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, STATE_INDEX);
+        visitor.visitInsn(Opcodes.IALOAD);
+        visitor.visitInsn(Opcodes.DUP);
+        visitor.visitVarInsn(Opcodes.ISTORE, CURRENT_INDEX);
+        visitor.visitJumpInsn(Opcodes.IFLT, loop);
+        visitor.visitVarInsn(Opcodes.ILOAD, CURRENT_INDEX);
+        visitor.visitVarInsn(Opcodes.ISTORE, KIND_INDEX);
+        visitor.visitVarInsn(Opcodes.ILOAD, OFFSET_INDEX);
+        visitor.visitVarInsn(Opcodes.ISTORE, LAST_INDEX);
+        visitor.visitJumpInsn(Opcodes.GOTO, loop);
+        // return ((long) kind << 32) | (last & 0xFFFFFFFFL);
+        visitor.visitLabel(done);
+        visitor.visitVarInsn(Opcodes.ILOAD, KIND_INDEX);
+        visitor.visitInsn(Opcodes.I2L);
+        visitor.visitIntInsn(Opcodes.BIPUSH, 32);
+        visitor.visitInsn(Opcodes.LSHL);
+        visitor.visitVarInsn(Opcodes.ILOAD, LAST_INDEX);
+        visitor.visitInsn(Opcodes.I2L);
+        visitor.visitLdcInsn(0xFFFFFFFFL);
+        visitor.visitInsn(Opcodes.LAND);
+        visitor.visitInsn(Opcodes.LOR);
+        visitor.visitInsn(Opcodes.LRETURN);
+    }
+
+    private void generateIterator(MethodVisitor visitor, boolean stamp) {
+        var hash = stamp ? ITERATOR_HASH_INDEX : -1;
+        var done = new Label();
+        var fail = new Label();
+        if (stamp) {
+            visitor.visitInsn(Opcodes.ICONST_1);
+            visitor.visitVarInsn(Opcodes.ISTORE, ITERATOR_HASH_INDEX);
+        }
+        var iterator = Type.getInternalName(Iterator.class);
+        // while (tokens.hasNext()) { <step by tokens.next()>; }
+        var loop = new Label();
+        visitor.visitLabel(loop);
+        visitor.visitVarInsn(Opcodes.ALOAD, SOURCE_INDEX);
+        visitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, iterator, "hasNext", "()Z", true);
+        visitor.visitJumpInsn(Opcodes.IFEQ, done);
+        visitStep(visitor, () -> {
+            visitor.visitVarInsn(Opcodes.ALOAD, SOURCE_INDEX);
+            visitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, iterator, "next", "()Ljava/lang/Object;", true);
+        }, Object.class, ITERATOR_EXIT_INDEX, hash, fail);
+        visitor.visitJumpInsn(Opcodes.GOTO, loop);
+        visitReturns(visitor, ITERATOR_EXIT_INDEX, hash, done, fail);
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.ModelTransformer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A class compiling transition functions ahead of time, so that they can be packed into the artifact
+ * and loaded by {@link PrecompiledMachineFactory} without code generation.
+ * <br>
+ * It can be launched as a build step, for example, by a Gradle {@code JavaExec} task:
+ * <pre>
+ * java com.github.romanqed.jsm.asm.MachineCompiler &lt;output directory&gt; &lt;package&gt; &lt;provider class&gt;...
+ * </pre>
+ * where each provider class implements {@link ModelProvider}.
+ */
+public final class MachineCompiler {
+    private static final int DEFAULT_MAX_DELTA = 10;
+    private static final String EXTENSION = ".class";
+    private final String packageName;
+    private final ModelTransformer transformer;
+    private final FunctionGenerator generator;
+
+    /**
+     * Constructs {@link MachineCompiler} with the specified code generation settings.
+     * The transformer must be the same as the one used by {@link PrecompiledMachineFactory}.
+     *
+     * @param packageName the package of generated classes, must be non-null
+     * @param maxDelta    the maximum delta for table switches
+     * @param transformer the model transformer, may be null
+     * @param unroll      the unroll factor of generated loops, 1 means no unrolling
+     */
+    public MachineCompiler(String packageName, int maxDelta, ModelTransformer transformer, int unroll) {
+        this.packageName = Objects.requireNonNull(packageName);
+        this.transformer = transformer;
+        this.generator = new FunctionGenerator(maxDelta, unroll);
+    }
+
+    /**
+     * Constructs {@link MachineCompiler} pruning unreachable and dead states of models before code generation.
+     *
+     * @param packageName the package of generated classes, must be non-null
+     */
+    public MachineCompiler(String packageName) {
+        this(packageName, DEFAULT_MAX_DELTA, MachineModels::prune, 1);
+    }
+
+    /**
+     * Generates the transition function for the specified model and writes its class file
+     * to the corresponding package directory inside the specified root.
+     *
+     * @param root  the root of the output class directory
+     * @param model the specified model, must be non-null
+     * @return the path of the written class file
+     * @throws IOException if an I/O error occurs
+     */
+    public Path compile(Path root, MachineModel<?, ?> model) throws IOException {
+        var transformed = transformer == null ? model : transformer.transform(model);
+        var name = PrecompiledMachineFactory.getClassName(packageName, transformed).replace('.', '/');
+        var bytes = generator.generate(name, transformed);
+        var ret = root.resolve(name + EXTENSION);
+        Files.createDirectories(ret.getParent());
+        Files.write(ret, bytes);
+        return ret;
+    }
+
+    /**
+     * Compiles the models of the specified providers.
+     *
+     * @param args the output directory, the package of generated classes and provider class names
+     * @throws IllegalArgumentException if not enough arguments are specified
+     * @throws Exception                if provider cannot be instantiated or an I/O error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                    "Usage: MachineCompiler <output directory> <package> <provider class>..."
+            );
+        }
+        var root = Path.of(args[0]);
+        var compiler = new MachineCompiler(args[1]);
+        var loader = Thread.currentThread().getContextClassLoader();
+        for (var i = 2; i < args.length; ++i) {
+            var provider = (ModelProvider) Class.forName(args[i], true, loader)
+                    .getDeclaredConstructor()
+                    .newInstance();
+            for (var model : provider.getModels()) {
+                compiler.compile(root, model);
+            }
+        }
+    }
+}
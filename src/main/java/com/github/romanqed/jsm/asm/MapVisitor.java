@@ -9,10 +9,12 @@ import java.util.Map;
 
 final class MapVisitor implements TokenVisitor {
     private final Map<Object, Integer> transitions;
+    private final RangeSwitch ranges;
     private final int target;
 
-    MapVisitor(Map<Object, Integer> transitions, int target) {
+    MapVisitor(Map<Object, Integer> transitions, RangeSwitch ranges, int target) {
         this.transitions = transitions;
+        this.ranges = ranges;
         this.target = target;
     }
 
@@ -23,7 +25,7 @@ final class MapVisitor implements TokenVisitor {
 
     @Override
     public <T> void visit(RangeToken<T> token) {
-        throw new IllegalArgumentException("Bytecode machine factory does not support range tokens");
+        ranges.add(token.getStart(), token.getEnd(), target);
     }
 
     @Override
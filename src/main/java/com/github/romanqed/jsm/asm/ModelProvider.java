@@ -0,0 +1,19 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.model.MachineModel;
+
+import java.util.Collection;
+
+/**
+ * An interface describing the source of models compiled ahead of time by {@link MachineCompiler}.
+ * Implementations must have a public no-argument constructor.
+ */
+public interface ModelProvider {
+
+    /**
+     * Returns the models to be compiled.
+     *
+     * @return the collection of models
+     */
+    Collection<MachineModel<?, ?>> getModels();
+}
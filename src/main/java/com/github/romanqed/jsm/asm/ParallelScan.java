@@ -0,0 +1,113 @@
+package com.github.romanqed.jsm.asm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel execution of a finite state machine over a single large input.
+ * <br>
+ * The input is split into chunks. The first chunk is processed from the initial state, and for every other chunk
+ * the mapping from all possible start states to end states is computed. Start states are processed together and
+ * merged as soon as they converge, which usually happens after a few tokens, so the cost of a chunk is close
+ * to the cost of a single run. The final state is obtained by composing the mappings in order.
+ */
+final class ParallelScan {
+    private static final long MIN_CHUNK = 1 << 16;
+    private static final long MAX_CHUNK = 1 << 30;
+    private static final int BLOCK = 1 << 12;
+
+    private ParallelScan() {
+    }
+
+    static int run(int init, int exit, int states, long length, Source source) {
+        if (length == 0) {
+            return init;
+        }
+        var parallelism = ForkJoinPool.getCommonPoolParallelism() * 4L;
+        var chunks = (int) Math.max(Math.min(parallelism, length / MIN_CHUNK), (length + MAX_CHUNK - 1) / MAX_CHUNK);
+        if (chunks <= 1) {
+            return source.segment(0, (int) length).feed(init, 0, (int) length);
+        }
+        var first = new int[1];
+        var maps = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(i -> {
+            var start = length * i / chunks;
+            var size = (int) (length * (i + 1) / chunks - start);
+            var segment = source.segment(start, size);
+            if (i == 0) {
+                first[0] = segment.feed(init, 0, size);
+            } else {
+                maps[i] = map(segment, size, states, exit);
+            }
+        });
+        var ret = first[0];
+        for (var i = 1; i < chunks && ret != exit; ++i) {
+            ret = maps[i][ret];
+        }
+        return ret;
+    }
+
+    private static int[] map(Segment segment, int length, int states, int exit) {
+        // Active holds distinct current states, slots map start states to indices in active
+        var active = new int[states];
+        var slots = new int[states];
+        for (var i = 0; i < states; ++i) {
+            active[i] = i;
+            slots[i] = i;
+        }
+        var count = states;
+        var seen = new int[states];
+        var remap = new int[states];
+        for (var from = 0; from < length; from += BLOCK) {
+            if (count == 1) {
+                // All start states have converged, so the rest is a single run
+                if (active[0] != exit) {
+                    active[0] = segment.feed(active[0], from, length);
+                }
+                break;
+            }
+            var to = Math.min(length, from + BLOCK);
+            for (var i = 0; i < count; ++i) {
+                if (active[i] != exit) {
+                    active[i] = segment.feed(active[i], from, to);
+                }
+            }
+            // Merge converged states
+            Arrays.fill(seen, -1);
+            var next = 0;
+            for (var i = 0; i < count; ++i) {
+                var state = active[i];
+                var index = seen[state];
+                if (index < 0) {
+                    index = next++;
+                    seen[state] = index;
+                    active[index] = state;
+                }
+                remap[i] = index;
+            }
+            if (next == count) {
+                continue;
+            }
+            for (var i = 0; i < states; ++i) {
+                slots[i] = remap[slots[i]];
+            }
+            count = next;
+        }
+        var ret = new int[states];
+        for (var i = 0; i < states; ++i) {
+            ret[i] = active[slots[i]];
+        }
+        return ret;
+    }
+
+    interface Segment {
+
+        int feed(int state, int from, int to);
+    }
+
+    interface Source {
+
+        Segment segment(long start, int length);
+    }
+}
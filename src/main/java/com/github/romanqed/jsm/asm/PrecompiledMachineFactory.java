@@ -0,0 +1,112 @@
+package com.github.romanqed.jsm.asm;
+
+import com.github.romanqed.jsm.ByteStateMachine;
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.StateMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.ModelTransformer;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of a finite state machine factory using transition functions compiled ahead of time
+ * by {@link MachineCompiler}. Classes are found by model digests and loaded by the specified class loader,
+ * so neither ASM nor class definition is required at runtime.
+ */
+public final class PrecompiledMachineFactory implements StateMachineFactory {
+    private static final String FUNCTION_NAME = "T";
+    private final ClassLoader loader;
+    private final String packageName;
+    private final ModelTransformer transformer;
+    private final Map<String, TransitionFunction<?>> functions;
+
+    /**
+     * Constructs {@link PrecompiledMachineFactory} loading classes from the specified package.
+     * The transformer must be the same as the one used by {@link MachineCompiler}.
+     *
+     * @param loader      the class loader containing compiled classes, must be non-null
+     * @param packageName the package of compiled classes, must be non-null
+     * @param transformer the model transformer, may be null
+     */
+    public PrecompiledMachineFactory(ClassLoader loader, String packageName, ModelTransformer transformer) {
+        this.loader = Objects.requireNonNull(loader);
+        this.packageName = Objects.requireNonNull(packageName);
+        this.transformer = transformer;
+        this.functions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs {@link PrecompiledMachineFactory} loading classes compiled by {@link MachineCompiler}
+     * with default settings from the specified package.
+     *
+     * @param packageName the package of compiled classes, must be non-null
+     */
+    public PrecompiledMachineFactory(String packageName) {
+        this(PrecompiledMachineFactory.class.getClassLoader(), packageName, MachineModels::prune);
+    }
+
+    /**
+     * Returns the binary name of the class containing the precompiled transition function for the specified model.
+     *
+     * @param packageName the package of compiled classes, must be non-null
+     * @param model       the specified model, after transformation
+     * @return the binary class name
+     */
+    public static String getClassName(String packageName, MachineModel<?, ?> model) {
+        var name = FUNCTION_NAME + model.getDigest().toHex();
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    private TransitionFunction<?> load(String name) {
+        try {
+            var type = Class.forName(name, true, loader);
+            return (TransitionFunction<?>) type.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Precompiled transition function " + name + " not found", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate precompiled transition function " + name, e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> StateMachine<S, T> create(MachineModel<S, T> source) {
+        var model = transformer == null ? source : transformer.transform(source);
+        var function = functions.computeIfAbsent(getClassName(packageName, model), this::load);
+        var from = FunctionMachines.getStates(model);
+        var accepting = FunctionMachines.getAccepting(model, from);
+        return FunctionMachines.create((TransitionFunction<T>) function, from, accepting, 1, 0);
+    }
+
+    /**
+     * Creates a finite state machine specialized for char tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Character} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> CharStateMachine<S> createCharMachine(MachineModel<S, Character> model) {
+        if (model.getTokenType() != Character.class) {
+            throw new IllegalArgumentException("Char machine can be created only for char tokens");
+        }
+        return (CharStateMachine<S>) create(model);
+    }
+
+    /**
+     * Creates a finite state machine specialized for byte tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Byte} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> ByteStateMachine<S> createByteMachine(MachineModel<S, Byte> model) {
+        if (model.getTokenType() != Byte.class) {
+            throw new IllegalArgumentException("Byte machine can be created only for byte tokens");
+        }
+        return (ByteStateMachine<S>) create(model);
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.romanqed.jsm.asm;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Generates the bytecode dispatching a token by a set of range transitions.
+ * Small ranges of integral tokens are expanded into switch cases, other ranges are dispatched
+ * by a binary decision tree over range boundaries. If ranges overlap, the last declared one wins.
+ */
+final class RangeSwitch {
+    private static final int MAX_EXPANSION = 256;
+    static final Set<Class<?>> INTEGRAL_TYPES = Set.of(
+            Character.class,
+            Byte.class,
+            Short.class,
+            Integer.class
+    );
+    private final Class<?> type;
+    private final List<Range> ranges;
+
+    RangeSwitch(Class<?> type) {
+        this.type = type;
+        this.ranges = new ArrayList<>();
+    }
+
+    static IntFunction<Object> getBoxer(Class<?> type) {
+        if (type == Character.class) {
+            return i -> (char) i;
+        }
+        if (type == Byte.class) {
+            return i -> (byte) i;
+        }
+        if (type == Short.class) {
+            return i -> (short) i;
+        }
+        return i -> i;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    void add(Object start, Object end, int target) {
+        ranges.add(new Range(start, end, target));
+    }
+
+    boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    /**
+     * Expands all ranges into the specified map of switch cases if the token type is integral
+     * and ranges are small enough. Values already present in the map are not overwritten.
+     *
+     * @param map the map of switch cases
+     * @return true if ranges have been expanded, false otherwise
+     */
+    boolean expand(Map<Object, Integer> map) {
+        if (!INTEGRAL_TYPES.contains(type)) {
+            return false;
+        }
+        var total = 0L;
+        for (var range : ranges) {
+            total += (long) range.end.hashCode() - range.start.hashCode() + 1;
+        }
+        if (total > MAX_EXPANSION) {
+            return false;
+        }
+        var boxer = getBoxer(type);
+        var expanded = new HashMap<Object, Integer>();
+        for (var range : ranges) {
+            var end = range.end.hashCode();
+            for (var i = range.start.hashCode(); i <= end; ++i) {
+                expanded.put(boxer.apply(i), range.target);
+            }
+        }
+        expanded.forEach(map::putIfAbsent);
+        ranges.clear();
+        return true;
+    }
+
+    private void loadValue(MethodVisitor visitor, int buffer, int token) {
+        if (INTEGRAL_TYPES.contains(type)) {
+            visitor.visitVarInsn(Opcodes.ILOAD, buffer);
+        } else if (type == Long.class) {
+            Util.loadLong(visitor, token);
+        } else if (type == Float.class) {
+            Util.loadFloat(visitor, token);
+        } else if (type == Double.class) {
+            Util.loadDouble(visitor, token);
+        } else {
+            visitor.visitVarInsn(Opcodes.ALOAD, token);
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+        }
+    }
+
+    // Jumps to label if (value <=> bound) satisfies the opcode, NaN is treated as the greatest value
+    private void visitCompare(MethodVisitor visitor, int buffer, int token, Object bound, int opcode, Label label) {
+        loadValue(visitor, buffer, token);
+        if (INTEGRAL_TYPES.contains(type)) {
+            Util.pushInt(visitor, bound.hashCode());
+            visitor.visitJumpInsn(opcode + (Opcodes.IF_ICMPLT - Opcodes.IFLT), label);
+            return;
+        }
+        visitor.visitLdcInsn(bound);
+        if (type == Long.class) {
+            visitor.visitInsn(Opcodes.LCMP);
+        } else if (type == Float.class) {
+            visitor.visitInsn(Opcodes.FCMPG);
+        } else if (type == Double.class) {
+            visitor.visitInsn(Opcodes.DCMPG);
+        } else {
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                    Type.getInternalName(type),
+                    "compareTo",
+                    Type.getMethodDescriptor(Type.INT_TYPE, Type.getType(type)),
+                    false);
+        }
+        visitor.visitJumpInsn(opcode, label);
+    }
+
+    private void visitMatch(MethodVisitor visitor, int buffer, int token, Range range, Label less, Label greater) {
+        visitCompare(visitor, buffer, token, range.start, Opcodes.IFLT, less);
+        visitCompare(visitor, buffer, token, range.end, Opcodes.IFGT, greater);
+        Util.pushInt(visitor, range.target);
+        visitor.visitInsn(Opcodes.IRETURN);
+    }
+
+    private void visitTree(MethodVisitor visitor, int buffer, int token, List<Range> sorted, int low, int high, Label fallback) {
+        var middle = (low + high) >>> 1;
+        var less = low < middle ? new Label() : fallback;
+        var greater = middle < high ? new Label() : fallback;
+        visitMatch(visitor, buffer, token, sorted.get(middle), less, greater);
+        if (less != fallback) {
+            visitor.visitLabel(less);
+            visitTree(visitor, buffer, token, sorted, low, middle - 1, fallback);
+        }
+        if (greater != fallback) {
+            visitor.visitLabel(greater);
+            visitTree(visitor, buffer, token, sorted, middle + 1, high, fallback);
+        }
+    }
+
+    /**
+     * Creates the bytecode dispatching the token by ranges.
+     *
+     * @param visitor  the method visitor
+     * @param buffer   the index of the local containing the int value (for integral tokens)
+     * @param token    the index of the local containing the token object (for other tokens)
+     * @param fallback the handler called if the token does not belong to any range
+     */
+    void visit(MethodVisitor visitor, int buffer, int token, Consumer<MethodVisitor> fallback) {
+        var label = new Label();
+        if (!INTEGRAL_TYPES.contains(type)) {
+            visitor.visitVarInsn(Opcodes.ALOAD, token);
+            visitor.visitJumpInsn(Opcodes.IFNULL, label);
+        }
+        var sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparing((Range range) -> range.start, RangeSwitch::compare));
+        var overlaps = false;
+        for (var i = 1; i < sorted.size(); ++i) {
+            if (compare(sorted.get(i - 1).end, sorted.get(i).start) >= 0) {
+                overlaps = true;
+                break;
+            }
+        }
+        if (overlaps) {
+            // Check ranges one by one, the last declared range has priority
+            for (var i = ranges.size() - 1; i >= 0; --i) {
+                var next = new Label();
+                visitMatch(visitor, buffer, token, ranges.get(i), next, next);
+                visitor.visitLabel(next);
+            }
+        } else {
+            visitTree(visitor, buffer, token, sorted, 0, sorted.size() - 1, label);
+        }
+        visitor.visitLabel(label);
+        fallback.accept(visitor);
+    }
+
+    private static final class Range {
+        private final Object start;
+        private final Object end;
+        private final int target;
+
+        private Range(Object start, Object end, int target) {
+            this.start = start;
+            this.end = end;
+            this.target = target;
+        }
+    }
+}
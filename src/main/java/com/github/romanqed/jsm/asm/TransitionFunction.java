@@ -1,10 +1,99 @@
 package com.github.romanqed.jsm.asm;
 
+import java.util.Iterator;
+
 /**
  * An interface describing a function used inside the bytecode state machine.
+ * <br>
+ * Besides the transition itself, the function provides the loops feeding tokens to it. Generated functions
+ * override them, so that each generated class has its own monomorphic call site of the transit method.
  *
  * @param <T> token type
  */
 public interface TransitionFunction<T> {
     int transit(int state, T token);
+
+    /**
+     * Performs transitions by the tokens of the specified array from offset (inclusive) to end (exclusive).
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param tokens the array of tokens
+     * @param offset the index of the first token
+     * @param end    the index after the last token
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, T[] tokens, int offset, int end, int exit) {
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, tokens[i]);
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Performs transitions by the remaining tokens of the specified iterator.
+     * Stops as soon as the exit state is reached.
+     *
+     * @param state  the source state id
+     * @param tokens the iterator of tokens
+     * @param exit   the id of the exit state
+     * @return the last state id
+     */
+    default int feed(int state, Iterator<T> tokens, int exit) {
+        while (tokens.hasNext()) {
+            state = transit(state, tokens.next());
+            if (state == exit) {
+                return exit;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the tokens of the specified array
+     * from offset (inclusive) to end (exclusive).
+     *
+     * @param state  the source state id
+     * @param tokens the array of tokens
+     * @param offset the index of the first token
+     * @param end    the index after the last token
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    @SuppressWarnings("Duplicates")
+    default long stamp(int state, T[] tokens, int offset, int end, int exit) {
+        var ret = 1;
+        for (var i = offset; i < end; ++i) {
+            state = transit(state, tokens[i]);
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
+
+    /**
+     * Calculates the stamp of the path passed by the remaining tokens of the specified iterator.
+     *
+     * @param state  the source state id
+     * @param tokens the iterator of tokens
+     * @param exit   the id of the exit state
+     * @return the stamp of the path, or -1 if the exit state has been reached
+     */
+    default long stamp(int state, Iterator<T> tokens, int exit) {
+        var ret = 1;
+        while (tokens.hasNext()) {
+            state = transit(state, tokens.next());
+            if (state == exit) {
+                return -1;
+            }
+            ret = 31 * ret + state;
+        }
+        return ret;
+    }
 }
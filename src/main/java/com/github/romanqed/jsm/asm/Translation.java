@@ -1,8 +1,5 @@
 package com.github.romanqed.jsm.asm;
 
-import com.github.romanqed.jsm.model.MachineModel;
-
-import java.lang.reflect.Array;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,16 +22,7 @@ final class Translation {
         return ret;
     }
 
-    static Translation of(MachineModel<?, ?> model) {
-        var values = model.getStates().values();
-        var length = values.size() + 2;
-        var ret = (Object[]) Array.newInstance(model.getStateType(), length);
-        ret[0] = model.getExit().getValue();
-        ret[1] = model.getInit().getValue();
-        var count = 2;
-        for (var state : values) {
-            ret[count++] = state.getValue();
-        }
-        return new Translation(makeTo(ret), ret, length);
+    static Translation of(Object[] from) {
+        return new Translation(makeTo(from), from, from.length);
     }
 }
@@ -2,6 +2,7 @@ package com.github.romanqed.jsm.asm;
 
 import com.github.romanqed.jsm.model.State;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -90,6 +91,19 @@ final class Util {
         );
     }
 
+    static void loadFloat(MethodVisitor visitor, int index) {
+        visitor.visitVarInsn(Opcodes.ALOAD, index);
+        var owner = Type.getInternalName(Float.class);
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        visitor.visitMethodInsn(
+                Opcodes.INVOKEVIRTUAL,
+                owner,
+                "floatValue",
+                "()F",
+                false
+        );
+    }
+
     static void loadDouble(MethodVisitor visitor, int index) {
         visitor.visitVarInsn(Opcodes.ALOAD, index);
         var owner = Type.getInternalName(Double.class);
@@ -103,6 +117,21 @@ final class Util {
         );
     }
 
+    static void unboxNullable(MethodVisitor visitor, int index, Class<?> type, String method, String descriptor) {
+        var unbox = new Label();
+        var end = new Label();
+        visitor.visitVarInsn(Opcodes.ALOAD, index);
+        visitor.visitJumpInsn(Opcodes.IFNONNULL, unbox);
+        visitor.visitInsn(Opcodes.ICONST_0);
+        visitor.visitJumpInsn(Opcodes.GOTO, end);
+        visitor.visitLabel(unbox);
+        visitor.visitVarInsn(Opcodes.ALOAD, index);
+        var owner = Type.getInternalName(type);
+        visitor.visitTypeInsn(Opcodes.CHECKCAST, owner);
+        visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, method, descriptor, false);
+        visitor.visitLabel(end);
+    }
+
     static Consumer<MethodVisitor> getLoader(Class<?> type, int index) {
         if (type == Long.class) {
             return v -> loadLong(v, index);
@@ -0,0 +1,15 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.asm.ByteTransitionFunction;
+
+final class ByteTableFunction extends IntTableFunction<Byte> implements ByteTransitionFunction {
+
+    ByteTableFunction(int[] table, int width, IntIndex index, int nullClass) {
+        super(table, width, index, nullClass);
+    }
+
+    @Override
+    public int transit(int state, byte token) {
+        return transit(state, (int) token);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.asm.CharTransitionFunction;
+
+final class CharTableFunction extends IntTableFunction<Character> implements CharTransitionFunction {
+
+    CharTableFunction(int[] table, int width, IntIndex index, int nullClass) {
+        super(table, width, index, nullClass);
+    }
+
+    @Override
+    public int transit(int state, char token) {
+        return transit(state, (int) token);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.model.Alphabet;
+
+import java.util.Arrays;
+
+/**
+ * Maps integral token values (chars, bytes, shorts and ints) to compressed token classes.
+ * Uses a direct lookup table if the alphabet is dense enough, and binary search over
+ * sorted segment starts otherwise.
+ */
+final class IntIndex {
+    private final int min;
+    private final int max;
+    private final int[] starts;
+    private final int[] classes;
+
+    private IntIndex(int min, int max, int[] starts, int[] classes) {
+        this.min = min;
+        this.max = max;
+        this.starts = starts;
+        this.classes = classes;
+    }
+
+    static IntIndex of(Alphabet<?> alphabet, int[] remap, int denseLimit) {
+        var points = alphabet.getPoints();
+        var count = points.size();
+        if (count == 0) {
+            return new IntIndex(0, -1, null, new int[0]);
+        }
+        var keys = new int[count];
+        for (var i = 0; i < count; ++i) {
+            keys[i] = points.get(i).hashCode();
+        }
+        var min = keys[0];
+        var max = keys[count - 1];
+        if ((long) max - min < denseLimit) {
+            // Dense table: classes[key - min]
+            var classes = new int[max - min + 1];
+            for (var i = 0; i < count; ++i) {
+                classes[keys[i] - min] = remap[i + 1];
+                if (i > 0) {
+                    Arrays.fill(classes, keys[i - 1] - min + 1, keys[i] - min, remap[alphabet.getGapClass(i)]);
+                }
+            }
+            return new IntIndex(min, max, null, classes);
+        }
+        // Sparse table: class of the segment with the greatest start less or equal than key
+        var starts = new int[count * 2];
+        var classes = new int[count * 2];
+        var length = 0;
+        for (var i = 0; i < count; ++i) {
+            starts[length] = keys[i];
+            classes[length++] = remap[i + 1];
+            if (i + 1 < count && (long) keys[i + 1] - keys[i] > 1) {
+                starts[length] = keys[i] + 1;
+                classes[length++] = remap[alphabet.getGapClass(i + 1)];
+            }
+        }
+        return new IntIndex(min, max, Arrays.copyOf(starts, length), Arrays.copyOf(classes, length));
+    }
+
+    int classOf(int key) {
+        if (key < min || key > max) {
+            return 0;
+        }
+        if (starts == null) {
+            return classes[key - min];
+        }
+        var index = Arrays.binarySearch(starts, key);
+        return classes[index < 0 ? -index - 2 : index];
+    }
+}
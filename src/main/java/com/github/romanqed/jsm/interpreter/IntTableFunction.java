@@ -0,0 +1,37 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.asm.TransitionFunction;
+
+class IntTableFunction<T> implements TransitionFunction<T> {
+    final int[] table;
+    final int count;
+    final int width;
+    final IntIndex index;
+    final int nullClass;
+
+    IntTableFunction(int[] table, int width, IntIndex index, int nullClass) {
+        this.table = table;
+        this.count = table.length / width;
+        this.width = width;
+        this.index = index;
+        this.nullClass = nullClass;
+    }
+
+    final int transit(int state, int key) {
+        if (Integer.compareUnsigned(state, count) >= 0) {
+            return 0;
+        }
+        return table[state * width + index.classOf(key)];
+    }
+
+    @Override
+    public int transit(int state, T token) {
+        if (token != null) {
+            return transit(state, token.hashCode());
+        }
+        if (Integer.compareUnsigned(state, count) >= 0) {
+            return 0;
+        }
+        return table[state * width + nullClass];
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.ByteStateMachine;
+import com.github.romanqed.jsm.CharStateMachine;
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.StateMachineFactory;
+import com.github.romanqed.jsm.asm.FunctionMachines;
+import com.github.romanqed.jsm.asm.TransitionFunction;
+import com.github.romanqed.jsm.model.Alphabet;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.ModelTransformer;
+
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Implementation of a finite state machine factory that interprets transition tables
+ * instead of generating bytecode.
+ * <br>
+ * The model is compiled into a dense int table indexed by state id and token class, where token classes
+ * are compressed so that tokens behaving identically in all states share one column. Integral tokens
+ * (chars, bytes, shorts and ints) are mapped to classes by a direct lookup table, or by binary search
+ * over sorted keys if the alphabet is too sparse. Other tokens are mapped by hash lookup.
+ */
+public final class InterpretedMachineFactory implements StateMachineFactory {
+    private static final int DEFAULT_DENSE_LIMIT = 4096;
+    private static final Set<Class<?>> INTEGRAL_TYPES = Set.of(
+            Character.class,
+            Byte.class,
+            Short.class,
+            Integer.class
+    );
+    private final int denseLimit;
+    private final ModelTransformer transformer;
+
+    /**
+     * Constructs {@link InterpretedMachineFactory} with the given dense limit,
+     * applying the specified transformer to models before compilation.
+     *
+     * @param denseLimit  the maximum span of integral token values for which the direct lookup table is used
+     * @param transformer the model transformer, may be null
+     */
+    public InterpretedMachineFactory(int denseLimit, ModelTransformer transformer) {
+        if (denseLimit < 0) {
+            throw new IllegalArgumentException("Dense limit must be non-negative");
+        }
+        this.denseLimit = denseLimit;
+        this.transformer = transformer;
+    }
+
+    /**
+     * Constructs {@link InterpretedMachineFactory} with the given dense limit,
+     * pruning unreachable and dead states of models before compilation.
+     *
+     * @param denseLimit the maximum span of integral token values for which the direct lookup table is used
+     */
+    public InterpretedMachineFactory(int denseLimit) {
+        this(denseLimit, MachineModels::prune);
+    }
+
+    public InterpretedMachineFactory() {
+        this(DEFAULT_DENSE_LIMIT);
+    }
+
+    private static int[] compress(int[][] rows, int[] remap) {
+        var width = Alphabet.mergeClasses(rows, remap);
+        var ret = new int[rows.length * width];
+        for (var i = 0; i < rows.length; ++i) {
+            var offset = i * width;
+            for (var j = 0; j < remap.length; ++j) {
+                ret[offset + remap[j]] = rows[i][j];
+            }
+        }
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TransitionFunction<T> compile(MachineModel<?, T> model, Object[] states) {
+        var ids = new HashMap<Object, Integer>();
+        for (var i = 0; i < states.length; ++i) {
+            ids.put(states[i], i);
+        }
+        var alphabet = Alphabet.of(model);
+        var size = alphabet.size();
+        var rows = new int[states.length][];
+        // Exit state has no transitions
+        rows[0] = new int[size];
+        rows[1] = alphabet.getTransitions(model.getInit(), ids::get, 0);
+        var modelStates = model.getStates();
+        for (var i = 2; i < states.length; ++i) {
+            rows[i] = alphabet.getTransitions(modelStates.get(states[i]), ids::get, 0);
+        }
+        var remap = new int[size];
+        var table = compress(rows, remap);
+        var width = table.length / states.length;
+        var type = model.getTokenType();
+        if (!INTEGRAL_TYPES.contains(type)) {
+            return new TableFunction<>(table, width, alphabet, remap);
+        }
+        var index = IntIndex.of(alphabet, remap, denseLimit);
+        // Null tokens are treated as zero, like in generated functions, unless the model has its own null token
+        var point = alphabet.classOf(null);
+        var nullClass = point == 0 ? index.classOf(0) : remap[point];
+        if (type == Character.class) {
+            return (TransitionFunction<T>) new CharTableFunction(table, width, index, nullClass);
+        }
+        if (type == Byte.class) {
+            return (TransitionFunction<T>) new ByteTableFunction(table, width, index, nullClass);
+        }
+        return new IntTableFunction<>(table, width, index, nullClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> StateMachine<S, T> create(MachineModel<S, T> source) {
+        var model = transformer == null ? source : transformer.transform(source);
+        var states = FunctionMachines.getStates(model);
+        var function = compile(model, states);
+        return FunctionMachines.create(function, states, FunctionMachines.getAccepting(model, states), 1, 0);
+    }
+
+    /**
+     * Creates a finite state machine specialized for char tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Character} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> CharStateMachine<S> createCharMachine(MachineModel<S, Character> model) {
+        if (model.getTokenType() != Character.class) {
+            throw new IllegalArgumentException("Char machine can be created only for char tokens");
+        }
+        return (CharStateMachine<S>) create(model);
+    }
+
+    /**
+     * Creates a finite state machine specialized for byte tokens based on the specified model.
+     *
+     * @param model specified machine model with {@link Byte} tokens, must be non-null
+     * @param <S>   state type
+     * @return created finite state machine
+     */
+    public <S> ByteStateMachine<S> createByteMachine(MachineModel<S, Byte> model) {
+        if (model.getTokenType() != Byte.class) {
+            throw new IllegalArgumentException("Byte machine can be created only for byte tokens");
+        }
+        return (ByteStateMachine<S>) create(model);
+    }
+}
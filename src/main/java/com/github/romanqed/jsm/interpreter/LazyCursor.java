@@ -0,0 +1,59 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.MachineCursor;
+
+import java.util.BitSet;
+import java.util.Set;
+
+final class LazyCursor<S, T> implements MachineCursor<Set<S>, T> {
+    private final LazyMachine<S, T> machine;
+    // The set is kept instead of the id, so the cursor survives cache flushes
+    private BitSet state;
+
+    LazyCursor(LazyMachine<S, T> machine) {
+        this.machine = machine;
+        this.state = machine.setOf(machine.getInitId());
+    }
+
+    @Override
+    public Set<S> getState() {
+        synchronized (machine) {
+            return machine.stateOf(machine.resolve(state));
+        }
+    }
+
+    @Override
+    public int getStateId() {
+        return machine.resolve(state);
+    }
+
+    @Override
+    public Set<S> step(T token) {
+        synchronized (machine) {
+            return machine.stateOf(stepId(token));
+        }
+    }
+
+    @Override
+    public int stepId(T token) {
+        synchronized (machine) {
+            var ret = machine.step(state, token);
+            this.state = machine.setOf(ret);
+            return ret;
+        }
+    }
+
+    @Override
+    public Set<S> feed(T[] tokens, int offset, int length) {
+        synchronized (machine) {
+            var ret = machine.feed(state, tokens, offset, length);
+            this.state = machine.setOf(ret);
+            return machine.stateOf(ret);
+        }
+    }
+
+    @Override
+    public void reset() {
+        this.state = machine.setOf(machine.getInitId());
+    }
+}
@@ -0,0 +1,374 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.MachineCursor;
+import com.github.romanqed.jsm.MatchBuffer;
+import com.github.romanqed.jsm.MatchMode;
+import com.github.romanqed.jsm.StateMachine;
+import com.github.romanqed.jsm.StateTrace;
+import com.github.romanqed.jsm.model.NfaSimulator;
+
+import java.util.*;
+
+/**
+ * A finite state machine running a nondeterministic model as a lazily built deterministic one.
+ * Each deterministic state is a set of model states, and it is materialized with its transition row
+ * only when a run reaches it for the first time, so only the states visited by actual inputs are built.
+ * <br>
+ * The number of cached states is limited by the memory budget. When the cache is full, it is flushed,
+ * keeping only the exit and initial states, and the run continues from its current state, which is
+ * materialized again. The machine state is the set of model states, the exit state is the empty set.
+ * <br>
+ * Raw state ids stay valid until the next flush, after which they can refer to other states, so
+ * ids kept between calls should be checked against {@link #getFlushCount()}. Cursors keep their state sets,
+ * so they survive flushes. The cache is guarded by the machine, so concurrent runs are serialized;
+ * to run in parallel, use a separate machine per thread.
+ *
+ * @param <S> state type of the model
+ * @param <T> token type
+ */
+public final class LazyMachine<S, T> implements StateMachine<Set<S>, T> {
+    private static final int EXIT = 0;
+    private static final int INIT = 1;
+    private static final int UNKNOWN = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private final NfaSimulator<S, T> simulator;
+    private final Map<S, Integer> indices;
+    private final int width;
+    private final int capacity;
+    private final Map<BitSet, Integer> ids;
+    private final LazyCursor<S, T> cursor;
+    private BitSet[] sets;
+    private int[] hashes;
+    private boolean[] accepting;
+    private Set<S>[] values;
+    private int[] table;
+    private int count;
+    private long flushes;
+
+    LazyMachine(NfaSimulator<S, T> simulator, int capacity) {
+        this.simulator = simulator;
+        this.indices = new HashMap<>();
+        for (var i = 0; i < simulator.getStateCount(); ++i) {
+            indices.put(simulator.getState(i), i);
+        }
+        this.width = simulator.getAlphabet().size();
+        this.capacity = capacity;
+        this.ids = new HashMap<>();
+        allocate(Math.min(capacity, INITIAL_CAPACITY));
+        reload();
+        this.cursor = new LazyCursor<>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int size) {
+        var length = sets == null ? 0 : sets.length;
+        sets = sets == null ? new BitSet[size] : Arrays.copyOf(sets, size);
+        hashes = hashes == null ? new int[size] : Arrays.copyOf(hashes, size);
+        accepting = accepting == null ? new boolean[size] : Arrays.copyOf(accepting, size);
+        values = values == null ? (Set<S>[]) new Set<?>[size] : Arrays.copyOf(values, size);
+        table = table == null ? new int[size * width] : Arrays.copyOf(table, size * width);
+        Arrays.fill(table, length * width, table.length, UNKNOWN);
+    }
+
+    private int add(BitSet set) {
+        if (count == sets.length) {
+            allocate(Math.min(capacity, count * 2));
+        }
+        var id = count++;
+        sets[id] = set;
+        // Unlike ids, set hashes do not depend on the order of materialization
+        hashes[id] = set.hashCode();
+        accepting[id] = simulator.isAccepting(set);
+        values[id] = null;
+        Arrays.fill(table, id * width, (id + 1) * width, id == EXIT ? EXIT : UNKNOWN);
+        ids.put(set, id);
+        return id;
+    }
+
+    // Drops all states except the exit and initial ones
+    private void reload() {
+        ids.clear();
+        count = 0;
+        add(new BitSet());
+        add(simulator.start());
+    }
+
+    private int intern(BitSet set) {
+        var ret = ids.get(set);
+        if (ret != null) {
+            return ret;
+        }
+        if (count == capacity) {
+            reload();
+            ++flushes;
+            // The set can be one of the kept states
+            ret = ids.get(set);
+            if (ret != null) {
+                return ret;
+            }
+        }
+        return add(set);
+    }
+
+    private int transit(int state, int clazz) {
+        var index = state * width + clazz;
+        var ret = table[index];
+        if (ret != UNKNOWN) {
+            return ret;
+        }
+        var next = new BitSet();
+        simulator.move(sets[state], clazz, next);
+        var flushed = flushes;
+        ret = next.isEmpty() ? EXIT : intern(next);
+        // After a flush, the source state no longer exists
+        if (flushed == flushes) {
+            table[index] = ret;
+        }
+        return ret;
+    }
+
+    private int transit(int state, T token) {
+        return transit(state, simulator.classOf(token));
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("Unknown or flushed state id: " + id);
+        }
+    }
+
+    private int feed(int state, Iterator<T> tokens) {
+        while (state != EXIT && tokens.hasNext()) {
+            state = transit(state, tokens.next());
+        }
+        return state;
+    }
+
+    synchronized BitSet setOf(int id) {
+        checkId(id);
+        return sets[id];
+    }
+
+    synchronized int resolve(BitSet set) {
+        return intern(set);
+    }
+
+    synchronized int step(BitSet set, T token) {
+        return transit(intern(set), token);
+    }
+
+    synchronized int feed(BitSet set, T[] tokens, int offset, int length) {
+        return feed(intern(set), tokens, offset, length);
+    }
+
+    /**
+     * Returns the number of states currently materialized in the cache, including the exit and initial states.
+     *
+     * @return the number of cached states
+     */
+    public synchronized int getCachedStateCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of cache flushes since the machine has been created.
+     *
+     * @return the number of flushes
+     */
+    public synchronized long getFlushCount() {
+        return flushes;
+    }
+
+    /**
+     * Returns the simulator of the nondeterministic model run by this machine.
+     *
+     * @return the {@link NfaSimulator} instance
+     */
+    public NfaSimulator<S, T> getSimulator() {
+        return simulator;
+    }
+
+    @Override
+    public synchronized Set<S> run(Iterable<T> tokens) {
+        return stateOf(feed(INIT, tokens.iterator()));
+    }
+
+    @Override
+    public synchronized Set<S> run(T[] tokens) {
+        return stateOf(feed(INIT, tokens, 0, tokens.length));
+    }
+
+    @Override
+    public Set<S> runParallel(T[] tokens) {
+        // Chunks cannot be scanned concurrently, since the cache is guarded by the machine
+        return run(tokens);
+    }
+
+    private long stamp(Iterator<T> tokens) {
+        var state = INIT;
+        var ret = 1;
+        while (tokens.hasNext()) {
+            state = transit(state, tokens.next());
+            if (state == EXIT) {
+                return -1;
+            }
+            ret = 31 * ret + hashes[state];
+        }
+        return ret;
+    }
+
+    @Override
+    public synchronized long stamp(Iterable<T> tokens) {
+        return stamp(tokens.iterator());
+    }
+
+    @Override
+    public synchronized long stamp(T[] tokens) {
+        return stamp(Arrays.asList(tokens).iterator());
+    }
+
+    @Override
+    public synchronized int runToId(Iterable<T> tokens) {
+        return feed(INIT, tokens.iterator());
+    }
+
+    /**
+     * Returns the maximum number of states in the cache. All raw state ids are less than this number.
+     *
+     * @return the capacity of the cache
+     */
+    @Override
+    public int getStateCount() {
+        return capacity;
+    }
+
+    @Override
+    public int getInitId() {
+        return INIT;
+    }
+
+    @Override
+    public int getExitId() {
+        return EXIT;
+    }
+
+    @Override
+    public synchronized Set<S> stateOf(int id) {
+        checkId(id);
+        var ret = values[id];
+        if (ret == null) {
+            var set = new LinkedHashSet<S>();
+            sets[id].stream().forEach(state -> set.add(simulator.getState(state)));
+            ret = Collections.unmodifiableSet(set);
+            values[id] = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public synchronized int idOf(Set<S> state) {
+        var set = new BitSet();
+        for (var value : state) {
+            var index = indices.get(value);
+            if (index == null) {
+                return -1;
+            }
+            set.set(index);
+        }
+        var ret = ids.get(set);
+        return ret == null ? -1 : ret;
+    }
+
+    @Override
+    public synchronized boolean isAccepting(int id) {
+        checkId(id);
+        return accepting[id];
+    }
+
+    @Override
+    public synchronized int feed(int state, T[] tokens, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        checkId(state);
+        var end = offset + length;
+        for (var i = offset; i < end && state != EXIT; ++i) {
+            state = transit(state, tokens[i]);
+        }
+        return state;
+    }
+
+    @Override
+    public synchronized int trace(int state, T[] tokens, int offset, int length, StateTrace trace) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        checkId(state);
+        var end = offset + length;
+        for (var i = offset; i < end && state != EXIT; ++i) {
+            state = transit(state, tokens[i]);
+            trace.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Finds non-overlapping occurrences of the model in the specified region of the token array.
+     * Unlike compiled machines, the search is restarted from each candidate position, so it takes
+     * quadratic time in the worst case.
+     * <br>
+     * The cache can be flushed in the middle of the search, so the state ids of found matches, like other
+     * raw ids, are valid only while {@link #getFlushCount()} stays the same as before the call.
+     * Starts and ends of matches are not affected by flushes. To get the state of a match after a flush,
+     * run the machine over its tokens.
+     */
+    @Override
+    public synchronized int findAll(T[] tokens, int offset, int length, MatchMode mode, MatchBuffer matches) {
+        Objects.checkFromIndexSize(offset, length, tokens.length);
+        var end = offset + length;
+        var found = 0;
+        var position = offset;
+        while (position < end) {
+            var state = INIT;
+            var last = -1;
+            var id = EXIT;
+            for (var i = position; i < end; ) {
+                state = transit(state, tokens[i++]);
+                if (state == EXIT) {
+                    break;
+                }
+                if (accepting[state]) {
+                    last = i;
+                    id = state;
+                    if (mode == MatchMode.LEFTMOST_FIRST) {
+                        break;
+                    }
+                }
+            }
+            if (last < 0) {
+                ++position;
+                continue;
+            }
+            matches.add(position, last, id);
+            ++found;
+            position = last;
+        }
+        return found;
+    }
+
+    @Override
+    public MachineCursor<Set<S>, T> cursor() {
+        return new LazyCursor<>(this);
+    }
+
+    @Override
+    public Set<S> getState() {
+        return cursor.getState();
+    }
+
+    @Override
+    public Set<S> step(T token) {
+        return cursor.step(token);
+    }
+
+    @Override
+    public void reset() {
+        cursor.reset();
+    }
+}
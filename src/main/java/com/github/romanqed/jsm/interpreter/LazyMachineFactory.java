@@ -0,0 +1,74 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.model.NfaModel;
+import com.github.romanqed.jsm.model.NfaSimulator;
+
+/**
+ * Factory of machines running nondeterministic models as lazily built deterministic ones.
+ * <br>
+ * Unlike {@link com.github.romanqed.jsm.model.MachineModels#determinize(NfaModel)}, no subset construction
+ * is performed up front: deterministic states are built on the first visit and kept in a cache limited
+ * by the memory budget, which is flushed when it is full. This suits models whose deterministic equivalent
+ * is too large to be built, for example, regular expressions with thousands of alternatives.
+ */
+public final class LazyMachineFactory {
+    // The same default as in RE2
+    private static final long DEFAULT_BUDGET = 8L << 20;
+    // Exit state, initial state and at least one state reached from it
+    private static final int MIN_STATES = 3;
+    private static final int STATE_OVERHEAD = 64;
+    private final long budget;
+
+    /**
+     * Constructs {@link LazyMachineFactory} with the specified memory budget of each machine cache.
+     *
+     * @param budget the approximate maximum size of the state cache of a machine in bytes, must be positive
+     */
+    public LazyMachineFactory(long budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
+        }
+        this.budget = budget;
+    }
+
+    /**
+     * Constructs {@link LazyMachineFactory} with the default memory budget of 8 MiB per machine.
+     */
+    public LazyMachineFactory() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a lazy machine based on the specified simulator. Machines created from the same simulator
+     * share the compiled model, but have separate caches.
+     *
+     * @param simulator the simulator of the nondeterministic model, must be non-null
+     * @param <S>       state type of the model
+     * @param <T>       token type
+     * @return created machine
+     * @throws IllegalArgumentException if the budget cannot hold the minimum number of states
+     */
+    public <S, T> LazyMachine<S, T> create(NfaSimulator<S, T> simulator) {
+        var width = simulator.getAlphabet().size();
+        // Transition row, state set and object headers
+        var size = 4L * width + simulator.getStateCount() / 8 + STATE_OVERHEAD;
+        var capacity = Math.min(budget / size, Integer.MAX_VALUE / width);
+        if (capacity < MIN_STATES) {
+            throw new IllegalArgumentException("Memory budget is too small for the model");
+        }
+        return new LazyMachine<>(simulator, (int) capacity);
+    }
+
+    /**
+     * Creates a lazy machine based on the specified nondeterministic model.
+     *
+     * @param model the nondeterministic model, must be non-null
+     * @param <S>   state type of the model
+     * @param <T>   token type
+     * @return created machine
+     * @throws IllegalArgumentException if the budget cannot hold the minimum number of states
+     */
+    public <S, T> LazyMachine<S, T> create(NfaModel<S, T> model) {
+        return create(new NfaSimulator<>(model));
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.romanqed.jsm.interpreter;
+
+import com.github.romanqed.jsm.asm.TransitionFunction;
+import com.github.romanqed.jsm.model.Alphabet;
+
+final class TableFunction<T> implements TransitionFunction<T> {
+    private final int[] table;
+    private final int count;
+    private final int width;
+    private final Alphabet<T> alphabet;
+    private final int[] remap;
+
+    TableFunction(int[] table, int width, Alphabet<T> alphabet, int[] remap) {
+        this.table = table;
+        this.count = table.length / width;
+        this.width = width;
+        this.alphabet = alphabet;
+        this.remap = remap;
+    }
+
+    @Override
+    public int transit(int state, T token) {
+        if (Integer.compareUnsigned(state, count) >= 0) {
+            return 0;
+        }
+        return table[state * width + remap[alphabet.classOf(token)]];
+    }
+}
@@ -0,0 +1,326 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * A class describing the partition of the token alphabet of a finite state machine model into classes.
+ * <br>
+ * Every value mentioned by the model tokens forms a separate point class, and every gap between neighbouring
+ * points covered by at least one range token forms a gap class. Class 0 contains all other values,
+ * so transitions by them are always performed by default.
+ *
+ * @param <T> token type
+ */
+public final class Alphabet<T> {
+    private final Class<T> type;
+    private final Map<T, Integer> points;
+    private final List<T> sorted;
+    private final Comparator<? super T> comparator;
+    private final int[] gaps;
+    private final int size;
+
+    private Alphabet(Class<T> type,
+                     Map<T, Integer> points,
+                     List<T> sorted,
+                     Comparator<? super T> comparator,
+                     int[] gaps,
+                     int size) {
+        this.type = type;
+        this.points = points;
+        this.sorted = sorted;
+        this.comparator = comparator;
+        this.gaps = gaps;
+        this.size = size;
+    }
+
+    private static <T> void flatten(Token<T> token, int target, List<Token<T>> tokens, List<Integer> targets) {
+        if (token instanceof UnionToken) {
+            for (var component : ((UnionToken<T>) token).getTokens()) {
+                flatten(component, target, tokens, targets);
+            }
+            return;
+        }
+        tokens.add(token);
+        targets.add(target);
+    }
+
+    /**
+     * Creates the alphabet partition for the specified model.
+     *
+     * @param model the specified model, must be non-null
+     * @param <T>   token type
+     * @return the {@link Alphabet} instance
+     */
+    public static <T> Alphabet<T> of(MachineModel<?, T> model) {
+        var collector = new PointCollector<T>();
+        collector.collect(model.getInit().getTransitions().values());
+        for (var state : model.getStates().values()) {
+            collector.collect(state.getTransitions().values());
+        }
+        return of(model.getTokenType(), collector);
+    }
+
+    /**
+     * Creates the alphabet partition for the specified nondeterministic model.
+     *
+     * @param model the specified model, must be non-null
+     * @param <S>   state type
+     * @param <T>   token type
+     * @return the {@link Alphabet} instance
+     */
+    public static <S, T> Alphabet<T> of(NfaModel<S, T> model) {
+        var collector = new PointCollector<T>();
+        for (var state : model.getStates()) {
+            collector.collect(model.getTransitions(state));
+        }
+        return of(model.getTokenType(), collector);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Alphabet<T> of(Class<T> type, PointCollector<T> collector) {
+        var values = collector.values;
+        var comparable = Comparable.class.isAssignableFrom(type);
+        var comparator = comparable ? (Comparator<? super T>) Comparator.naturalOrder() : null;
+        var sorted = new ArrayList<T>(values.size());
+        var hasNull = false;
+        for (var value : values) {
+            if (value == null) {
+                hasNull = true;
+            } else {
+                sorted.add(value);
+            }
+        }
+        if (comparable) {
+            sorted.sort(comparator);
+        }
+        // Enumerate point classes
+        var points = new HashMap<T, Integer>();
+        var count = 1;
+        for (var value : sorted) {
+            points.put(value, count++);
+        }
+        if (hasNull) {
+            points.put(null, count++);
+        }
+        // Enumerate gap classes covered by ranges
+        var gaps = new int[sorted.size() + 1];
+        for (var range : collector.ranges) {
+            var start = Collections.binarySearch(sorted, range.getStart(), comparator);
+            var end = Collections.binarySearch(sorted, range.getEnd(), comparator);
+            for (var i = start + 1; i <= end; ++i) {
+                if (gaps[i] == 0) {
+                    gaps[i] = count++;
+                }
+            }
+        }
+        return new Alphabet<>(type, points, Collections.unmodifiableList(sorted), comparator, gaps, count);
+    }
+
+    /**
+     * Returns token type as instance of {@link Class}.
+     *
+     * @return token type
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of classes in this alphabet, including the default class 0.
+     *
+     * @return the number of classes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the non-null points of this alphabet, the point with index i has class i + 1.
+     * If the token type is {@link Comparable}, the points are sorted in natural order.
+     *
+     * @return the list of points
+     */
+    public List<T> getPoints() {
+        return sorted;
+    }
+
+    /**
+     * Returns the class of the gap before the point with the specified index, that is, the class of
+     * values lying strictly between points index - 1 and index. Gaps not covered by any range have class 0.
+     *
+     * @param index the gap index, from 0 to the number of points inclusive
+     * @return the gap class
+     */
+    public int getGapClass(int index) {
+        return gaps[index];
+    }
+
+    /**
+     * Returns the class of the specified token value.
+     *
+     * @param value the token value, may be null
+     * @return the class of the value
+     */
+    public int classOf(T value) {
+        var ret = points.get(value);
+        if (ret != null) {
+            return ret;
+        }
+        if (value == null || comparator == null) {
+            return 0;
+        }
+        var index = Collections.binarySearch(sorted, value, comparator);
+        return gaps[-index - 1];
+    }
+
+    /**
+     * Calls the specified action for each class covered by the specified token.
+     *
+     * @param token  the token of the model this alphabet was created for
+     * @param action the action to be called
+     */
+    public void forEachClass(Token<T> token, IntConsumer action) {
+        if (token instanceof UnionToken) {
+            for (var component : ((UnionToken<T>) token).getTokens()) {
+                forEachClass(component, action);
+            }
+            return;
+        }
+        if (!(token instanceof RangeToken)) {
+            for (var value : token.getValues()) {
+                action.accept(classOf(value));
+            }
+            return;
+        }
+        var range = (RangeToken<T>) token;
+        var start = Collections.binarySearch(sorted, range.getStart(), comparator);
+        var end = Collections.binarySearch(sorted, range.getEnd(), comparator);
+        for (var i = start; i <= end; ++i) {
+            action.accept(i + 1);
+            if (i != start && gaps[i] != 0) {
+                action.accept(gaps[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the transitions of the specified state as an array indexed by token classes.
+     * Discrete tokens take precedence over range tokens, and classes that are not covered
+     * by any token lead to the target of the unconditional transition, or to the exit state.
+     *
+     * @param state the state of the model this alphabet was created for
+     * @param ids   the function mapping states to their ids
+     * @param exit  the id of the exit state
+     * @param <S>   state type
+     * @return the array of target ids, indexed by token classes
+     */
+    public <S> int[] getTransitions(State<S, T> state, ToIntFunction<? super S> ids, int exit) {
+        var ret = new int[size];
+        var unconditional = state.getUnconditional();
+        Arrays.fill(ret, unconditional == null ? exit : ids.applyAsInt(unconditional.getTarget()));
+        var tokens = new ArrayList<Token<T>>();
+        var targets = new ArrayList<Integer>();
+        for (var transition : state.getTransitions().values()) {
+            flatten(transition.getToken(), ids.applyAsInt(transition.getTarget()), tokens, targets);
+        }
+        // Ranges have the lowest priority, so they are applied first
+        for (var i = 0; i < tokens.size(); ++i) {
+            if (tokens.get(i) instanceof RangeToken) {
+                int target = targets.get(i);
+                forEachClass(tokens.get(i), c -> ret[c] = target);
+            }
+        }
+        for (var i = 0; i < tokens.size(); ++i) {
+            if (!(tokens.get(i) instanceof RangeToken)) {
+                int target = targets.get(i);
+                forEachClass(tokens.get(i), c -> ret[c] = target);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Merges token classes whose columns are equal in all the specified transition rows.
+     * Class 0 always stays 0.
+     *
+     * @param rows  the arrays of target ids, indexed by state ids and then by token classes, must be non-null
+     * @param remap the array to be filled with merged class ids, indexed by token classes, must be non-null
+     * @return the number of merged classes
+     */
+    public static int mergeClasses(int[][] rows, int[] remap) {
+        var columns = new HashMap<Column, Integer>();
+        for (var i = 0; i < remap.length; ++i) {
+            var column = new int[rows.length];
+            for (var j = 0; j < rows.length; ++j) {
+                column[j] = rows[j][i];
+            }
+            remap[i] = columns.computeIfAbsent(new Column(column), k -> columns.size());
+        }
+        return columns.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Alphabet{" +
+                "type=" + type +
+                ", points=" + sorted +
+                ", size=" + size +
+                '}';
+    }
+
+    private static final class PointCollector<T> implements TokenVisitor {
+        private final Set<T> values = new LinkedHashSet<>();
+        private final List<RangeToken<T>> ranges = new ArrayList<>();
+
+        void collect(Collection<? extends Transition<?, T>> transitions) {
+            for (var transition : transitions) {
+                transition.getToken().accept(this);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> void visit(SingleToken<V> token) {
+            values.add((T) token.getValue());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> void visit(RangeToken<V> token) {
+            var range = (RangeToken<T>) token;
+            values.add(range.getStart());
+            values.add(range.getEnd());
+            ranges.add(range);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> void visit(SetToken<V> token) {
+            values.addAll((Set<T>) token.getValues());
+        }
+    }
+
+    private static final class Column {
+        private final int[] values;
+        private final int hash;
+
+        private Column(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Column)) return false;
+            return Arrays.equals(values, ((Column) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
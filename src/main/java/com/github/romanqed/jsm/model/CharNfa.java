@@ -0,0 +1,71 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.*;
+
+/**
+ * A Thompson nondeterministic automaton over chars, whose conditional edges are labelled with sets of
+ * char ranges. The automaton is converted into {@link NfaModel}, so it is determinized and simulated
+ * over the token classes of its ranges, not over single chars.
+ */
+final class CharNfa {
+    // Per state: flat (low, high, target) triples, and epsilon targets
+    private final List<List<int[]>> edges = new ArrayList<>();
+    private final List<List<Integer>> epsilons = new ArrayList<>();
+
+    int addState() {
+        edges.add(new ArrayList<>());
+        epsilons.add(new ArrayList<>());
+        return edges.size() - 1;
+    }
+
+    void addEpsilon(int from, int to) {
+        epsilons.get(from).add(to);
+    }
+
+    /**
+     * Adds an edge by the specified ranges.
+     *
+     * @param from   the source state
+     * @param to     the target state
+     * @param ranges sorted disjoint inclusive ranges, as (low, high) pairs
+     */
+    void addRanges(int from, int to, int[] ranges) {
+        var list = edges.get(from);
+        for (var i = 0; i < ranges.length; i += 2) {
+            list.add(new int[]{ranges[i], ranges[i + 1], to});
+        }
+    }
+
+    private static Token<Character> createToken(int low, int high) {
+        if (low == high) {
+            return new SingleToken<>((char) low);
+        }
+        return new RangeToken<>((char) low, (char) high);
+    }
+
+    /**
+     * Converts this automaton into a nondeterministic model, where states are identified by their indices.
+     *
+     * @param start  the start state of the automaton
+     * @param accept the accepting state of the automaton
+     * @return the nondeterministic model
+     */
+    NfaModel<Integer, Character> toModel(int start, int accept) {
+        var transitions = new LinkedHashMap<Integer, List<Transition<Integer, Character>>>();
+        var targets = new HashMap<Integer, Set<Integer>>();
+        // Initial state goes first
+        transitions.put(start, null);
+        for (var i = 0; i < edges.size(); ++i) {
+            var list = new ArrayList<Transition<Integer, Character>>();
+            for (var edge : edges.get(i)) {
+                var token = createToken(edge[0], edge[1]);
+                list.add(new Transition<>(edge[2], token, TransitionType.CONDITIONAL));
+            }
+            transitions.put(i, list);
+            if (!epsilons.get(i).isEmpty()) {
+                targets.put(i, new LinkedHashSet<>(epsilons.get(i)));
+            }
+        }
+        return new NfaModel<>(Integer.class, Character.class, start, transitions, targets, Set.of(accept));
+    }
+}
@@ -2,6 +2,8 @@ package com.github.romanqed.jsm.model;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * A class describing the model of a finite state machine.
@@ -15,17 +17,30 @@ public final class MachineModel<S, T> implements Formattable {
     private final State<S, T> init;
     private final State<S, T> exit;
     private final Map<S, State<S, T>> states;
+    // Null if the model does not declare accepting states
+    private final Set<S> accepting;
+    private volatile ModelDigest digest;
 
     MachineModel(Class<S> stateType,
                  Class<T> tokenType,
                  State<S, T> init,
                  State<S, T> exit,
-                 Map<S, State<S, T>> states) {
+                 Map<S, State<S, T>> states,
+                 Set<S> accepting) {
         this.stateType = stateType;
         this.tokenType = tokenType;
         this.init = init;
         this.exit = exit;
         this.states = Collections.unmodifiableMap(states);
+        this.accepting = accepting == null ? null : Collections.unmodifiableSet(accepting);
+    }
+
+    MachineModel(Class<S> stateType,
+                 Class<T> tokenType,
+                 State<S, T> init,
+                 State<S, T> exit,
+                 Map<S, State<S, T>> states) {
+        this(stateType, tokenType, init, exit, states, null);
     }
 
     /**
@@ -73,12 +88,62 @@ public final class MachineModel<S, T> implements Formattable {
         return states;
     }
 
+    /**
+     * Returns the set of declared accepting states, or an empty set if acceptance is not declared.
+     *
+     * @return the set of declared accepting states
+     */
+    public Set<S> getAccepting() {
+        return accepting == null ? Set.of() : accepting;
+    }
+
+    /**
+     * Checks whether the model declares accepting states. A model can declare an empty set of accepting states,
+     * for example, when all of them are unreachable, and then it accepts nothing.
+     *
+     * @return true if accepting states are declared, false otherwise
+     */
+    public boolean isAcceptingDeclared() {
+        return accepting != null;
+    }
+
+    /**
+     * Checks whether the specified state is accepting. If the model does not declare
+     * accepting states, all states except the exit state are accepting.
+     *
+     * @param state the specified state value
+     * @return true if the state is accepting, false otherwise
+     */
+    public boolean isAccepting(S state) {
+        if (accepting == null) {
+            return !Objects.equals(state, exit.getValue());
+        }
+        return accepting.contains(state);
+    }
+
+    /**
+     * Returns the 256-bit fingerprint of this model, which can be used as a key for caching
+     * compiled machines. The fingerprint is calculated on the first call.
+     *
+     * @return the {@link ModelDigest} instance
+     */
+    public ModelDigest getDigest() {
+        var ret = digest;
+        if (ret == null) {
+            // Model is immutable, so concurrent calculations produce equal results
+            ret = ModelDigest.of(this);
+            digest = ret;
+        }
+        return ret;
+    }
+
     @Override
     public String toString() {
         return "MachineModel{" +
                 "init=" + init +
                 ", exit=" + exit +
                 ", states=" + states +
+                ", accepting=" + accepting +
                 '}';
     }
 
@@ -89,6 +154,20 @@ public final class MachineModel<S, T> implements Formattable {
         for (var state : states.values()) {
             builder.append(state.format());
         }
+        if (accepting == null) {
+            return builder.toString();
+        }
+        // Declared acceptance is marked even if no state accepts
+        builder.append('A');
+        // Accepting states are listed in model order, so the format does not depend on set iteration order
+        if (accepting.contains(init.getValue())) {
+            builder.append('a').append(init.getValue());
+        }
+        for (var state : states.keySet()) {
+            if (accepting.contains(state)) {
+                builder.append('a').append(state);
+            }
+        }
         return builder.toString();
     }
 }
@@ -15,6 +15,8 @@ public final class MachineModelBuilder<S, T> {
     private Map<S, Map<S, Transition<S, T>>> transitions;
     private Map<S, S> unconditionals;
     private Set<S> states;
+    // Null until the first state is marked as accepting
+    private Set<S> accepting;
     private S init;
     private S exit;
 
@@ -52,6 +54,7 @@ public final class MachineModelBuilder<S, T> {
         this.transitions = new HashMap<>();
         this.unconditionals = new HashMap<>();
         this.states = new HashSet<>();
+        this.accepting = null;
     }
 
     private void checkState(S state) {
@@ -92,6 +95,9 @@ public final class MachineModelBuilder<S, T> {
         if (Objects.equals(state, exit)) {
             throw new InvalidStateException("The initial state should be different make the exit state", state);
         }
+        if (init != null && accepting != null) {
+            this.accepting.remove(init);
+        }
         this.transitions.remove(state);
         this.transitions.put(state, new HashMap<>());
         this.init = state;
@@ -153,6 +159,42 @@ public final class MachineModelBuilder<S, T> {
         this.transitions.values().forEach(value -> value.remove(state));
         this.unconditionals.remove(state);
         this.unconditionals.values().remove(state);
+        if (accepting != null) {
+            this.accepting.remove(state);
+        }
+        return this;
+    }
+
+    /**
+     * Marks the state as accepting. If no state is marked, all states except the exit state are considered accepting.
+     * Once a state has been marked, acceptance stays declared, so removing all marks leaves a model accepting nothing.
+     *
+     * @param state the initial or an intermediate state key
+     * @return this instance of {@link MachineModelBuilder}
+     */
+    public MachineModelBuilder<S, T> addAcceptingState(S state) {
+        checkState(state);
+        if (!Objects.equals(init, state) && !states.contains(state)) {
+            throw new InvalidStateException("Required accepting state not found", state);
+        }
+        if (accepting == null) {
+            this.accepting = new HashSet<>();
+        }
+        this.accepting.add(state);
+        return this;
+    }
+
+    /**
+     * Removes the accepting mark from the state.
+     *
+     * @param state state key
+     * @return this instance of {@link MachineModelBuilder}
+     */
+    public MachineModelBuilder<S, T> removeAcceptingState(S state) {
+        checkState(state);
+        if (accepting != null) {
+            this.accepting.remove(state);
+        }
         return this;
     }
 
@@ -312,7 +354,7 @@ public final class MachineModelBuilder<S, T> {
         }
         // Process exit state
         var exit = new State<S, T>(this.exit);
-        var ret = new MachineModel<>(stateType, tokenType, init, exit, states);
+        var ret = new MachineModel<>(stateType, tokenType, init, exit, states, accepting);
         this.reset();
         return ret;
     }
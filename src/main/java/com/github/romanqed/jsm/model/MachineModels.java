@@ -0,0 +1,497 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A class containing utility methods for transforming finite state machine models.
+ */
+public final class MachineModels {
+    private static final int DETERMINIZED_EXIT = -1;
+    private MachineModels() {
+    }
+
+    private static <S, T> List<State<S, T>> enumerate(MachineModel<S, T> model) {
+        var ret = new ArrayList<State<S, T>>(model.getStates().size() + 2);
+        ret.add(model.getExit());
+        ret.add(model.getInit());
+        ret.addAll(model.getStates().values());
+        return ret;
+    }
+
+    private static int[][] tabulate(MachineModel<?, ?> model, List<? extends State<?, ?>> states) {
+        var ids = new HashMap<Object, Integer>();
+        for (var i = 0; i < states.size(); ++i) {
+            ids.put(states.get(i).getValue(), i);
+        }
+        @SuppressWarnings("unchecked")
+        var alphabet = (Alphabet<Object>) Alphabet.of(model);
+        var ret = new int[states.size()][];
+        // Exit state has no transitions
+        ret[0] = new int[alphabet.size()];
+        for (var i = 1; i < ret.length; ++i) {
+            @SuppressWarnings("unchecked")
+            var state = (State<Object, Object>) states.get(i);
+            ret[i] = alphabet.getTransitions(state, ids::get, 0);
+        }
+        return ret;
+    }
+
+    /**
+     * Computes the equivalence classes of states by Hopcroft's partition refinement.
+     *
+     * @param rows    the transition table, indexed by state id and token class
+     * @param initial the initial block of each state
+     * @param blocks  the number of initial blocks
+     * @return the array containing the block of each state
+     */
+    private static int[] refine(int[][] rows, int[] initial, int blocks) {
+        var count = rows.length;
+        var width = rows[0].length;
+        // Inverse transitions, grouped by token class and target
+        var offsets = new int[width * count + 1];
+        for (var row : rows) {
+            for (var c = 0; c < width; ++c) {
+                ++offsets[c * count + row[c] + 1];
+            }
+        }
+        for (var i = 1; i < offsets.length; ++i) {
+            offsets[i] += offsets[i - 1];
+        }
+        var sources = new int[width * count];
+        var fill = Arrays.copyOf(offsets, offsets.length - 1);
+        for (var s = 0; s < count; ++s) {
+            for (var c = 0; c < width; ++c) {
+                sources[fill[c * count + rows[s][c]]++] = s;
+            }
+        }
+        // Partition, each block occupies a contiguous segment of elements
+        var elements = new int[count];
+        var location = new int[count];
+        var block = new int[count];
+        var first = new int[count];
+        var past = new int[count];
+        var marked = new int[count];
+        var sizes = new int[blocks];
+        for (var s = 0; s < count; ++s) {
+            ++sizes[initial[s]];
+        }
+        for (var b = 1; b < blocks; ++b) {
+            first[b] = first[b - 1] + sizes[b - 1];
+        }
+        for (var b = 0; b < blocks; ++b) {
+            past[b] = first[b];
+        }
+        for (var s = 0; s < count; ++s) {
+            var b = initial[s];
+            elements[past[b]] = s;
+            location[s] = past[b]++;
+            block[s] = b;
+        }
+        var pending = new boolean[count];
+        var work = new ArrayDeque<Integer>();
+        for (var b = 0; b < blocks; ++b) {
+            pending[b] = true;
+            work.add(b);
+        }
+        var touched = new ArrayList<Integer>();
+        while (!work.isEmpty()) {
+            int splitter = work.poll();
+            pending[splitter] = false;
+            var targets = Arrays.copyOfRange(elements, first[splitter], past[splitter]);
+            for (var c = 0; c < width; ++c) {
+                // Move predecessors to the beginning of their blocks
+                for (var target : targets) {
+                    var index = c * count + target;
+                    for (var i = offsets[index]; i < offsets[index + 1]; ++i) {
+                        var s = sources[i];
+                        var b = block[s];
+                        if (marked[b] == 0) {
+                            touched.add(b);
+                        }
+                        var position = first[b] + marked[b]++;
+                        var other = elements[position];
+                        elements[location[s]] = other;
+                        location[other] = location[s];
+                        elements[position] = s;
+                        location[s] = position;
+                    }
+                }
+                // Split touched blocks into marked and unmarked parts
+                for (var b : touched) {
+                    var size = marked[b];
+                    marked[b] = 0;
+                    if (size == past[b] - first[b]) {
+                        continue;
+                    }
+                    var created = blocks++;
+                    first[created] = first[b];
+                    past[created] = first[b] + size;
+                    first[b] = past[created];
+                    for (var i = first[created]; i < past[created]; ++i) {
+                        block[elements[i]] = created;
+                    }
+                    if (pending[b] || size <= past[b] - first[b]) {
+                        pending[created] = true;
+                        work.add(created);
+                    } else {
+                        pending[b] = true;
+                        work.add(b);
+                    }
+                }
+                touched.clear();
+            }
+        }
+        return block;
+    }
+
+    private static List<List<Integer>> link(MachineModel<?, ?> model, List<? extends State<?, ?>> states) {
+        var ids = new HashMap<Object, Integer>();
+        for (var i = 0; i < states.size(); ++i) {
+            ids.put(states.get(i).getValue(), i);
+        }
+        var ret = new ArrayList<List<Integer>>(states.size());
+        for (var state : states) {
+            var successors = new ArrayList<Integer>();
+            for (var transition : state.getTransitions().values()) {
+                successors.add(ids.get(transition.getTarget()));
+            }
+            var unconditional = state.getUnconditional();
+            if (unconditional != null) {
+                successors.add(ids.get(unconditional.getTarget()));
+            }
+            ret.add(successors);
+        }
+        return ret;
+    }
+
+    private static boolean[] search(List<List<Integer>> edges, boolean[] marked) {
+        var stack = new ArrayDeque<Integer>();
+        for (var i = 0; i < marked.length; ++i) {
+            if (marked[i]) {
+                stack.push(i);
+            }
+        }
+        while (!stack.isEmpty()) {
+            for (var next : edges.get(stack.pop())) {
+                if (!marked[next]) {
+                    marked[next] = true;
+                    stack.push(next);
+                }
+            }
+        }
+        return marked;
+    }
+
+    private static <T> Token<T> merge(List<Token<T>> tokens) {
+        if (tokens.size() == 1) {
+            return tokens.get(0);
+        }
+        var discrete = true;
+        for (var token : tokens) {
+            if (token instanceof RangeToken || token instanceof UnionToken) {
+                discrete = false;
+                break;
+            }
+        }
+        if (discrete) {
+            var values = new LinkedHashSet<T>();
+            for (var token : tokens) {
+                token.getValues().forEach(values::add);
+            }
+            return new SetToken<>(values);
+        }
+        var components = new ArrayList<Token<T>>();
+        for (var token : tokens) {
+            if (token instanceof UnionToken) {
+                components.addAll(((UnionToken<T>) token).getTokens());
+            } else {
+                components.add(token);
+            }
+        }
+        return new UnionToken<>(components);
+    }
+
+    private static <S, T> State<S, T> rebuild(State<S, T> state, Function<S, S> representatives, S exit) {
+        var tokens = new LinkedHashMap<S, List<Token<T>>>();
+        for (var transition : state.getTransitions().values()) {
+            var target = representatives.apply(transition.getTarget());
+            tokens.computeIfAbsent(target, k -> new ArrayList<>()).add(transition.getToken());
+        }
+        var transitions = new LinkedHashMap<S, Transition<S, T>>();
+        tokens.forEach((target, list) -> transitions.put(
+                target,
+                new Transition<>(target, merge(list), TransitionType.CONDITIONAL)
+        ));
+        var unconditional = state.getUnconditional();
+        if (unconditional != null) {
+            var target = representatives.apply(unconditional.getTarget());
+            // Unconditional transition to the exit state is the default behaviour
+            unconditional = Objects.equals(target, exit) ?
+                    null
+                    : new Transition<>(target, null, TransitionType.UNCONDITIONAL);
+        }
+        return new State<>(state.getValue(), transitions, unconditional);
+    }
+
+    private static <S, T> MachineModel<S, T> create(MachineModel<S, T> model,
+                                                    State<S, T> init,
+                                                    Map<S, State<S, T>> states) {
+        // Acceptance stays declared even if no accepting state is left
+        var accepting = model.isAcceptingDeclared() ? new HashSet<S>() : null;
+        for (var state : model.getAccepting()) {
+            if (states.containsKey(state) || Objects.equals(init.getValue(), state)) {
+                accepting.add(state);
+            }
+        }
+        return new MachineModel<>(
+                model.getStateType(),
+                model.getTokenType(),
+                init,
+                model.getExit(),
+                states,
+                accepting
+        );
+    }
+
+    /**
+     * Minimizes the specified model by merging equivalent states. States are equivalent if they
+     * have the same acceptance and class and lead to equivalent states for every token.
+     * <br>
+     * The initial and exit states are never merged with other states. Each group of equivalent
+     * states is replaced by its first state in model order, and transitions leading to the same
+     * state are merged into one.
+     *
+     * @param model      the specified model, must be non-null
+     * @param classifier the function returning the class of a state, states of different classes
+     *                   are never merged
+     * @param <S>        state type
+     * @param <T>        token type
+     * @return the minimized model
+     */
+    public static <S, T> MachineModel<S, T> minimize(MachineModel<S, T> model, Function<? super S, ?> classifier) {
+        Objects.requireNonNull(classifier);
+        var states = enumerate(model);
+        var count = states.size();
+        // Exit and init states occupy separate blocks
+        var initial = new int[count];
+        initial[1] = 1;
+        var classes = new HashMap<List<Object>, Integer>();
+        for (var i = 2; i < count; ++i) {
+            var value = states.get(i).getValue();
+            var key = Arrays.asList(model.isAccepting(value), classifier.apply(value));
+            initial[i] = classes.computeIfAbsent(key, k -> classes.size() + 2);
+        }
+        var blocks = refine(tabulate(model, states), initial, classes.size() + 2);
+        // The first state of each block becomes its representative
+        var chosen = new HashMap<Integer, S>();
+        var representatives = new HashMap<S, S>();
+        for (var i = 0; i < count; ++i) {
+            var value = states.get(i).getValue();
+            representatives.put(value, chosen.computeIfAbsent(blocks[i], k -> value));
+        }
+        if (chosen.size() == count) {
+            return model;
+        }
+        var minimized = new LinkedHashMap<S, State<S, T>>();
+        for (var i = 2; i < count; ++i) {
+            var state = states.get(i);
+            var value = state.getValue();
+            if (Objects.equals(representatives.get(value), value)) {
+                minimized.put(value, rebuild(state, representatives::get, model.getExit().getValue()));
+            }
+        }
+        return create(model, rebuild(model.getInit(), representatives::get, model.getExit().getValue()), minimized);
+    }
+
+    /**
+     * Minimizes the specified model by merging equivalent states. States are equivalent if they
+     * have the same acceptance and lead to equivalent states for every token.
+     *
+     * @param model the specified model, must be non-null
+     * @param <S>   state type
+     * @param <T>   token type
+     * @return the minimized model
+     * @see #minimize(MachineModel, Function)
+     */
+    public static <S, T> MachineModel<S, T> minimize(MachineModel<S, T> model) {
+        return minimize(model, state -> null);
+    }
+
+    /**
+     * Removes the states that are unreachable from the initial state, and folds dead states into the exit state.
+     * A state is dead if it is not accepting and no accepting state is reachable from it, so any transition to
+     * it is replaced by a transition to the exit state, and the machine stops as soon as acceptance becomes impossible.
+     * If the model does not declare accepting states, only unreachable states are removed.
+     *
+     * @param model the specified model, must be non-null
+     * @param <S>   state type
+     * @param <T>   token type
+     * @return the pruned model, or the specified model if there is nothing to prune
+     */
+    public static <S, T> MachineModel<S, T> prune(MachineModel<S, T> model) {
+        var states = enumerate(model);
+        var count = states.size();
+        var edges = link(model, states);
+        var reachable = new boolean[count];
+        reachable[1] = true;
+        search(edges, reachable);
+        // Live states are found by backward search from accepting states
+        var reversed = new ArrayList<List<Integer>>(count);
+        for (var i = 0; i < count; ++i) {
+            reversed.add(new ArrayList<>());
+        }
+        for (var i = 0; i < count; ++i) {
+            for (var next : edges.get(i)) {
+                reversed.get(next).add(i);
+            }
+        }
+        var live = new boolean[count];
+        for (var i = 1; i < count; ++i) {
+            live[i] = model.isAccepting(states.get(i).getValue());
+        }
+        search(reversed, live);
+        var exit = model.getExit().getValue();
+        var representatives = new HashMap<S, S>();
+        var pruned = false;
+        for (var i = 0; i < count; ++i) {
+            var value = states.get(i).getValue();
+            var kept = i == 0 || (reachable[i] && live[i]);
+            representatives.put(value, kept ? value : exit);
+            pruned |= !kept;
+        }
+        if (!pruned) {
+            return model;
+        }
+        var ret = new LinkedHashMap<S, State<S, T>>();
+        for (var i = 2; i < count; ++i) {
+            var state = states.get(i);
+            var value = state.getValue();
+            if (Objects.equals(representatives.get(value), value)) {
+                ret.put(value, rebuild(state, representatives::get, exit));
+            }
+        }
+        // The initial state is kept even if it is dead, but then it leads to the exit state by any token
+        var init = live[1] ?
+                rebuild(model.getInit(), representatives::get, exit)
+                : new State<S, T>(model.getInit().getValue());
+        return create(model, init, ret);
+    }
+
+    private static <T> Token<T> join(List<Token<T>> ranges, Set<T> values) {
+        var components = new ArrayList<>(ranges);
+        if (values.size() == 1) {
+            components.add(new SingleToken<>(values.iterator().next()));
+        } else if (!values.isEmpty()) {
+            components.add(new SetToken<>(values));
+        }
+        return components.size() == 1 ? components.get(0) : new UnionToken<>(components);
+    }
+
+    private static <T> State<Integer, T> createState(int id, int[] row, Alphabet<T> alphabet) {
+        var points = alphabet.getPoints();
+        var ranges = new LinkedHashMap<Integer, List<Token<T>>>();
+        var covered = new boolean[points.size()];
+        // Runs of gaps leading to the same target become ranges including the surrounding points
+        for (var gap = 1; gap < points.size(); ) {
+            var clazz = alphabet.getGapClass(gap);
+            var target = clazz == 0 ? DETERMINIZED_EXIT : row[clazz];
+            if (target == DETERMINIZED_EXIT) {
+                ++gap;
+                continue;
+            }
+            var end = gap + 1;
+            while (end < points.size() && alphabet.getGapClass(end) != 0 && row[alphabet.getGapClass(end)] == target) {
+                ++end;
+            }
+            ranges.computeIfAbsent(target, k -> new ArrayList<>())
+                    .add(new RangeToken<>(points.get(gap - 1), points.get(end - 1)));
+            Arrays.fill(covered, gap - 1, end, true);
+            gap = end;
+        }
+        // Points take precedence over ranges, so the covered ones are always listed, even if they lead to exit
+        var values = new LinkedHashMap<Integer, Set<T>>();
+        for (var i = 0; i < points.size(); ++i) {
+            var target = row[i + 1];
+            if (target != DETERMINIZED_EXIT || covered[i]) {
+                values.computeIfAbsent(target, k -> new LinkedHashSet<>()).add(points.get(i));
+            }
+        }
+        var nil = alphabet.classOf(null);
+        if (nil != 0 && row[nil] != DETERMINIZED_EXIT) {
+            values.computeIfAbsent(row[nil], k -> new LinkedHashSet<>()).add(null);
+        }
+        var targets = new LinkedHashSet<>(ranges.keySet());
+        targets.addAll(values.keySet());
+        var transitions = new LinkedHashMap<Integer, Transition<Integer, T>>();
+        for (var target : targets) {
+            var token = join(ranges.getOrDefault(target, List.of()), values.getOrDefault(target, Set.of()));
+            transitions.put(target, new Transition<>(target, token, TransitionType.CONDITIONAL));
+        }
+        return new State<>(id, transitions, null);
+    }
+
+    /**
+     * Converts the specified nondeterministic model into an equivalent deterministic one by subset construction.
+     * Each state of the resulting model corresponds to a set of states of the specified model, that is reachable
+     * from its initial state. The initial state has id 0, the exit state, corresponding to the empty set,
+     * has id -1, and other states are numbered from 1 in the order of their discovery.
+     * <br>
+     * The number of states of the resulting model can grow exponentially, so it can be minimized afterward.
+     * Accepting states are always declared, so a model without reachable accepting states accepts nothing.
+     *
+     * @param model the specified model, must be non-null
+     * @param <S>   state type of the specified model
+     * @param <T>   token type
+     * @return the deterministic model
+     */
+    public static <S, T> MachineModel<Integer, T> determinize(NfaModel<S, T> model) {
+        var simulator = new NfaSimulator<>(model);
+        var alphabet = simulator.getAlphabet();
+        var width = alphabet.size();
+        var sets = new ArrayList<BitSet>();
+        var ids = new HashMap<BitSet, Integer>();
+        var start = simulator.start();
+        sets.add(start);
+        ids.put(start, 0);
+        var rows = new ArrayList<int[]>();
+        for (var i = 0; i < sets.size(); ++i) {
+            var set = sets.get(i);
+            // Class 0 is not covered by any token, so it always leads to exit
+            var row = new int[width];
+            row[0] = DETERMINIZED_EXIT;
+            for (var c = 1; c < width; ++c) {
+                var next = new BitSet();
+                simulator.move(set, c, next);
+                if (next.isEmpty()) {
+                    row[c] = DETERMINIZED_EXIT;
+                    continue;
+                }
+                row[c] = ids.computeIfAbsent(next, key -> {
+                    sets.add(key);
+                    return sets.size() - 1;
+                });
+            }
+            rows.add(row);
+        }
+        var states = new LinkedHashMap<Integer, State<Integer, T>>();
+        // The set is declared even if it stays empty, otherwise every state would accept
+        var accepting = new HashSet<Integer>();
+        for (var i = 0; i < rows.size(); ++i) {
+            if (simulator.isAccepting(sets.get(i))) {
+                accepting.add(i);
+            }
+            if (i != 0) {
+                states.put(i, createState(i, rows.get(i), alphabet));
+            }
+        }
+        return new MachineModel<>(
+                Integer.class,
+                model.getTokenType(),
+                createState(0, rows.get(0), alphabet),
+                new State<>(DETERMINIZED_EXIT),
+                states,
+                accepting
+        );
+    }
+}
@@ -0,0 +1,250 @@
+package com.github.romanqed.jsm.model;
+
+import com.github.romanqed.jfunc.Exceptions;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A class describing the 256-bit fingerprint of a finite state machine model.
+ * <br>
+ * The fingerprint is the SHA-256 digest of an unambiguous encoding of the model: state and token types,
+ * states with their transitions in model order, and accepting states. Transition targets and accepting states
+ * are represented by their indices in model order: the exit state, the initial state, then intermediate states,
+ * so models differing only in states with equal strings never share a fingerprint. Like in
+ * {@link MachineModel#format()}, state labels and token values are represented by their strings, but each element
+ * is tagged and length-prefixed, so distinct formats never produce the same encoding. The model is fed to
+ * the digest directly, without building its format string.
+ */
+public final class ModelDigest {
+    private static final String ALGORITHM = "SHA-256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final byte[] bytes;
+
+    private ModelDigest(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Calculates the fingerprint of the specified model.
+     *
+     * @param model the specified model, must be non-null
+     * @return the {@link ModelDigest} instance
+     */
+    public static ModelDigest of(MachineModel<?, ?> model) {
+        var encoder = new Encoder();
+        encoder.encode(model);
+        return new ModelDigest(encoder.finish());
+    }
+
+    /**
+     * Returns the bytes of this fingerprint.
+     *
+     * @return the copy of fingerprint bytes
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Returns this fingerprint as a lowercase hexadecimal string.
+     *
+     * @return the hexadecimal string, consisting of 64 characters
+     */
+    public String toHex() {
+        var ret = new char[bytes.length * 2];
+        for (var i = 0; i < bytes.length; ++i) {
+            ret[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            ret[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(ret);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ModelDigest)) return false;
+        var that = (ModelDigest) o;
+        return Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        // Digest bytes are uniformly distributed, so the first four are enough
+        return (bytes[0] << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    private static final class Encoder implements TokenVisitor {
+        // Tags separating encoded elements, so that different models cannot produce the same stream
+        private static final byte TYPE = 1;
+        private static final byte STATE = 2;
+        private static final byte TRANSITION = 3;
+        private static final byte UNCONDITIONAL = 4;
+        private static final byte SINGLE = 5;
+        private static final byte RANGE = 6;
+        private static final byte SET = 7;
+        private static final byte UNION = 8;
+        private static final byte ACCEPTING = 9;
+        private static final byte END = 10;
+        private static final byte NULL = 11;
+        private static final byte VALUE = 12;
+        private static final byte DECLARED = 13;
+        private final MessageDigest digest = Exceptions.silent(() -> MessageDigest.getInstance(ALGORITHM));
+        private final byte[] buffer = new byte[512];
+        private int position;
+
+        private void flush() {
+            digest.update(buffer, 0, position);
+            position = 0;
+        }
+
+        private void put(byte value) {
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = value;
+        }
+
+        private void putInt(int value) {
+            put((byte) (value >>> 24));
+            put((byte) (value >>> 16));
+            put((byte) (value >>> 8));
+            put((byte) value);
+        }
+
+        private void putString(String value) {
+            var length = value.length();
+            putInt(length);
+            for (var i = 0; i < length; ++i) {
+                var c = value.charAt(i);
+                put((byte) (c >>> 8));
+                put((byte) c);
+            }
+        }
+
+        private void putValue(Object value) {
+            if (value == null) {
+                put(NULL);
+                return;
+            }
+            put(VALUE);
+            putString(value.toString());
+        }
+
+        void encode(MachineModel<?, ?> model) {
+            put(TYPE);
+            putString(model.getStateType().getName());
+            putString(model.getTokenType().getName());
+            // Targets are encoded by indices, since different states can have equal strings
+            var states = model.getStates();
+            var indices = new HashMap<Object, Integer>();
+            indices.put(model.getExit().getValue(), 0);
+            indices.put(model.getInit().getValue(), 1);
+            for (var state : states.keySet()) {
+                indices.put(state, indices.size());
+            }
+            encode(model.getExit(), indices);
+            encode(model.getInit(), indices);
+            putInt(states.size());
+            for (var state : states.values()) {
+                encode(state, indices);
+            }
+            // Accepting states are listed in model order, so the digest does not depend on set iteration order
+            if (!model.isAcceptingDeclared()) {
+                return;
+            }
+            put(DECLARED);
+            var accepting = model.getAccepting();
+            if (accepting.contains(model.getInit().getValue())) {
+                put(ACCEPTING);
+                putInt(1);
+            }
+            for (var state : states.keySet()) {
+                if (accepting.contains(state)) {
+                    put(ACCEPTING);
+                    putInt(indices.get(state));
+                }
+            }
+        }
+
+        private void putTarget(Object target, Map<Object, Integer> indices) {
+            var index = indices.get(target);
+            if (index == null) {
+                // Targets outside the model can be distinguished only by their strings
+                putValue(target);
+                return;
+            }
+            putInt(index);
+        }
+
+        private void encode(State<?, ?> state, Map<Object, Integer> indices) {
+            put(STATE);
+            putValue(state.getValue());
+            for (var transition : state.getTransitions().values()) {
+                put(TRANSITION);
+                putTarget(transition.getTarget(), indices);
+                transition.getToken().accept(this);
+            }
+            var unconditional = state.getUnconditional();
+            if (unconditional != null) {
+                put(UNCONDITIONAL);
+                putTarget(unconditional.getTarget(), indices);
+            }
+            put(END);
+        }
+
+        byte[] finish() {
+            flush();
+            return digest.digest();
+        }
+
+        @Override
+        public <V> void visit(SingleToken<V> token) {
+            put(SINGLE);
+            putValue(token.getValue());
+        }
+
+        @Override
+        public <V> void visit(RangeToken<V> token) {
+            put(RANGE);
+            putValue(token.getStart());
+            putValue(token.getEnd());
+        }
+
+        @Override
+        public <V> void visit(SetToken<V> token) {
+            // Set iteration order may differ between runs, so values are encoded in sorted order
+            var values = token.getValues();
+            var formatted = new ArrayList<String>(values.size());
+            for (var value : values) {
+                formatted.add(Objects.toString(value));
+            }
+            Collections.sort(formatted);
+            put(SET);
+            putInt(formatted.size());
+            for (var value : formatted) {
+                putString(value);
+            }
+        }
+
+        @Override
+        public <V> void visit(UnionToken<V> token) {
+            var tokens = token.getTokens();
+            put(UNION);
+            putInt(tokens.size());
+            for (var component : tokens) {
+                component.accept(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.Objects;
+
+/**
+ * An interface describing a transformation of a finite state machine model, for example, an optimization pass.
+ * Since the transformation method is generic, implementations can be specified by method references,
+ * for example, {@code MachineModels::minimize}.
+ */
+public interface ModelTransformer {
+
+    /**
+     * Transforms the specified model.
+     *
+     * @param model the specified model, must be non-null
+     * @param <S>   state type
+     * @param <T>   token type
+     * @return the transformed model
+     */
+    <S, T> MachineModel<S, T> transform(MachineModel<S, T> model);
+
+    /**
+     * Returns a transformer that applies this transformer and then the specified one.
+     *
+     * @param next the transformer to be applied after this one, must be non-null
+     * @return the composed transformer
+     */
+    default ModelTransformer andThen(ModelTransformer next) {
+        Objects.requireNonNull(next);
+        var self = this;
+        return new ModelTransformer() {
+            @Override
+            public <S, T> MachineModel<S, T> transform(MachineModel<S, T> model) {
+                return next.transform(self.transform(model));
+            }
+        };
+    }
+}
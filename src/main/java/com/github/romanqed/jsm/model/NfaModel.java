@@ -0,0 +1,126 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A class describing the model of a nondeterministic finite state machine.
+ * <br>
+ * Unlike {@link MachineModel}, a state can have several transitions by the same token to different targets,
+ * and epsilon transitions, which are performed without consuming tokens. There is no exit state: the machine
+ * fails when the set of its current states becomes empty. The model can be converted into a deterministic one
+ * by {@link MachineModels#determinize(NfaModel)}, or simulated directly by {@link NfaSimulator}.
+ *
+ * @param <S> state type
+ * @param <T> token type
+ */
+public final class NfaModel<S, T> {
+    private final Class<S> stateType;
+    private final Class<T> tokenType;
+    private final S init;
+    private final Map<S, List<Transition<S, T>>> transitions;
+    private final Map<S, Set<S>> epsilons;
+    private final Set<S> accepting;
+
+    NfaModel(Class<S> stateType,
+             Class<T> tokenType,
+             S init,
+             Map<S, List<Transition<S, T>>> transitions,
+             Map<S, Set<S>> epsilons,
+             Set<S> accepting) {
+        this.stateType = stateType;
+        this.tokenType = tokenType;
+        this.init = init;
+        this.transitions = Collections.unmodifiableMap(transitions);
+        this.epsilons = Collections.unmodifiableMap(epsilons);
+        this.accepting = Collections.unmodifiableSet(accepting);
+    }
+
+    /**
+     * Returns state type as instance of {@link Class}.
+     *
+     * @return state type
+     */
+    public Class<S> getStateType() {
+        return stateType;
+    }
+
+    /**
+     * Returns token type as instance of {@link Class}.
+     *
+     * @return token type
+     */
+    public Class<T> getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * Returns the initial state of the finite state machine.
+     *
+     * @return the initial state
+     */
+    public S getInit() {
+        return init;
+    }
+
+    /**
+     * Returns all states of the finite state machine in the order of their declaration,
+     * starting with the initial state.
+     *
+     * @return the set of states
+     */
+    public Set<S> getStates() {
+        return transitions.keySet();
+    }
+
+    /**
+     * Returns the conditional transitions of the specified state in the order of their declaration.
+     *
+     * @param state the specified state value
+     * @return the list of transitions, or an empty list if the state is unknown
+     */
+    public List<Transition<S, T>> getTransitions(S state) {
+        return transitions.getOrDefault(state, List.of());
+    }
+
+    /**
+     * Returns the targets of epsilon transitions of the specified state.
+     *
+     * @param state the specified state value
+     * @return the set of targets, or an empty set if the state is unknown
+     */
+    public Set<S> getEpsilons(S state) {
+        return epsilons.getOrDefault(state, Set.of());
+    }
+
+    /**
+     * Returns the set of accepting states.
+     *
+     * @return the set of accepting states
+     */
+    public Set<S> getAccepting() {
+        return accepting;
+    }
+
+    /**
+     * Checks whether the specified state is accepting.
+     *
+     * @param state the specified state value
+     * @return true if the state is accepting, false otherwise
+     */
+    public boolean isAccepting(S state) {
+        return accepting.contains(state);
+    }
+
+    @Override
+    public String toString() {
+        return "NfaModel{" +
+                "init=" + init +
+                ", transitions=" + transitions +
+                ", epsilons=" + epsilons +
+                ", accepting=" + accepting +
+                '}';
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.*;
+
+/**
+ * A class representing a builder for a nondeterministic finite state machine model.
+ * <br>
+ * Unlike {@link MachineModelBuilder}, transitions are not keyed by their targets: every added
+ * transition is kept, even if another transition by the same token already exists.
+ *
+ * @param <S> state type
+ * @param <T> token type
+ */
+public final class NfaModelBuilder<S, T> {
+    private final Class<S> stateType;
+    private final Class<T> tokenType;
+    private Map<S, List<Transition<S, T>>> transitions;
+    private Map<S, Set<S>> epsilons;
+    private Set<S> accepting;
+    private S init;
+
+    public NfaModelBuilder(Class<S> stateType, Class<T> tokenType) {
+        this.stateType = Objects.requireNonNull(stateType);
+        this.tokenType = Objects.requireNonNull(tokenType);
+        this.reset();
+    }
+
+    /**
+     * Creates a builder with the specified types.
+     *
+     * @param stateType {@link Class} instance, contains state type
+     * @param tokenType {@link Class} instance, contains token type
+     * @param <K>       state type
+     * @param <V>       token type
+     * @return instance of {@link NfaModelBuilder}
+     */
+    public static <K, V> NfaModelBuilder<K, V> create(Class<K> stateType, Class<V> tokenType) {
+        return new NfaModelBuilder<>(stateType, tokenType);
+    }
+
+    private void reset() {
+        this.init = null;
+        this.transitions = new LinkedHashMap<>();
+        this.epsilons = new HashMap<>();
+        this.accepting = new HashSet<>();
+    }
+
+    private void checkState(S state) {
+        Objects.requireNonNull(state);
+        if (!stateType.isAssignableFrom(state.getClass())) {
+            throw new InvalidStateException("The class of the state object is not equal to the expected class", state);
+        }
+    }
+
+    private void checkExists(S state) {
+        checkState(state);
+        if (!transitions.containsKey(state)) {
+            throw new InvalidStateException("Required state not found", state);
+        }
+    }
+
+    /**
+     * Sets the initial state of the finite state machine, adding it if it does not exist.
+     *
+     * @param state the initial state key
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    public NfaModelBuilder<S, T> setInitState(S state) {
+        addState(state);
+        this.init = state;
+        return this;
+    }
+
+    /**
+     * Adds a new state to the finite state machine. Adding an existing state does nothing.
+     *
+     * @param state state key
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    public NfaModelBuilder<S, T> addState(S state) {
+        checkState(state);
+        transitions.putIfAbsent(state, new ArrayList<>());
+        return this;
+    }
+
+    /**
+     * Marks the specified existing state as accepting.
+     *
+     * @param state state key
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    public NfaModelBuilder<S, T> addAcceptingState(S state) {
+        checkExists(state);
+        accepting.add(state);
+        return this;
+    }
+
+    private void addConditionalTransition(S from, S to, Token<T> token) {
+        checkExists(from);
+        checkExists(to);
+        transitions.get(from).add(new Transition<>(to, token, TransitionType.CONDITIONAL));
+    }
+
+    /**
+     * Adds a new conditional transition to the finite state machine.
+     *
+     * @param from   source state key
+     * @param to     target state key
+     * @param tokens token values
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    @SafeVarargs
+    public final NfaModelBuilder<S, T> addTransition(S from, S to, T... tokens) {
+        if (tokens == null) {
+            addConditionalTransition(from, to, new SingleToken<>(null));
+            return this;
+        }
+        if (!tokenType.isAssignableFrom(tokens.getClass().getComponentType())) {
+            throw new IllegalArgumentException("The class of the token object is not equal to the expected class");
+        }
+        var set = Set.of(tokens);
+        var token = set.size() == 1 ?
+                new SingleToken<>(set.iterator().next())
+                : new SetToken<>(set);
+        addConditionalTransition(from, to, token);
+        return this;
+    }
+
+    /**
+     * Adds a new conditional transition by range to the finite state machine.
+     *
+     * @param from  source state key
+     * @param to    target state key
+     * @param start start range value
+     * @param end   end range value
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    @SuppressWarnings("unchecked")
+    public NfaModelBuilder<S, T> addRangeTransition(S from, S to, T start, T end) {
+        if (start == null || end == null) {
+            throw new IllegalStateException("Range boundaries must be not null");
+        }
+        if (tokenType == Boolean.class || !Comparable.class.isAssignableFrom(tokenType)) {
+            throw new IllegalStateException("Only values of comparable types can participate in range checks");
+        }
+        if (((Comparable<Object>) start).compareTo(end) >= 0) {
+            throw new IllegalArgumentException("Left range boundary must be less than right");
+        }
+        addConditionalTransition(from, to, new RangeToken<>(start, end));
+        return this;
+    }
+
+    /**
+     * Adds a new epsilon transition, which is performed without consuming tokens.
+     *
+     * @param from source state key
+     * @param to   target state key
+     * @return this instance of {@link NfaModelBuilder}
+     */
+    public NfaModelBuilder<S, T> addEpsilonTransition(S from, S to) {
+        checkExists(from);
+        checkExists(to);
+        epsilons.computeIfAbsent(from, k -> new LinkedHashSet<>()).add(to);
+        return this;
+    }
+
+    /**
+     * Completes the build of the nondeterministic finite state machine model and returns the result.
+     *
+     * @return built a nondeterministic finite state machine model
+     */
+    public NfaModel<S, T> build() {
+        Objects.requireNonNull(init);
+        // Initial state goes first
+        var states = new LinkedHashMap<S, List<Transition<S, T>>>();
+        states.put(init, List.copyOf(transitions.get(init)));
+        transitions.forEach((state, list) -> states.putIfAbsent(state, List.copyOf(list)));
+        var ret = new NfaModel<>(stateType, tokenType, init, states, epsilons, accepting);
+        this.reset();
+        return ret;
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.romanqed.jsm.model;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+/**
+ * A class simulating a nondeterministic finite state machine model on sets of states, represented by bit sets
+ * of state ids. The initial state has id 0, and other states are numbered in the order of the model.
+ * <br>
+ * Epsilon closures are computed once, and the targets of every state and token class already contain
+ * their closures, so each step is a union of precomputed sets. Instances are immutable and thread-safe.
+ *
+ * @param <S> state type
+ * @param <T> token type
+ */
+public final class NfaSimulator<S, T> {
+    private static final int[] EMPTY = new int[0];
+    private final NfaModel<S, T> model;
+    private final Alphabet<T> alphabet;
+    private final S[] states;
+    // Per state: sorted token classes, offsets of their targets, and closed targets
+    private final int[][] classes;
+    private final int[][] offsets;
+    private final int[][] targets;
+    private final BitSet accepting;
+    private final BitSet start;
+
+    /**
+     * Constructs {@link NfaSimulator} for the specified model.
+     *
+     * @param model the nondeterministic model, must be non-null
+     */
+    @SuppressWarnings("unchecked")
+    public NfaSimulator(NfaModel<S, T> model) {
+        this.model = Objects.requireNonNull(model);
+        this.alphabet = Alphabet.of(model);
+        var values = model.getStates();
+        var count = values.size();
+        this.states = values.toArray((S[]) Array.newInstance(model.getStateType(), count));
+        var ids = new HashMap<S, Integer>();
+        for (var i = 0; i < count; ++i) {
+            ids.put(states[i], i);
+        }
+        var closures = close(model, ids);
+        this.classes = new int[count][];
+        this.offsets = new int[count][];
+        this.targets = new int[count][];
+        this.accepting = new BitSet(count);
+        var buffer = new BitSet(count);
+        for (var i = 0; i < count; ++i) {
+            if (model.isAccepting(states[i])) {
+                accepting.set(i);
+            }
+            // Raw targets grouped by token class
+            var moves = new TreeMap<Integer, List<Integer>>();
+            for (var transition : model.getTransitions(states[i])) {
+                int target = ids.get(transition.getTarget());
+                alphabet.forEachClass(
+                        transition.getToken(),
+                        c -> moves.computeIfAbsent(c, k -> new ArrayList<>()).add(target)
+                );
+            }
+            var keys = new int[moves.size()];
+            var bounds = new int[moves.size() + 1];
+            var flat = new ArrayList<Integer>();
+            var index = 0;
+            for (var entry : moves.entrySet()) {
+                buffer.clear();
+                for (var target : entry.getValue()) {
+                    for (var closed : closures[target]) {
+                        buffer.set(closed);
+                    }
+                }
+                keys[index] = entry.getKey();
+                buffer.stream().forEach(flat::add);
+                bounds[++index] = flat.size();
+            }
+            classes[i] = keys;
+            offsets[i] = bounds;
+            targets[i] = flat.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.start = new BitSet(count);
+        for (var state : closures[0]) {
+            start.set(state);
+        }
+    }
+
+    private static <S> int[][] close(NfaModel<S, ?> model, Map<S, Integer> ids) {
+        var count = ids.size();
+        var epsilons = new int[count][];
+        for (var entry : ids.entrySet()) {
+            var set = model.getEpsilons(entry.getKey());
+            epsilons[entry.getValue()] = set.isEmpty() ? EMPTY : set.stream().mapToInt(ids::get).toArray();
+        }
+        var ret = new int[count][];
+        var visited = new BitSet(count);
+        var stack = new int[count];
+        for (var i = 0; i < count; ++i) {
+            visited.clear();
+            visited.set(i);
+            var size = 0;
+            stack[size++] = i;
+            while (size > 0) {
+                for (var next : epsilons[stack[--size]]) {
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        stack[size++] = next;
+                    }
+                }
+            }
+            ret[i] = visited.stream().toArray();
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the simulated model.
+     *
+     * @return the model
+     */
+    public NfaModel<S, T> getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the alphabet partition of the simulated model.
+     *
+     * @return the {@link Alphabet} instance
+     */
+    public Alphabet<T> getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the number of states of the simulated model.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return states.length;
+    }
+
+    /**
+     * Returns the state with the specified id.
+     *
+     * @param id the state id
+     * @return the state value
+     */
+    public S getState(int id) {
+        return states[id];
+    }
+
+    /**
+     * Returns the epsilon closure of the initial state.
+     *
+     * @return the new bit set of state ids
+     */
+    public BitSet start() {
+        return (BitSet) start.clone();
+    }
+
+    /**
+     * Returns the class of the specified token in the alphabet of the simulated model.
+     *
+     * @param token the token value, may be null
+     * @return the token class
+     */
+    public int classOf(T token) {
+        return alphabet.classOf(token);
+    }
+
+    /**
+     * Computes the closed set of states reachable from the specified set by the specified token class.
+     *
+     * @param from  the source set of state ids, must be closed
+     * @param clazz the token class
+     * @param to    the set receiving the result, cleared before filling, must differ from the source set
+     */
+    public void move(BitSet from, int clazz, BitSet to) {
+        to.clear();
+        for (var state = from.nextSetBit(0); state >= 0; state = from.nextSetBit(state + 1)) {
+            var index = Arrays.binarySearch(classes[state], clazz);
+            if (index < 0) {
+                continue;
+            }
+            var bounds = offsets[state];
+            var closed = targets[state];
+            for (var i = bounds[index]; i < bounds[index + 1]; ++i) {
+                to.set(closed[i]);
+            }
+        }
+    }
+
+    /**
+     * Computes the closed set of states reachable from the specified set by the specified token.
+     *
+     * @param from  the source set of state ids, must be closed
+     * @param token the token value
+     * @param to    the set receiving the result, cleared before filling, must differ from the source set
+     */
+    public void step(BitSet from, T token, BitSet to) {
+        move(from, alphabet.classOf(token), to);
+    }
+
+    /**
+     * Checks whether the specified set contains an accepting state.
+     *
+     * @param states the set of state ids
+     * @return true if the set is accepting, false otherwise
+     */
+    public boolean isAccepting(BitSet states) {
+        return states.intersects(accepting);
+    }
+
+    /**
+     * Checks whether the simulated machine accepts the specified tokens.
+     *
+     * @param tokens the tokens, must be non-null
+     * @return true if the tokens are accepted, false otherwise
+     */
+    public boolean matches(Iterable<T> tokens) {
+        var current = start();
+        var next = new BitSet(states.length);
+        for (var token : tokens) {
+            step(current, token, next);
+            if (next.isEmpty()) {
+                return false;
+            }
+            var swap = current;
+            current = next;
+            next = swap;
+        }
+        return isAccepting(current);
+    }
+
+    /**
+     * Checks whether the simulated machine accepts the specified tokens.
+     *
+     * @param tokens the tokens, must be non-null
+     * @return true if the tokens are accepted, false otherwise
+     */
+    public boolean matches(T[] tokens) {
+        return matches(Arrays.asList(tokens));
+    }
+}
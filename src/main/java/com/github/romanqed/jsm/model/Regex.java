@@ -0,0 +1,72 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.Objects;
+
+/**
+ * A class containing utility methods for compiling regular expressions into finite state machine models.
+ * <br>
+ * The expression is parsed into a syntax tree, translated into a nondeterministic automaton by Thompson's
+ * construction and determinized by subset construction, so the resulting machine matches any input in linear time.
+ * The model accepts exactly the inputs matched by the whole expression, like {@link java.util.regex.Matcher#matches()}.
+ * <br>
+ * The supported syntax is a subset of {@link java.util.regex.Pattern}:
+ * <ul>
+ *     <li>literals and escaped metacharacters, {@code \t \n \r \f \a \e \0ooo \xhh \}{@code uhhhh}</li>
+ *     <li>dot, which does not match line terminators</li>
+ *     <li>predefined classes {@code \d \D \w \W \s \S}</li>
+ *     <li>character classes with ranges and negation, for example, {@code [^a-z_\d]}</li>
+ *     <li>alternation, capturing and non-capturing groups</li>
+ *     <li>greedy and reluctant quantifiers {@code * + ? {n} {n,} {n,m}}</li>
+ * </ul>
+ * Anchors, backreferences, lookarounds, possessive quantifiers, flags, nested classes and intersections
+ * are not supported. Chars are matched as UTF-16 code units.
+ * <br>
+ * In the resulting model, the initial state is 0, the exit state is -1, and other states are positive.
+ */
+public final class Regex {
+    private Regex() {
+    }
+
+    /**
+     * Compiles the specified regular expression into a deterministic model.
+     *
+     * @param regex    the regular expression, must be non-null
+     * @param minimize if true, the model is minimized before returning
+     * @return the model accepting the inputs matched by the expression
+     * @throws RegexSyntaxException if the expression is malformed or uses unsupported constructs
+     */
+    public static MachineModel<Integer, Character> compile(String regex, boolean minimize) {
+        Objects.requireNonNull(regex);
+        var nfa = new CharNfa();
+        var fragment = RegexParser.parse(regex).build(nfa);
+        var ret = MachineModels.determinize(nfa.toModel(fragment[0], fragment[1]));
+        return minimize ? MachineModels.minimize(ret) : ret;
+    }
+
+    /**
+     * Compiles the specified regular expression into a minimal deterministic model.
+     *
+     * @param regex the regular expression, must be non-null
+     * @return the model accepting the inputs matched by the expression
+     * @throws RegexSyntaxException if the expression is malformed or uses unsupported constructs
+     */
+    public static MachineModel<Integer, Character> compile(String regex) {
+        return compile(regex, true);
+    }
+
+    /**
+     * Compiles the specified regular expression into a nondeterministic model without determinization.
+     * Unlike {@link #compile(String)}, the size of the model is linear in the length of the expression, so
+     * it suits large expressions, for example, alternations of thousands of words, that can be run lazily.
+     *
+     * @param regex the regular expression, must be non-null
+     * @return the nondeterministic model accepting the inputs matched by the expression
+     * @throws RegexSyntaxException if the expression is malformed or uses unsupported constructs
+     */
+    public static NfaModel<Integer, Character> toNfa(String regex) {
+        Objects.requireNonNull(regex);
+        var nfa = new CharNfa();
+        var fragment = RegexParser.parse(regex).build(nfa);
+        return nfa.toModel(fragment[0], fragment[1]);
+    }
+}
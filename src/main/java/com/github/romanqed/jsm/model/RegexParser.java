@@ -0,0 +1,490 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A recursive descent parser of regular expressions, producing a syntax tree that can be
+ * instantiated into a {@link CharNfa} by Thompson's construction.
+ * <br>
+ * Char sets are represented by sorted arrays of disjoint inclusive (low, high) pairs.
+ */
+final class RegexParser {
+    private static final int[] ANY = {0, Character.MAX_VALUE};
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+    // Like in java.util.regex, dot does not match line terminators
+    private static final int[] DOT = complement(union(new int[]{
+            '\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029
+    }));
+    private final String pattern;
+    private int position;
+
+    private RegexParser(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Parses the specified regular expression.
+     *
+     * @param pattern the regular expression
+     * @return the root of the syntax tree
+     * @throws RegexSyntaxException if the expression is malformed or uses unsupported constructs
+     */
+    static Node parse(String pattern) {
+        var parser = new RegexParser(pattern);
+        var ret = parser.parseAlternation();
+        if (parser.position < pattern.length()) {
+            throw parser.error("Unmatched closing ')'");
+        }
+        return ret;
+    }
+
+    /**
+     * Merges the specified pairs, which may overlap and go in any order, into sorted disjoint pairs.
+     *
+     * @param pairs the (low, high) pairs
+     * @return the normalized pairs
+     */
+    static int[] union(int[] pairs) {
+        var count = pairs.length / 2;
+        var order = new long[count];
+        for (var i = 0; i < count; ++i) {
+            order[i] = ((long) pairs[i * 2] << 32) | pairs[i * 2 + 1];
+        }
+        Arrays.sort(order);
+        var ret = new int[pairs.length];
+        var size = 0;
+        for (var pair : order) {
+            var low = (int) (pair >>> 32);
+            var high = (int) pair;
+            if (size > 0 && low <= ret[size - 1] + 1) {
+                ret[size - 1] = Math.max(ret[size - 1], high);
+                continue;
+            }
+            ret[size++] = low;
+            ret[size++] = high;
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    /**
+     * Returns the complement of the specified normalized pairs to the whole char range.
+     *
+     * @param pairs the normalized pairs
+     * @return the complement pairs
+     */
+    static int[] complement(int[] pairs) {
+        var ret = new int[pairs.length + 2];
+        var size = 0;
+        var next = 0;
+        for (var i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] > next) {
+                ret[size++] = next;
+                ret[size++] = pairs[i] - 1;
+            }
+            next = pairs[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            ret[size++] = next;
+            ret[size++] = Character.MAX_VALUE;
+        }
+        return Arrays.copyOf(ret, size);
+    }
+
+    private RegexSyntaxException error(String description) {
+        return new RegexSyntaxException(description, pattern, position);
+    }
+
+    private boolean hasNext() {
+        return position < pattern.length();
+    }
+
+    private char peek() {
+        return pattern.charAt(position);
+    }
+
+    private boolean accept(char c) {
+        if (hasNext() && peek() == c) {
+            ++position;
+            return true;
+        }
+        return false;
+    }
+
+    private Node parseAlternation() {
+        var branches = new ArrayList<Node>();
+        branches.add(parseSequence());
+        while (accept('|')) {
+            branches.add(parseSequence());
+        }
+        return branches.size() == 1 ? branches.get(0) : new Alternation(branches);
+    }
+
+    private Node parseSequence() {
+        var pieces = new ArrayList<Node>();
+        while (hasNext() && peek() != '|' && peek() != ')') {
+            pieces.add(parseQuantifier(parseAtom()));
+        }
+        return pieces.size() == 1 ? pieces.get(0) : new Sequence(pieces);
+    }
+
+    private int parseNumber() {
+        var start = position;
+        var ret = 0;
+        while (hasNext() && peek() >= '0' && peek() <= '9') {
+            ret = ret * 10 + (pattern.charAt(position++) - '0');
+            if (ret > Short.MAX_VALUE) {
+                throw error("Repetition count is too large");
+            }
+        }
+        if (start == position) {
+            throw error("Illegal repetition");
+        }
+        return ret;
+    }
+
+    private Node parseQuantifier(Node atom) {
+        if (!hasNext()) {
+            return atom;
+        }
+        int min;
+        int max;
+        switch (peek()) {
+            case '*':
+                min = 0;
+                max = -1;
+                ++position;
+                break;
+            case '+':
+                min = 1;
+                max = -1;
+                ++position;
+                break;
+            case '?':
+                min = 0;
+                max = 1;
+                ++position;
+                break;
+            case '{':
+                ++position;
+                min = parseNumber();
+                max = min;
+                if (accept(',')) {
+                    max = hasNext() && peek() == '}' ? -1 : parseNumber();
+                }
+                if (!accept('}')) {
+                    throw error("Unclosed counted closure");
+                }
+                if (max >= 0 && max < min) {
+                    throw error("Illegal repetition range");
+                }
+                break;
+            default:
+                return atom;
+        }
+        // Reluctant quantifiers match the same language, so they are accepted as greedy ones
+        accept('?');
+        if (hasNext() && peek() == '+') {
+            throw error("Possessive quantifiers are not supported");
+        }
+        if (hasNext() && "*?{".indexOf(peek()) >= 0) {
+            throw error("Dangling meta character '" + peek() + "'");
+        }
+        return new Repetition(atom, min, max);
+    }
+
+    private Node parseAtom() {
+        var c = peek();
+        switch (c) {
+            case '(':
+                ++position;
+                if (accept('?')) {
+                    if (!accept(':')) {
+                        throw error("Only non-capturing groups are supported");
+                    }
+                }
+                var ret = parseAlternation();
+                if (!accept(')')) {
+                    throw error("Unclosed group");
+                }
+                return ret;
+            case '[':
+                ++position;
+                return new Chars(parseClass());
+            case '.':
+                ++position;
+                return new Chars(DOT);
+            case '\\':
+                ++position;
+                var set = parseEscape();
+                return new Chars(set);
+            case '^':
+            case '$':
+                throw error("Anchors are not supported, the whole input is matched");
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw error("Dangling meta character '" + c + "'");
+            default:
+                ++position;
+                return new Chars(new int[]{c, c});
+        }
+    }
+
+    private int parseHex(int length) {
+        if (position + length > pattern.length()) {
+            throw error("Illegal hexadecimal escape sequence");
+        }
+        var ret = 0;
+        for (var i = 0; i < length; ++i) {
+            var digit = Character.digit(pattern.charAt(position++), 16);
+            if (digit < 0) {
+                throw error("Illegal hexadecimal escape sequence");
+            }
+            ret = ret * 16 + digit;
+        }
+        return ret;
+    }
+
+    private int parseOctal() {
+        var ret = -1;
+        // Like in java.util.regex, \0 is followed by up to three octal digits, limited by 0377
+        for (var i = 0; i < 3 && hasNext() && peek() >= '0' && peek() <= '7'; ++i) {
+            var next = Math.max(ret, 0) * 8 + (peek() - '0');
+            if (next > 0377) {
+                break;
+            }
+            ret = next;
+            ++position;
+        }
+        if (ret < 0) {
+            throw error("Illegal octal escape sequence");
+        }
+        return ret;
+    }
+
+    // Expects the position after the backslash, returns the escaped set
+    private int[] parseEscape() {
+        if (!hasNext()) {
+            throw error("Unexpected end of pattern");
+        }
+        var c = pattern.charAt(position++);
+        int ret;
+        switch (c) {
+            case 'd':
+                return DIGIT;
+            case 'D':
+                return complement(DIGIT);
+            case 'w':
+                return WORD;
+            case 'W':
+                return complement(WORD);
+            case 's':
+                return SPACE;
+            case 'S':
+                return complement(SPACE);
+            case 't':
+                ret = '\t';
+                break;
+            case 'n':
+                ret = '\n';
+                break;
+            case 'r':
+                ret = '\r';
+                break;
+            case 'f':
+                ret = '\f';
+                break;
+            case 'a':
+                ret = '\u0007';
+                break;
+            case 'e':
+                ret = '\u001B';
+                break;
+            case '0':
+                ret = parseOctal();
+                break;
+            case 'x':
+                ret = parseHex(2);
+                break;
+            case 'u':
+                ret = parseHex(4);
+                break;
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    --position;
+                    throw error("Unsupported escape sequence '\\" + c + "'");
+                }
+                ret = c;
+        }
+        return new int[]{ret, ret};
+    }
+
+    private static boolean isSingle(int[] set) {
+        return set.length == 2 && set[0] == set[1];
+    }
+
+    // Expects the position after the opening bracket
+    private int[] parseClass() {
+        var negated = accept('^');
+        var pairs = new ArrayList<int[]>();
+        var first = true;
+        while (true) {
+            if (!hasNext()) {
+                throw error("Unclosed character class");
+            }
+            var c = peek();
+            if (c == ']' && !first) {
+                ++position;
+                break;
+            }
+            first = false;
+            if (c == '[' || pattern.startsWith("&&", position)) {
+                throw error("Nested classes and intersections are not supported");
+            }
+            var low = parseClassItem();
+            // A dash before the closing bracket is a literal
+            if (isSingle(low) && hasNext() && peek() == '-'
+                    && position + 1 < pattern.length() && pattern.charAt(position + 1) != ']') {
+                ++position;
+                var high = parseClassItem();
+                if (!isSingle(high) || high[0] < low[0]) {
+                    throw error("Illegal character range");
+                }
+                pairs.add(new int[]{low[0], high[0]});
+                continue;
+            }
+            pairs.add(low);
+        }
+        var flat = pairs.stream().flatMapToInt(Arrays::stream).toArray();
+        var ret = union(flat);
+        return negated ? complement(ret) : ret;
+    }
+
+    private int[] parseClassItem() {
+        if (!hasNext()) {
+            throw error("Unclosed character class");
+        }
+        var c = pattern.charAt(position++);
+        if (c == '\\') {
+            return parseEscape();
+        }
+        return new int[]{c, c};
+    }
+
+    /**
+     * A node of the regular expression syntax tree.
+     */
+    abstract static class Node {
+
+        /**
+         * Adds the states of this node to the specified automaton.
+         *
+         * @param nfa the automaton
+         * @return the (start, end) states of the added fragment
+         */
+        abstract int[] build(CharNfa nfa);
+    }
+
+    static final class Chars extends Node {
+        final int[] ranges;
+
+        Chars(int[] ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        int[] build(CharNfa nfa) {
+            var start = nfa.addState();
+            var end = nfa.addState();
+            nfa.addRanges(start, end, ranges);
+            return new int[]{start, end};
+        }
+    }
+
+    static final class Sequence extends Node {
+        final List<Node> nodes;
+
+        Sequence(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        int[] build(CharNfa nfa) {
+            var start = nfa.addState();
+            var end = start;
+            for (var node : nodes) {
+                var fragment = node.build(nfa);
+                nfa.addEpsilon(end, fragment[0]);
+                end = fragment[1];
+            }
+            return new int[]{start, end};
+        }
+    }
+
+    static final class Alternation extends Node {
+        final List<Node> nodes;
+
+        Alternation(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        int[] build(CharNfa nfa) {
+            var start = nfa.addState();
+            var end = nfa.addState();
+            for (var node : nodes) {
+                var fragment = node.build(nfa);
+                nfa.addEpsilon(start, fragment[0]);
+                nfa.addEpsilon(fragment[1], end);
+            }
+            return new int[]{start, end};
+        }
+    }
+
+    static final class Repetition extends Node {
+        final Node node;
+        final int min;
+        final int max;
+
+        Repetition(Node node, int min, int max) {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        int[] build(CharNfa nfa) {
+            var start = nfa.addState();
+            var current = start;
+            // Mandatory copies
+            for (var i = 0; i < min; ++i) {
+                var fragment = node.build(nfa);
+                nfa.addEpsilon(current, fragment[0]);
+                current = fragment[1];
+            }
+            var end = nfa.addState();
+            if (max < 0) {
+                // current -> loop -> current, then leave
+                var fragment = node.build(nfa);
+                nfa.addEpsilon(current, fragment[0]);
+                nfa.addEpsilon(fragment[1], current);
+                nfa.addEpsilon(current, end);
+                return new int[]{start, end};
+            }
+            // Optional copies, each of them can be skipped to the end
+            for (var i = min; i < max; ++i) {
+                var fragment = node.build(nfa);
+                nfa.addEpsilon(current, end);
+                nfa.addEpsilon(current, fragment[0]);
+                current = fragment[1];
+            }
+            nfa.addEpsilon(current, end);
+            return new int[]{start, end};
+        }
+    }
+}
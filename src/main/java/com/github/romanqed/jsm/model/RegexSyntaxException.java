@@ -0,0 +1,33 @@
+package com.github.romanqed.jsm.model;
+
+/**
+ * Thrown to indicate a syntax error or an unsupported construct in a regular expression.
+ */
+public class RegexSyntaxException extends IllegalArgumentException {
+    private final String pattern;
+    private final int index;
+
+    public RegexSyntaxException(String description, String pattern, int index) {
+        super(description + " near index " + index + ": " + pattern);
+        this.pattern = pattern;
+        this.index = index;
+    }
+
+    /**
+     * Returns the erroneous regular expression.
+     *
+     * @return the regular expression
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the index of the error in the regular expression.
+     *
+     * @return the error index
+     */
+    public int getIndex() {
+        return index;
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.romanqed.jsm.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -46,8 +49,14 @@ public final class SetToken<T> implements Token<T> {
 
     @Override
     public String format() {
-        var builder = new StringBuilder();
+        // Set iteration order may differ between runs, so values are formatted in sorted order
+        var formatted = new ArrayList<String>(values.size());
         for (var value : values) {
+            formatted.add(Objects.toString(value));
+        }
+        Collections.sort(formatted);
+        var builder = new StringBuilder();
+        for (var value : formatted) {
             builder.append(value);
         }
         return builder.toString();
@@ -28,4 +28,17 @@ public interface TokenVisitor {
      * @param <T>   set token value type
      */
     <T> void visit(SetToken<T> token);
+
+    /**
+     * Method to be called when visiting {@link UnionToken}.
+     * By default, visits all component tokens.
+     *
+     * @param token {@link UnionToken} instance
+     * @param <T>   union token value type
+     */
+    default <T> void visit(UnionToken<T> token) {
+        for (var component : token.getTokens()) {
+            component.accept(this);
+        }
+    }
 }
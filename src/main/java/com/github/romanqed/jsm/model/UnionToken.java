@@ -0,0 +1,71 @@
+package com.github.romanqed.jsm.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class describing a token that matches any value matched by one of its component tokens.
+ * Appears in models produced by transformations, when several transitions are merged into one.
+ *
+ * @param <T> token value type
+ */
+public final class UnionToken<T> implements Token<T> {
+    private final List<Token<T>> tokens;
+
+    UnionToken(List<Token<T>> tokens) {
+        this.tokens = Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * Returns the component tokens.
+     *
+     * @return the list of component tokens
+     */
+    public List<Token<T>> getTokens() {
+        return tokens;
+    }
+
+    @Override
+    public Iterable<T> getValues() {
+        var ret = new ArrayList<T>();
+        for (var token : tokens) {
+            token.getValues().forEach(ret::add);
+        }
+        return ret;
+    }
+
+    @Override
+    public void accept(TokenVisitor visitor) {
+        visitor.visit(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UnionToken)) return false;
+        var that = (UnionToken<?>) o;
+        return tokens.equals(that.tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return tokens.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "UnionToken{" +
+                "tokens=" + tokens +
+                '}';
+    }
+
+    @Override
+    public String format() {
+        var builder = new StringBuilder("u");
+        for (var token : tokens) {
+            builder.append(token.format());
+        }
+        return builder.toString();
+    }
+}
@@ -4,9 +4,10 @@ module com.github.romanqed.jsm {
     requires com.github.romanqed.jfunc;
     requires com.github.romanqed.asm.sorter;
     requires com.github.romanqed.switchgen;
-    requires com.github.romanqed.jeflect.loader;
+    requires transitive com.github.romanqed.jeflect.loader;
     // Exports
     exports com.github.romanqed.jsm;
     exports com.github.romanqed.jsm.model;
     exports com.github.romanqed.jsm.asm;
+    exports com.github.romanqed.jsm.interpreter;
 }
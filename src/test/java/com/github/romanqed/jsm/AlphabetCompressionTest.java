@@ -0,0 +1,135 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+public final class AlphabetCompressionTest extends Assertions {
+    private static final StateMachineFactory FACTORY = new AsmMachineFactory();
+    private static final StateMachineFactory INTERPRETER = new InterpretedMachineFactory();
+
+    private static Character[] chars(String chars) {
+        var ret = new Character[chars.length()];
+        for (var i = 0; i < ret.length; ++i) {
+            ret[i] = chars.charAt(i);
+        }
+        return ret;
+    }
+
+    private static <T> void assertRuns(MachineModel<String, T> model, IntFunction<T> generator) {
+        var machine = FACTORY.create(model);
+        var expected = INTERPRETER.create(model);
+        var random = new Random(11);
+        for (var i = 0; i < 500; ++i) {
+            var length = random.nextInt(8);
+            var input = new ArrayList<T>(length);
+            for (var j = 0; j < length; ++j) {
+                input.add(generator.apply(random.nextInt(Integer.MAX_VALUE)));
+            }
+            assertEquals(expected.run(input), machine.run(input), "Input " + input);
+        }
+    }
+
+    @Test
+    public void testDenseChars() {
+        var letters = chars("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_");
+        var digits = chars("0123456789");
+        var tail = Arrays.copyOf(letters, letters.length + digits.length);
+        System.arraycopy(digits, 0, tail, letters.length, digits.length);
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Id")
+                .addState("Num")
+                .addState("Frac")
+                .addTransition("Init", "Id", letters)
+                .addTransition("Id", "Id", tail)
+                .addTransition("Init", "Num", digits)
+                .addTransition("Num", "Num", digits)
+                .addTransition("Num", "Frac", '.')
+                .addTransition("Frac", "Frac", digits)
+                .addRangeTransition("Frac", "Id", 'e', 'g')
+                .build();
+        var alphabet = "az_AZ09.efg- ~";
+        assertRuns(model, i -> alphabet.charAt(i % alphabet.length()));
+        var machine = new AsmMachineFactory().createCharMachine(model);
+        assertAll(
+                () -> assertEquals("Id", machine.run("a_1")),
+                () -> assertEquals("Frac", machine.run("12.5")),
+                () -> assertEquals("Id", machine.run("1.5e")),
+                () -> assertEquals("Error", machine.run("1.5+"))
+        );
+    }
+
+    @Test
+    public void testSparseIntegers() {
+        var thousands = new Integer[100];
+        for (var i = 0; i < thousands.length; ++i) {
+            thousands[i] = i * 1000;
+        }
+        var model = MachineModelBuilder.create(String.class, Integer.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addState("C")
+                .addTransition("Init", "A", thousands)
+                .addTransition("A", "C", thousands)
+                .addTransition("C", "A", thousands)
+                .addTransition("A", "B", (Integer[]) null)
+                .addTransition("B", "A", -7)
+                .addTransition("B", "C", 7)
+                .build();
+        var values = List.of(0, 5000, 99000, 100000, 7, -7, Integer.MIN_VALUE);
+        assertRuns(model, i -> i % 8 == 0 ? null : values.get(i % values.size()));
+    }
+
+    @Test
+    public void testNullAsZero() {
+        // Without a null token in the model, null tokens are treated as zero
+        var small = new Integer[100];
+        for (var i = 0; i < small.length; ++i) {
+            small[i] = i;
+        }
+        var model = MachineModelBuilder.create(String.class, Integer.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addTransition("Init", "A", small)
+                .addTransition("A", "B", small)
+                .addTransition("B", "A", 0)
+                .build();
+        var values = List.of(0, 1, 99, 100, -1);
+        assertRuns(model, i -> i % 3 == 0 ? null : values.get(i % values.size()));
+        assertEquals("A", FACTORY.create(model).run(Arrays.asList(null, 5, null)));
+    }
+
+    @Test
+    public void testDenseBytes() {
+        var even = new Byte[64];
+        for (var i = 0; i < even.length; ++i) {
+            even[i] = (byte) (i * 2);
+        }
+        var model = MachineModelBuilder.create(String.class, Byte.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Even")
+                .addState("Negative")
+                .addTransition("Init", "Even", even)
+                .addTransition("Even", "Even", even)
+                .addRangeTransition("Even", "Negative", (byte) -128, (byte) -1)
+                .addRangeTransition("Negative", "Negative", (byte) -128, (byte) -1)
+                .build();
+        assertRuns(model, i -> (byte) i);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public final class BatchTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+
+    private static CharStateMachine<String> createMachine() {
+        // Binary numbers without leading zeros
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Zero")
+                .addState("Number")
+                .addTransition("Init", "Zero", '0')
+                .addTransition("Init", "Number", '1')
+                .addRangeTransition("Number", "Number", '0', '1')
+                .build();
+        return FACTORY.createCharMachine(model);
+    }
+
+    @Test
+    public void testBatches() {
+        var machine = createMachine();
+        var random = new Random(5);
+        var strings = new ArrayList<String>();
+        var sequences = new ArrayList<Character[]>();
+        var offsets = new int[1001];
+        var builder = new StringBuilder();
+        for (var i = 0; i < 1000; ++i) {
+            var length = random.nextInt(8);
+            var value = new StringBuilder();
+            for (var j = 0; j < length; ++j) {
+                value.append("012".charAt(random.nextInt(3)));
+            }
+            strings.add(value.toString());
+            sequences.add(value.chars().mapToObj(c -> (char) c).toArray(Character[]::new));
+            builder.append(value);
+            offsets[i + 1] = builder.length();
+        }
+        var chars = builder.toString().toCharArray();
+        var boxed = builder.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+        for (var parallel : new boolean[]{false, true}) {
+            var fromChars = new int[1000];
+            var fromBoxed = new int[1000];
+            var fromSequences = new int[1000];
+            var fromArrays = new int[1000];
+            machine.runBatch(chars, offsets, fromChars, parallel);
+            machine.runBatch(boxed, offsets, fromBoxed, parallel);
+            machine.runSequences(strings, fromSequences, parallel);
+            machine.runBatch(sequences, fromArrays, parallel);
+            for (var i = 0; i < 1000; ++i) {
+                var expected = machine.run(strings.get(i));
+                assertEquals(expected, machine.stateOf(fromChars[i]));
+                assertEquals(expected, machine.stateOf(fromBoxed[i]));
+                assertEquals(expected, machine.stateOf(fromSequences[i]));
+                assertEquals(expected, machine.stateOf(fromArrays[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        var machine = createMachine();
+        var chars = "101".toCharArray();
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> machine.runBatch(chars, new int[0], new int[1], false)),
+                () -> assertThrows(IndexOutOfBoundsException.class,
+                        () -> machine.runBatch(chars, new int[]{0, 1, 3}, new int[1], false)),
+                () -> assertThrows(IndexOutOfBoundsException.class,
+                        () -> machine.runBatch(chars, new int[]{0, 4}, new int[1], false))
+        );
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public final class ByteMachineTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+    private static final ByteStateMachine<String> MACHINE = createMachine();
+
+    private static ByteStateMachine<String> createMachine() {
+        // Accepts frames like 0x7F (0x00 | 0x01 | 0xFF)* 0x7E
+        var model = MachineModelBuilder.create(String.class, Byte.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Body")
+                .addState("End")
+                .addTransition("Init", "Body", (byte) 0x7F)
+                .addTransition("Body", "Body", (byte) 0x00, (byte) 0x01, (byte) 0xFF)
+                .addTransition("Body", "End", (byte) 0x7E)
+                .build();
+        return FACTORY.createByteMachine(model);
+    }
+
+    private static byte[] frame() {
+        return new byte[]{0x7F, 0x00, (byte) 0xFF, 0x01, 0x7E};
+    }
+
+    @Test
+    public void testByteArray() {
+        var bytes = frame();
+        assertAll(
+                () -> assertEquals("End", MACHINE.run(bytes, 0, bytes.length)),
+                () -> assertEquals("Body", MACHINE.run(bytes, 0, 3)),
+                () -> assertEquals("Error", MACHINE.run(bytes, 1, 3)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> MACHINE.run(bytes, 2, 4))
+        );
+    }
+
+    @Test
+    public void testHeapBuffer() {
+        var buffer = ByteBuffer.wrap(frame(), 0, 3).slice();
+        assertAll(
+                () -> assertEquals("Body", MACHINE.run(buffer)),
+                () -> assertEquals(0, buffer.position()),
+                () -> assertEquals("Body", MACHINE.run(buffer.asReadOnlyBuffer())),
+                () -> assertEquals(MACHINE.stamp(frame(), 0, 3), MACHINE.stamp(buffer))
+        );
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        var buffer = ByteBuffer.allocateDirect(8);
+        buffer.put((byte) 0x01).put(frame()).flip().position(1);
+        assertAll(
+                () -> assertEquals("End", MACHINE.run(buffer)),
+                () -> assertEquals(1, buffer.position()),
+                () -> assertEquals(MACHINE.stamp(frame(), 0, 5), MACHINE.stamp(buffer)),
+                () -> assertEquals(-1, MACHINE.stamp(buffer.duplicate().position(0)))
+        );
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        var file = Files.createTempFile("jsm", ".bin");
+        try {
+            Files.write(file, frame());
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.position(1);
+                assertEquals("Error", MACHINE.run(channel));
+                assertEquals(1, channel.position());
+                assertEquals(-1, MACHINE.stamp(channel));
+            }
+            assertAll(
+                    () -> assertEquals("End", MACHINE.run(file)),
+                    () -> assertEquals(MACHINE.stamp(frame(), 0, 5), MACHINE.stamp(file))
+            );
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testChunkedFeed() {
+        var bytes = frame();
+        var state = MACHINE.getInitId();
+        for (var i = 0; i < bytes.length; i += 2) {
+            state = MACHINE.feed(state, bytes, i, Math.min(2, bytes.length - i));
+        }
+        assertEquals("End", MACHINE.stateOf(state));
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        var buffer = new byte[2];
+        var first = MACHINE.feed(MACHINE.getInitId(), new ByteArrayInputStream(frame(), 0, 3), buffer);
+        var state = MACHINE.feed(first, new ByteArrayInputStream(frame(), 3, 2), buffer);
+        var channel = Channels.newChannel(new ByteArrayInputStream(frame()));
+        assertAll(
+                () -> assertEquals("End", MACHINE.stateOf(state)),
+                () -> assertEquals("End", MACHINE.run(channel)),
+                () -> assertEquals("Error", MACHINE.run(new ByteArrayInputStream(new byte[]{0x7E, 0x7F})))
+        );
+    }
+
+    @Test
+    public void testBoxedCompatibility() {
+        assertAll(
+                () -> assertEquals("Body", MACHINE.run(List.of((byte) 0x7F, (byte) 0xFF))),
+                () -> assertEquals("Error", MACHINE.step((byte) 0x00))
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jeflect.loader.DefineClassLoader;
+import com.github.romanqed.jeflect.loader.DefineObjectFactory;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.asm.BytecodeCache;
+import com.github.romanqed.jsm.asm.DirectoryBytecodeCache;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.MachineModels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class BytecodeCacheTest extends Assertions {
+
+    private static MachineModel<String, Character> createModel() {
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Id")
+                .addRangeTransition("Init", "Id", 'a', 'z')
+                .addTransition("Id", "Id", 'a', 'b', 'c', '_')
+                .build();
+    }
+
+    private static AsmMachineFactory createFactory(BytecodeCache cache) {
+        return new AsmMachineFactory(
+                new DefineObjectFactory<>(new DefineClassLoader()), 10, MachineModels::prune, 1, cache);
+    }
+
+    @Test
+    public void testRoundtrip(@TempDir Path directory) {
+        var cache = new DirectoryBytecodeCache(directory.resolve("cache"));
+        var bytes = new byte[]{1, 2, 3, 4, 5};
+        assertNull(cache.load("key"));
+        cache.store("key", bytes);
+        cache.store("other", new byte[0]);
+        assertAll(
+                () -> assertArrayEquals(bytes, cache.load("key")),
+                () -> assertArrayEquals(new byte[0], cache.load("other")),
+                () -> assertThrows(IllegalArgumentException.class, () -> cache.load("../key"))
+        );
+    }
+
+    @Test
+    public void testCorruption(@TempDir Path directory) throws IOException {
+        var cache = new DirectoryBytecodeCache(directory);
+        cache.store("key", new byte[]{1, 2, 3, 4, 5});
+        try (var files = Files.list(directory)) {
+            var file = files.findFirst().orElseThrow();
+            var content = Files.readAllBytes(file);
+            content[content.length - 1] ^= 1;
+            Files.write(file, content);
+        }
+        assertNull(cache.load("key"));
+        cache.store("key", new byte[]{1});
+        assertArrayEquals(new byte[]{1}, cache.load("key"));
+    }
+
+    @Test
+    public void testFactoryCache(@TempDir Path directory) {
+        var cache = new CountingCache(new DirectoryBytecodeCache(directory));
+        var model = createModel();
+        var first = createFactory(cache).createCharMachine(model);
+        assertEquals(1, cache.stores);
+        // Fresh loader must define the class from the cached bytecode
+        var second = createFactory(cache).createCharMachine(createModel());
+        assertAll(
+                () -> assertEquals(1, cache.stores),
+                () -> assertEquals(1, cache.hits),
+                () -> assertEquals("Id", first.run("ab_c")),
+                () -> assertEquals("Id", second.run("ab_c")),
+                () -> assertEquals("Error", second.run("1a")),
+                () -> assertEquals("Init", second.run(""))
+        );
+    }
+
+    private static final class CountingCache implements BytecodeCache {
+        private final BytecodeCache cache;
+        private int hits;
+        private int stores;
+
+        private CountingCache(BytecodeCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public byte[] load(String key) {
+            var ret = cache.load(key);
+            if (ret != null) {
+                ++hits;
+            }
+            return ret;
+        }
+
+        @Override
+        public void store(String key, byte[] bytecode) {
+            ++stores;
+            cache.store(key, bytecode);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public final class CharMachineTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+    private static final CharStateMachine<String> MACHINE = createMachine();
+
+    private static CharStateMachine<String> createMachine() {
+        // Accepts identifiers like [a-c][a-c0-2]*
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Id")
+                .addTransition("Init", "Id", 'a', 'b', 'c')
+                .addTransition("Id", "Id", 'a', 'b', 'c', '0', '1', '2')
+                .build();
+        return FACTORY.createCharMachine(model);
+    }
+
+    @Test
+    public void testCharSequence() {
+        assertAll(
+                () -> assertEquals("Init", MACHINE.run("")),
+                () -> assertEquals("Id", MACHINE.run("abc012")),
+                () -> assertEquals("Error", MACHINE.run("0abc")),
+                () -> assertEquals("Error", MACHINE.run(new StringBuilder("ab3")))
+        );
+    }
+
+    @Test
+    public void testCharArray() {
+        var chars = "+ab12+".toCharArray();
+        assertAll(
+                () -> assertEquals("Id", MACHINE.run(chars, 1, 4)),
+                () -> assertEquals("Error", MACHINE.run(chars, 0, 4)),
+                () -> assertEquals("Init", MACHINE.run(chars, 3, 0)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> MACHINE.run(chars, 4, 4))
+        );
+    }
+
+    @Test
+    public void testChunkedFeed() throws IOException {
+        var state = MACHINE.feed(MACHINE.getInitId(), "ab", 0, 2);
+        state = MACHINE.feed(state, "c01".toCharArray(), 0, 3);
+        state = MACHINE.feed(state, new Character[]{'2'}, 0, 1);
+        assertEquals("Id", MACHINE.stateOf(state));
+        assertEquals("Id", MACHINE.run(new StringReader("abc012")));
+        assertEquals(MACHINE.getExitId(), MACHINE.feed(state, new StringReader("1!a"), new char[1]));
+    }
+
+    @Test
+    public void testBoxedCompatibility() {
+        assertAll(
+                () -> assertEquals("Id", MACHINE.run(List.of('a', '1'))),
+                () -> assertEquals("Id", MACHINE.run(new Character[]{'b', 'c'})),
+                () -> assertEquals(MACHINE.stamp(List.of('a', '1')), MACHINE.stamp("a1")),
+                () -> assertEquals(MACHINE.stamp("xa1"), MACHINE.stamp("xa1".toCharArray(), 0, 3)),
+                () -> assertEquals(-1, MACHINE.stamp("1"))
+        );
+    }
+
+    @Test
+    public void testStepByStepProcessing() {
+        var machine = createMachine();
+        assertAll(
+                () -> assertEquals("Id", machine.step('a')),
+                () -> assertEquals("Id", machine.step(Character.valueOf('0'))),
+                () -> assertEquals("Error", machine.step('!'))
+        );
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class CursorTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+
+    private static MachineModel<String, Character> createCharModel() {
+        // Numbers: [0-9]+(.[0-9]+)?
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Integer")
+                .addState("Dot")
+                .addState("Fraction")
+                .addRangeTransition("Init", "Integer", '0', '9')
+                .addRangeTransition("Integer", "Integer", '0', '9')
+                .addTransition("Integer", "Dot", '.')
+                .addRangeTransition("Dot", "Fraction", '0', '9')
+                .addRangeTransition("Fraction", "Fraction", '0', '9')
+                .build();
+    }
+
+    @Test
+    public void testCharCursor() {
+        var machine = FACTORY.createCharMachine(createCharModel());
+        var cursor = machine.cursor();
+        assertEquals("Init", cursor.getState());
+        assertEquals(machine.getInitId(), cursor.getStateId());
+        assertEquals("Integer", cursor.step('1'));
+        assertEquals("Dot", cursor.feed("2."));
+        assertEquals("Fraction", cursor.feed(new char[]{'x', '5', '6'}, 1, 2));
+        assertEquals("Fraction", cursor.step(Character.valueOf('7')));
+        var other = machine.cursor();
+        assertEquals("Error", other.feed("."));
+        assertEquals(machine.getExitId(), other.getStateId());
+        assertAll(
+                () -> assertEquals("Fraction", cursor.getState()),
+                () -> assertEquals("Init", machine.getState())
+        );
+        cursor.reset();
+        assertEquals("Init", cursor.getState());
+    }
+
+    @Test
+    public void testByteCursor() {
+        var model = MachineModelBuilder.create(Integer.class, Byte.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addState(2)
+                .addTransition(0, 1, (byte) 0xCA)
+                .addTransition(1, 2, (byte) 0xFE)
+                .build();
+        var machine = FACTORY.createByteMachine(model);
+        var interpreted = new InterpretedMachineFactory().createByteMachine(model);
+        for (var m : List.of(machine, interpreted)) {
+            var cursor = m.cursor();
+            var buffer = ByteBuffer.wrap(new byte[]{(byte) 0xFE});
+            assertAll(
+                    () -> assertEquals(1, cursor.step((byte) 0xCA)),
+                    () -> assertEquals(2, cursor.feed(buffer)),
+                    () -> assertEquals(0, buffer.position()),
+                    () -> assertEquals(-1, cursor.feed(new byte[]{1}, 0, 1))
+            );
+        }
+    }
+
+    @Test
+    public void testConcurrentCursors() throws Exception {
+        var machine = FACTORY.createCharMachine(createCharModel());
+        var inputs = List.of("123", "1.5", "12.", "x1", "0.000", "");
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var tasks = new ArrayList<Callable<Boolean>>();
+            for (var i = 0; i < 64; ++i) {
+                var input = inputs.get(i % inputs.size());
+                tasks.add(() -> {
+                    var cursor = machine.cursor();
+                    for (var j = 0; j < 1000; ++j) {
+                        cursor.reset();
+                        for (var k = 0; k < input.length(); ++k) {
+                            cursor.step(input.charAt(k));
+                        }
+                        if (!cursor.getState().equals(machine.run(input))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.Regex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class FindAllTest extends Assertions {
+
+    private static MachineModel<String, Character> createModel() {
+        // ab+c?
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addState("C")
+                .addAcceptingState("B")
+                .addAcceptingState("C")
+                .addTransition("Init", "A", 'a')
+                .addTransition("A", "B", 'b')
+                .addTransition("B", "B", 'b')
+                .addTransition("B", "C", 'c')
+                .build();
+    }
+
+    private static List<int[]> naive(CharStateMachine<?> machine, String input, MatchMode mode) {
+        // Reference: tries every start position and every end position
+        var ret = new ArrayList<int[]>();
+        var position = 0;
+        while (position < input.length()) {
+            int[] match = null;
+            for (var end = position + 1; end <= input.length(); ++end) {
+                var id = machine.runToId(input.subSequence(position, end));
+                if (id != machine.getExitId() && machine.isAccepting(id)) {
+                    match = new int[]{position, end, id};
+                    if (mode == MatchMode.LEFTMOST_FIRST) {
+                        break;
+                    }
+                }
+            }
+            if (match == null) {
+                ++position;
+                continue;
+            }
+            ret.add(match);
+            position = match[1];
+        }
+        return ret;
+    }
+
+    private static void check(List<int[]> expected, MatchBuffer actual) {
+        assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); ++i) {
+            var match = expected.get(i);
+            assertEquals(match[0], actual.getStart(i));
+            assertEquals(match[1], actual.getEnd(i));
+            assertEquals(match[2], actual.getStateId(i));
+        }
+    }
+
+    @Test
+    public void testModes() {
+        var machine = new AsmMachineFactory().createCharMachine(createModel());
+        var matches = new MatchBuffer(0);
+        assertEquals(3, machine.findAll("xabbbcabaabc", MatchMode.LEFTMOST_LONGEST, matches));
+        assertAll(
+                () -> assertEquals(1, matches.getStart(0)),
+                () -> assertEquals(6, matches.getEnd(0)),
+                () -> assertEquals("C", machine.stateOf(matches.getStateId(0))),
+                () -> assertEquals(6, matches.getStart(1)),
+                () -> assertEquals(8, matches.getEnd(1)),
+                () -> assertEquals(9, matches.getStart(2)),
+                () -> assertEquals(12, matches.getEnd(2))
+        );
+        matches.clear();
+        assertEquals(3, machine.findAll("xabbbcabaabc".toCharArray(), 0, 12, MatchMode.LEFTMOST_FIRST, matches));
+        assertAll(
+                () -> assertEquals(3, matches.getEnd(0)),
+                () -> assertEquals("B", machine.stateOf(matches.getStateId(0))),
+                () -> assertEquals(8, matches.getEnd(1)),
+                () -> assertEquals(11, matches.getEnd(2))
+        );
+    }
+
+    @Test
+    public void testRandom() {
+        var model = createModel();
+        var machines = List.of(
+                new AsmMachineFactory().createCharMachine(model),
+                new InterpretedMachineFactory().createCharMachine(model)
+        );
+        var random = new Random(7);
+        var matches = new MatchBuffer();
+        for (var i = 0; i < 500; ++i) {
+            var builder = new StringBuilder();
+            var length = random.nextInt(30);
+            for (var j = 0; j < length; ++j) {
+                builder.append("abcx".charAt(random.nextInt(4)));
+            }
+            var input = builder.toString();
+            for (var machine : machines) {
+                for (var mode : MatchMode.values()) {
+                    matches.clear();
+                    machine.findAll(input, mode, matches);
+                    check(naive(machine, input, mode), matches);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomRegex() {
+        var factory = new AsmMachineFactory();
+        var random = new Random(11);
+        var matches = new MatchBuffer();
+        for (var regex : List.of("a*b|a", "c[ac]*d|a", "(ab|a)(bc)*", "a(b|cd)*c?|b")) {
+            var machine = factory.createCharMachine(Regex.compile(regex));
+            for (var i = 0; i < 500; ++i) {
+                var builder = new StringBuilder();
+                var length = random.nextInt(40);
+                for (var j = 0; j < length; ++j) {
+                    builder.append("abcd".charAt(random.nextInt(4)));
+                }
+                var input = builder.toString();
+                for (var mode : MatchMode.values()) {
+                    matches.clear();
+                    machine.findAll(input, mode, matches);
+                    check(naive(machine, input, mode), matches);
+                }
+            }
+        }
+    }
+
+    private static int countTransits(String regex, String input, MatchMode mode, MatchBuffer matches) {
+        var machine = new AsmMachineFactory().createCharMachine(Regex.compile(regex));
+        var accepting = new boolean[machine.getStateCount()];
+        for (var i = 0; i < accepting.length; ++i) {
+            accepting[i] = machine.isAccepting(i);
+        }
+        var chars = input.toCharArray();
+        var count = new int[1];
+        var scanner = new MatchScanner((state, index) -> {
+            ++count[0];
+            return machine.feed(state, chars, index, 1);
+        }, accepting, machine.getInitId(), machine.getExitId());
+        scanner.scan(0, chars.length, mode, matches);
+        return count[0];
+    }
+
+    @Test
+    public void testLinear() {
+        // Runs failing at the end of the input used to be rescanned after every match
+        var length = 100_000;
+        var matches = new MatchBuffer();
+        var count = countTransits("a*b|a", "a".repeat(length), MatchMode.LEFTMOST_LONGEST, matches);
+        assertEquals(length, matches.size());
+        assertTrue(count <= 4 * length, () -> count + " transits");
+        matches.clear();
+        var input = "ca".repeat(length / 2);
+        var first = countTransits("c[ac]*d|a", input, MatchMode.LEFTMOST_FIRST, matches);
+        assertEquals(length / 2, matches.size());
+        assertEquals(1, matches.getStart(0));
+        assertTrue(first <= 4 * length, () -> first + " transits");
+    }
+
+    @Test
+    public void testBytes() {
+        // Runs of ones
+        var machine = new AsmMachineFactory().createByteMachine(MachineModelBuilder.create(Integer.class, Byte.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addTransition(0, 1, (byte) 1)
+                .addTransition(1, 1, (byte) 1)
+                .build());
+        var bytes = new byte[]{0, 1, 1, 0, 1, 0, 0, 1, 1, 1};
+        var matches = new MatchBuffer();
+        assertEquals(3, machine.findAll(bytes, 0, bytes.length, MatchMode.LEFTMOST_LONGEST, matches));
+        matches.clear();
+        var buffer = ByteBuffer.wrap(bytes).position(2);
+        assertEquals(3, machine.findAll(buffer, MatchMode.LEFTMOST_LONGEST, matches));
+        assertAll(
+                () -> assertEquals(2, matches.getStart(0)),
+                () -> assertEquals(3, matches.getEnd(0)),
+                () -> assertEquals(7, matches.getStart(2)),
+                () -> assertEquals(10, matches.getEnd(2)),
+                () -> assertEquals(2, buffer.position())
+        );
+        matches.clear();
+        var boxed = new Byte[]{1, 1, 0, 1};
+        assertEquals(3, machine.findAll(boxed, 0, 4, MatchMode.LEFTMOST_FIRST, matches));
+    }
+}
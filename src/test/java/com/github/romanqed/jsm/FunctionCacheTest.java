@@ -0,0 +1,62 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.asm.FunctionCache;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public final class FunctionCacheTest extends Assertions {
+
+    private static MachineModel<String, Character> createModel(char token) {
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Done")
+                .addTransition("Init", "Done", token)
+                .build();
+    }
+
+    @Test
+    public void testEviction() {
+        var cache = new FunctionCache(2);
+        var factory = new AsmMachineFactory(cache, 10);
+        var a = factory.createCharMachine(createModel('a'));
+        factory.createCharMachine(createModel('b'));
+        // Refresh 'a', so 'b' becomes the eldest
+        factory.createCharMachine(createModel('a'));
+        var c = factory.createCharMachine(createModel('c'));
+        factory.createCharMachine(createModel('a'));
+        var b = factory.createCharMachine(createModel('b'));
+        assertAll(
+                () -> assertEquals(2, cache.size()),
+                () -> assertEquals(2, cache.getHits()),
+                () -> assertEquals(4, cache.getMisses()),
+                () -> assertEquals(2, cache.getEvictions()),
+                () -> assertEquals("Done", a.run("a")),
+                () -> assertEquals("Error", a.run("b")),
+                () -> assertEquals("Done", b.run("b")),
+                () -> assertEquals("Done", c.run("c")),
+                () -> assertEquals("Init", c.run(""))
+        );
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testIsolation() {
+        var cache = new FunctionCache(1);
+        var factory = new AsmMachineFactory(cache, 10);
+        // The same class name is defined again after eviction, which requires separate loaders
+        for (var i = 0; i < 3; ++i) {
+            assertEquals("Done", factory.createCharMachine(createModel('a')).run("a"));
+            assertEquals("Done", factory.createCharMachine(createModel('b')).run("b"));
+        }
+        assertAll(
+                () -> assertEquals(0, cache.getHits()),
+                () -> assertEquals(6, cache.getMisses()),
+                () -> assertEquals(5, cache.getEvictions())
+        );
+    }
+}
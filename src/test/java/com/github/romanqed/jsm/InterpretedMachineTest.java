@@ -0,0 +1,144 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public final class InterpretedMachineTest extends Assertions {
+    private static final StateMachineFactory ASM_FACTORY = new AsmMachineFactory();
+    private static final InterpretedMachineFactory FACTORY = new InterpretedMachineFactory();
+    private static final InterpretedMachineFactory SPARSE_FACTORY = new InterpretedMachineFactory(0);
+
+    private static MachineModel<Integer, Integer> createModel() {
+        var builder = MachineModelBuilder
+                .create(Integer.class, Integer.class)
+                .setInitState(0)
+                .setExitState(-1);
+        for (var i = 1; i <= 9; ++i) {
+            builder.addState(i).addTransition(i - 1, i, i * 1000, -i);
+        }
+        return builder.addTransition(9, 5).build();
+    }
+
+    private static MachineModel<String, Character> createRangeModel() {
+        // Accepts numbers like [1-9][0-9]* and hex digits a-f after 'x'
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Number")
+                .addState("Hex")
+                .addState("Prefix")
+                .addRangeTransition("Init", "Number", '1', '9')
+                .addTransition("Init", "Prefix", 'x')
+                .addRangeTransition("Number", "Number", '0', '9')
+                .addRangeTransition("Prefix", "Hex", 'a', 'f')
+                .addRangeTransition("Hex", "Hex", 'a', 'f')
+                .addTransition("Hex", "Error", 'c')
+                .build();
+    }
+
+    private static MachineModel<Integer, Integer> createWideModel() {
+        // Points are too far apart for their difference to fit in int
+        return MachineModelBuilder.create(Integer.class, Integer.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addState(2)
+                .addTransition(0, 1, -2_000_000_000)
+                .addTransition(0, 2, 2_000_000_000)
+                .build();
+    }
+
+    private static MachineModel<Integer, Integer> createZeroModel() {
+        // Null tokens are treated as zero
+        return MachineModelBuilder.create(Integer.class, Integer.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addState(2)
+                .addTransition(0, 1, 0)
+                .addTransition(1, 2, 0, 7)
+                .build();
+    }
+
+    private static void checkEquivalence(MachineModel<Integer, Integer> model, List<Integer[]> inputs) {
+        var expected = ASM_FACTORY.create(model);
+        var dense = FACTORY.create(model);
+        var sparse = SPARSE_FACTORY.create(model);
+        for (var input : inputs) {
+            assertEquals(expected.run(input), dense.run(input));
+            assertEquals(expected.run(input), sparse.run(input));
+            assertEquals(expected.stamp(input), sparse.stamp(input));
+        }
+    }
+
+    @Test
+    public void testEquivalenceWithAsm() {
+        checkEquivalence(createModel(), List.of(
+                new Integer[]{},
+                new Integer[]{1000, 2000, 3000},
+                new Integer[]{-1, -2, -3, -4, -5, -6, -7, -8, -9, 5, 1000},
+                new Integer[]{1000, 3000},
+                new Integer[]{1500},
+                new Integer[]{-1, -2, -3, -4, -5, -6, -7, -8, -9, 42, 6000, 7000},
+                new Integer[]{null}
+        ));
+        checkEquivalence(createWideModel(), List.of(
+                new Integer[]{0},
+                new Integer[]{-2_000_000_000},
+                new Integer[]{2_000_000_000},
+                new Integer[]{Integer.MIN_VALUE},
+                new Integer[]{Integer.MAX_VALUE}
+        ));
+        checkEquivalence(createZeroModel(), List.of(
+                new Integer[]{null},
+                new Integer[]{null, null},
+                new Integer[]{0, null},
+                new Integer[]{null, 7},
+                new Integer[]{7}
+        ));
+    }
+
+    @Test
+    public void testRanges() {
+        var model = createRangeModel();
+        var dense = FACTORY.createCharMachine(model);
+        var sparse = SPARSE_FACTORY.createCharMachine(model);
+        for (var machine : List.of(dense, sparse)) {
+            assertAll(
+                    () -> assertEquals("Number", machine.run("1209")),
+                    () -> assertEquals("Error", machine.run("0")),
+                    () -> assertEquals("Error", machine.run("12a")),
+                    () -> assertEquals("Hex", machine.run("xabfed")),
+                    () -> assertEquals("Error", machine.run("xabc")),
+                    () -> assertEquals("Error", machine.run("xg")),
+                    () -> assertEquals("Prefix", machine.run(List.of('x')))
+            );
+        }
+    }
+
+    @Test
+    public void testObjectTokens() {
+        var model = MachineModelBuilder.create(String.class, String.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState("A")
+                .addState("B")
+                .addTransition("I", "A", "AaAa", "BBBB")
+                .addTransition("A", "B", "BBAa")
+                .addTransition("B", "A")
+                .build();
+        var machine = FACTORY.create(model);
+        assertAll(
+                () -> assertEquals("A", machine.run(List.of("BBBB"))),
+                () -> assertEquals("B", machine.run(List.of("AaAa", "BBAa"))),
+                () -> assertEquals("A", machine.run(List.of("AaAa", "BBAa", "any"))),
+                () -> assertEquals("E", machine.run(List.of("AaBB")))
+        );
+    }
+}
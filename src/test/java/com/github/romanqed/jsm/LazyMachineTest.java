@@ -0,0 +1,153 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.LazyMachine;
+import com.github.romanqed.jsm.interpreter.LazyMachineFactory;
+import com.github.romanqed.jsm.model.NfaSimulator;
+import com.github.romanqed.jsm.model.Regex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class LazyMachineTest extends Assertions {
+    // The deterministic equivalent has 2^7 states
+    private static final String SUFFIX = "(a|b)*a(a|b){6}";
+    private static final long SMALL_BUDGET = 1024;
+
+    private static Character[] tokens(String input) {
+        return input.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+    }
+
+    private static String random(Random random, String alphabet, int length) {
+        var builder = new StringBuilder(length);
+        for (var i = 0; i < length; ++i) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static boolean matches(StateMachine<?, Character> machine, String input) {
+        var id = machine.runToId(tokens(input));
+        return id != machine.getExitId() && machine.isAccepting(id);
+    }
+
+    private static void check(String regex, String alphabet, int length) {
+        var pattern = Pattern.compile(regex);
+        var model = Regex.toNfa(regex);
+        var small = new LazyMachineFactory(SMALL_BUDGET).create(model);
+        var large = new LazyMachineFactory().create(model);
+        var random = new Random(42);
+        for (var i = 0; i < 1000; ++i) {
+            var input = random(random, alphabet, random.nextInt(length));
+            var expected = pattern.matcher(input).matches();
+            assertEquals(expected, matches(small, input), () -> regex + " on " + input);
+            assertEquals(expected, matches(large, input), () -> regex + " on " + input);
+            assertEquals(large.stamp(tokens(input)), small.stamp(tokens(input)), input);
+        }
+    }
+
+    @Test
+    public void testMatchesLikeJavaRegex() {
+        check(SUFFIX, "abc", 24);
+        check("(ab|a)(bc|c)*d?", "abcd", 10);
+        check("[a-z]+(\\d+|_[a-z]+)*", "az09_-", 12);
+        check("", "a", 2);
+    }
+
+    @Test
+    public void testFlushes() {
+        var model = Regex.toNfa(SUFFIX);
+        var machine = new LazyMachineFactory(SMALL_BUDGET).create(model);
+        var simulator = new NfaSimulator<>(model);
+        var input = tokens(random(new Random(7), "ab", 5000));
+        var cursor = machine.cursor();
+        var current = simulator.start();
+        var next = simulator.start();
+        for (var token : input) {
+            var id = cursor.stepId(token);
+            simulator.step(current, token, next);
+            var swap = current;
+            current = next;
+            next = swap;
+            assertEquals(simulator.isAccepting(current), machine.isAccepting(id));
+        }
+        var count = machine.getStateCount();
+        assertAll(
+                () -> assertTrue(machine.getFlushCount() > 0),
+                () -> assertTrue(machine.getCachedStateCount() <= count),
+                () -> assertTrue(count < 128)
+        );
+    }
+
+    @Test
+    public void testFindAll() {
+        var regex = "ab+c?|b(c|d)";
+        var lazy = new LazyMachineFactory(SMALL_BUDGET).create(Regex.toNfa(regex));
+        var compiled = new AsmMachineFactory().createCharMachine(Regex.compile(regex));
+        var random = new Random(11);
+        for (var mode : MatchMode.values()) {
+            for (var i = 0; i < 200; ++i) {
+                var input = random(random, "abcdx", 30);
+                var expected = new MatchBuffer();
+                var actual = new MatchBuffer();
+                compiled.findAll(input, mode, expected);
+                lazy.findAll(tokens(input), 0, input.length(), mode, actual);
+                assertEquals(expected.size(), actual.size(), input);
+                for (var j = 0; j < expected.size(); ++j) {
+                    assertEquals(expected.getStart(j), actual.getStart(j));
+                    assertEquals(expected.getEnd(j), actual.getEnd(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindAllFlushes() {
+        var model = Regex.toNfa(SUFFIX);
+        var small = new LazyMachineFactory(SMALL_BUDGET).create(model);
+        var large = new LazyMachineFactory().create(model);
+        var input = tokens(random(new Random(5), "abc", 5000));
+        var flushes = small.getFlushCount();
+        var expected = new MatchBuffer();
+        var actual = new MatchBuffer();
+        large.findAll(input, 0, input.length, MatchMode.LEFTMOST_LONGEST, expected);
+        small.findAll(input, 0, input.length, MatchMode.LEFTMOST_LONGEST, actual);
+        assertTrue(small.getFlushCount() > flushes);
+        assertEquals(0, large.getFlushCount());
+        assertTrue(expected.size() > 0);
+        assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); ++i) {
+            var start = expected.getStart(i);
+            var end = expected.getEnd(i);
+            assertEquals(start, actual.getStart(i));
+            assertEquals(end, actual.getEnd(i));
+            // Ids of the machine without flushes stay valid, others are resolved by running the match
+            var state = large.stateOf(expected.getStateId(i));
+            assertEquals(state, small.run(Arrays.copyOfRange(input, start, end)));
+        }
+    }
+
+    @Test
+    public void testStates() {
+        LazyMachine<Integer, Character> machine = new LazyMachineFactory().create(Regex.toNfa("ab"));
+        var id = machine.runToId(tokens("ab"));
+        var init = machine.getInitId();
+        var exit = machine.getExitId();
+        assertAll(
+                () -> assertEquals(Set.of(), machine.stateOf(exit)),
+                () -> assertEquals(init, machine.idOf(machine.stateOf(init))),
+                () -> assertEquals(id, machine.idOf(machine.run(tokens("ab")))),
+                () -> assertTrue(machine.isAccepting(id)),
+                () -> assertFalse(machine.isAccepting(init)),
+                () -> assertEquals(exit, machine.runToId(tokens("b"))),
+                () -> assertEquals(-1, machine.idOf(Set.of(-5))),
+                () -> assertThrows(IllegalArgumentException.class, () -> machine.feed(1000, tokens("a"), 0, 1)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> new LazyMachineFactory(100).create(Regex.toNfa("a")))
+        );
+    }
+}
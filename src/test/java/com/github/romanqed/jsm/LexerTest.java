@@ -0,0 +1,123 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public final class LexerTest extends Assertions {
+    private static final int IDENTIFIER = 0;
+    private static final int NUMBER = 1;
+    private static final int SPACE = 2;
+    private static final int IF = 3;
+    private static final Map<String, Integer> KINDS = Map.of(
+            "Id", IDENTIFIER,
+            "I", IDENTIFIER,
+            "If", IF,
+            "Num", NUMBER,
+            "Space", SPACE
+    );
+
+    private static Character[] letters(char except) {
+        var ret = new StringBuilder();
+        for (var c = 'a'; c <= 'z'; ++c) {
+            if (c != except) {
+                ret.append(c);
+            }
+        }
+        return ret.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+    }
+
+    private static MachineModel<String, Character> createModel() {
+        // if | [a-z]+ | [0-9]+ | ' '+
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Id")
+                .addState("I")
+                .addState("If")
+                .addState("Num")
+                .addState("Space")
+                .addAcceptingState("Id")
+                .addAcceptingState("I")
+                .addAcceptingState("If")
+                .addAcceptingState("Num")
+                .addAcceptingState("Space")
+                .addTransition("Init", "I", 'i')
+                .addTransition("Init", "Id", letters('i'))
+                .addTransition("I", "If", 'f')
+                .addTransition("I", "Id", letters('f'))
+                .addTransition("If", "Id", letters('\0'))
+                .addTransition("Id", "Id", letters('\0'))
+                .addRangeTransition("Init", "Num", '0', '9')
+                .addRangeTransition("Num", "Num", '0', '9')
+                .addTransition("Init", "Space", ' ')
+                .addTransition("Space", "Space", ' ')
+                .build();
+    }
+
+    private static Lexer createLexer() {
+        return new AsmMachineFactory().createLexer(createModel(), state -> KINDS.getOrDefault(state, -1));
+    }
+
+    private static void check(int[] expected, TokenBuffer actual) {
+        assertEquals(expected.length / 3, actual.size());
+        for (var i = 0; i < actual.size(); ++i) {
+            assertEquals(expected[i * 3], actual.getKind(i));
+            assertEquals(expected[i * 3 + 1], actual.getStart(i));
+            assertEquals(expected[i * 3 + 2], actual.getEnd(i));
+        }
+    }
+
+    @Test
+    public void testMaximalMunch() {
+        var lexer = createLexer();
+        var input = "if x1 iff  42if";
+        var expected = new int[]{
+                IF, 0, 2,
+                SPACE, 2, 3,
+                IDENTIFIER, 3, 4,
+                NUMBER, 4, 5,
+                SPACE, 5, 6,
+                IDENTIFIER, 6, 9,
+                SPACE, 9, 11,
+                NUMBER, 11, 13,
+                IF, 13, 15
+        };
+        var sequence = new TokenBuffer();
+        var array = new TokenBuffer(0);
+        assertAll(
+                () -> assertEquals(input.length(), lexer.tokenize(input, sequence)),
+                () -> check(expected, sequence),
+                () -> assertEquals(input.length(), lexer.tokenize(input.toCharArray(), 0, input.length(), array)),
+                () -> check(expected, array)
+        );
+    }
+
+    @Test
+    public void testStop() {
+        var lexer = createLexer();
+        var tokens = new TokenBuffer();
+        var input = "ab1+cd".toCharArray();
+        assertAll(
+                () -> assertEquals(3, lexer.tokenize(input, 0, input.length, tokens)),
+                () -> check(new int[]{IDENTIFIER, 0, 2, NUMBER, 2, 3}, tokens),
+                () -> assertEquals(4, lexer.tokenize(input, 4, 0, tokens)),
+                () -> assertEquals(2, tokens.size())
+        );
+    }
+
+    @Test
+    public void testRegion() {
+        var lexer = createLexer();
+        var tokens = new TokenBuffer();
+        assertAll(
+                () -> assertEquals(5, lexer.tokenize("+++i 7+", 3, 2, tokens)),
+                () -> check(new int[]{IDENTIFIER, 3, 4, SPACE, 4, 5}, tokens),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> lexer.tokenize("abc", 2, 2, tokens))
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.UnionToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class MinimizationTest extends Assertions {
+    private static final StateMachineFactory INTERPRETER = new InterpretedMachineFactory();
+
+    private static MachineModel<String, Character> createModel() {
+        // A1 and A2 are equivalent, so the transitions from Init leading to them must be merged
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A1")
+                .addState("A2")
+                .addState("D")
+                .addState("N")
+                .addTransition("Init", "A1", 'a')
+                .addRangeTransition("Init", "A2", 'p', 'r')
+                .addRangeTransition("Init", "N", '0', '9')
+                .addRangeTransition("A1", "A1", 'a', 'z')
+                .addTransition("A1", "D", '.')
+                .addRangeTransition("A2", "A2", 'a', 'z')
+                .addTransition("A2", "D", '.')
+                .addRangeTransition("N", "N", '0', '9')
+                .addTransition("N", "D", '.')
+                .build();
+    }
+
+    private static List<List<Character>> generateInputs() {
+        var random = new Random(7);
+        var alphabet = "aboqrz09.x".toCharArray();
+        var ret = new ArrayList<List<Character>>();
+        for (var i = 0; i < 500; ++i) {
+            var length = random.nextInt(7);
+            var input = new ArrayList<Character>(length);
+            for (var j = 0; j < length; ++j) {
+                input.add(alphabet[random.nextInt(alphabet.length)]);
+            }
+            ret.add(input);
+        }
+        return ret;
+    }
+
+    private static String merge(String state) {
+        return state.equals("A2") ? "A1" : state;
+    }
+
+    @Test
+    public void testMinimize() {
+        var model = createModel();
+        var minimized = MachineModels.minimize(model);
+        assertAll(
+                () -> assertEquals(List.of("A1", "D", "N"), new ArrayList<>(minimized.getStates().keySet())),
+                () -> assertEquals("Init", minimized.getInit().getValue()),
+                () -> assertEquals("Error", minimized.getExit().getValue()),
+                () -> assertInstanceOf(UnionToken.class, minimized.getInit().getTransitions().get("A1").getToken()),
+                () -> assertSame(minimized, MachineModels.minimize(minimized))
+        );
+    }
+
+    @Test
+    public void testClassifier() {
+        var model = createModel();
+        var minimized = MachineModels.minimize(model, state -> state.equals("A2"));
+        assertEquals(model.getStates().keySet(), minimized.getStates().keySet());
+    }
+
+    @Test
+    public void testRuns() {
+        var model = createModel();
+        var expected = INTERPRETER.create(model);
+        var factories = List.of(
+                new AsmMachineFactory(10, MachineModels::minimize),
+                new InterpretedMachineFactory(4096, MachineModels::minimize)
+        );
+        for (var factory : factories) {
+            var machine = factory.create(model);
+            for (var input : generateInputs()) {
+                assertEquals(merge(expected.run(input)), machine.run(input), "Input " + input);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.ModelDigest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+public final class ModelDigestTest extends Assertions {
+
+    private static MachineModel<String, Character> createModel(String first, String second) {
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState(first)
+                .addState(second)
+                .addTransition("I", first, 'a')
+                .addTransition(first, second, 'b', 'c', 'd')
+                .build();
+    }
+
+    @Test
+    public void testEquality() {
+        var first = createModel("A", "B");
+        var second = createModel("A", "B");
+        var digest = first.getDigest();
+        assertAll(
+                () -> assertEquals(digest, second.getDigest()),
+                () -> assertEquals(digest, ModelDigest.of(first)),
+                () -> assertSame(digest, first.getDigest()),
+                () -> assertEquals(64, digest.toHex().length()),
+                () -> assertEquals(32, digest.getBytes().length),
+                () -> assertNotEquals(digest, createModel("A", "C").getDigest())
+        );
+    }
+
+    @Test
+    public void testAmbiguousFormat() {
+        // Models without delimiters in their formats
+        var first = createModel("A", "B").getDigest();
+        var second = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState("AB")
+                .build();
+        var third = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState("A")
+                .addState("B")
+                .build();
+        assertAll(
+                () -> assertEquals(second.format(), third.format()),
+                () -> assertNotEquals(second.getDigest(), third.getDigest()),
+                () -> assertNotEquals(first, second.getDigest())
+        );
+    }
+
+    private static MachineModel<Label, Character> createLabelModel(boolean swap) {
+        var init = new Label(0);
+        var first = new Label(1);
+        var second = new Label(2);
+        return MachineModelBuilder.create(Label.class, Character.class)
+                .setComparator(Comparator.comparingInt(label -> label.id))
+                .setInitState(init)
+                .setExitState(new Label(-1))
+                .addState(first)
+                .addState(second)
+                .addTransition(init, first, 'x')
+                .addTransition(first, swap ? second : first, 'x')
+                .addTransition(second, swap ? first : second, 'x')
+                .build();
+    }
+
+    @Test
+    public void testEqualStrings() {
+        // States are printed equally, so only their positions distinguish the models
+        var first = createLabelModel(false);
+        var second = createLabelModel(true);
+        var factory = new AsmMachineFactory(10, null);
+        assertAll(
+                () -> assertNotEquals(first.getDigest(), second.getDigest()),
+                () -> assertEquals(1, factory.create(first).run(List.of('x', 'x')).id),
+                () -> assertEquals(2, factory.create(second).run(List.of('x', 'x')).id)
+        );
+    }
+
+    @Test
+    public void testFactory() {
+        var factory = new AsmMachineFactory(10, null);
+        var first = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState("AB")
+                .addState("C")
+                .build();
+        var second = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("I")
+                .setExitState("E")
+                .addState("A")
+                .addState("BC")
+                .build();
+        assertAll(
+                () -> assertEquals(first.format(), second.format()),
+                () -> assertEquals("AB", factory.create(first).stateOf(2)),
+                () -> assertEquals("A", factory.create(second).stateOf(2))
+        );
+    }
+
+    private static final class Label {
+        private final int id;
+
+        private Label(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "s";
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.InvalidStateException;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModels;
+import com.github.romanqed.jsm.model.NfaModel;
+import com.github.romanqed.jsm.model.NfaModelBuilder;
+import com.github.romanqed.jsm.model.NfaSimulator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public final class NfaModelTest extends Assertions {
+
+    private static NfaModel<Integer, Character> createSuffixModel() {
+        // (a|b)*a(a|b)(a|b), the third char from the end is 'a'
+        return NfaModelBuilder.create(Integer.class, Character.class)
+                .setInitState(0)
+                .addState(1)
+                .addState(2)
+                .addState(3)
+                .addAcceptingState(3)
+                .addTransition(0, 0, 'a', 'b')
+                .addTransition(0, 1, 'a')
+                .addTransition(1, 2, 'a', 'b')
+                .addTransition(2, 3, 'a', 'b')
+                .build();
+    }
+
+    private static NfaModel<String, Character> createOverlappingModel() {
+        // [a-z]+ and m[0-9]*, where 'm' leads to both branches
+        return NfaModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .addState("Word")
+                .addState("M")
+                .addState("Digits")
+                .addState("Done")
+                .addAcceptingState("Done")
+                .addRangeTransition("Init", "Word", 'a', 'z')
+                .addRangeTransition("Word", "Word", 'a', 'z')
+                .addTransition("Init", "M", 'm')
+                .addRangeTransition("M", "Digits", '0', '9')
+                .addRangeTransition("Digits", "Digits", '0', '9')
+                .addEpsilonTransition("Word", "Done")
+                .addEpsilonTransition("M", "Digits")
+                .addEpsilonTransition("Digits", "Done")
+                .build();
+    }
+
+    private static String random(Random random, String alphabet, int length) {
+        var builder = new StringBuilder(length);
+        for (var i = 0; i < length; ++i) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static boolean matches(CharStateMachine<Integer> machine, String input) {
+        var id = machine.runToId(input);
+        return id != machine.getExitId() && machine.isAccepting(id);
+    }
+
+    private static <S> void check(NfaModel<S, Character> nfa, String alphabet, Pattern pattern) {
+        var simulator = new NfaSimulator<>(nfa);
+        var dfa = MachineModels.determinize(nfa);
+        var machines = List.of(
+                new AsmMachineFactory().createCharMachine(dfa),
+                new AsmMachineFactory().createCharMachine(MachineModels.minimize(dfa)),
+                new InterpretedMachineFactory().createCharMachine(dfa)
+        );
+        var random = new Random(42);
+        for (var i = 0; i < 3000; ++i) {
+            var input = random(random, alphabet, random.nextInt(9));
+            var tokens = input.chars().mapToObj(c -> (char) c).toArray(Character[]::new);
+            var expected = pattern.matcher(input).matches();
+            assertEquals(expected, simulator.matches(tokens), input);
+            for (var machine : machines) {
+                assertEquals(expected, matches(machine, input), input);
+            }
+        }
+    }
+
+    @Test
+    public void testDeterminization() {
+        check(createSuffixModel(), "abc", Pattern.compile("[ab]*a[ab][ab]"));
+        check(createOverlappingModel(), "alm09_", Pattern.compile("[a-z]+|m[0-9]*"));
+    }
+
+    @Test
+    public void testSubsetCount() {
+        MachineModel<Integer, Character> dfa = MachineModels.determinize(createSuffixModel());
+        assertAll(
+                () -> assertEquals(0, dfa.getInit().getValue()),
+                () -> assertEquals(-1, dfa.getExit().getValue()),
+                // Every combination of the last three chars, except the initial one
+                () -> assertEquals(7, dfa.getStates().size()),
+                () -> assertEquals(4, dfa.getAccepting().size())
+        );
+    }
+
+    @Test
+    public void testNoAccepting() {
+        var nfa = NfaModelBuilder.create(Integer.class, Character.class)
+                .setInitState(0)
+                .addState(1)
+                .addTransition(0, 1, 'a')
+                .build();
+        var dfa = MachineModels.determinize(nfa);
+        assertAll(
+                () -> assertTrue(dfa.isAcceptingDeclared()),
+                () -> assertFalse(dfa.isAccepting(0)),
+                () -> assertFalse(dfa.isAccepting(1))
+        );
+    }
+
+    @Test
+    public void testSimulator() {
+        var simulator = new NfaSimulator<>(createOverlappingModel());
+        var start = simulator.start();
+        var next = simulator.start();
+        simulator.step(start, 'm', next);
+        assertAll(
+                () -> assertEquals(5, simulator.getStateCount()),
+                () -> assertEquals("Init", simulator.getState(0)),
+                () -> assertEquals(1, start.cardinality()),
+                // Word, M, Digits and Done
+                () -> assertEquals(4, next.cardinality()),
+                () -> assertTrue(simulator.isAccepting(next)),
+                () -> assertFalse(simulator.isAccepting(start))
+        );
+    }
+
+    @Test
+    public void testBuilderErrors() {
+        var builder = NfaModelBuilder.create(Integer.class, Character.class).setInitState(0);
+        assertAll(
+                () -> assertThrows(InvalidStateException.class, () -> builder.addTransition(0, 1, 'a')),
+                () -> assertThrows(InvalidStateException.class, () -> builder.addEpsilonTransition(1, 0)),
+                () -> assertThrows(InvalidStateException.class, () -> builder.addAcceptingState(2)),
+                () -> assertThrows(IllegalArgumentException.class, () -> builder.addRangeTransition(0, 0, 'z', 'a')),
+                () -> assertThrows(NullPointerException.class,
+                        () -> NfaModelBuilder.create(Integer.class, Character.class).build())
+        );
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+public final class ParallelScanTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+    private static final int LENGTH = 1 << 21;
+
+    private static CharStateMachine<Integer> createCounter() {
+        // Counts 'a' modulo 7, states never converge
+        var builder = MachineModelBuilder.create(Integer.class, Character.class)
+                .setInitState(7)
+                .setExitState(-1);
+        for (var i = 0; i < 7; ++i) {
+            builder.addState(i);
+        }
+        builder.addTransition(7, 1, 'a');
+        builder.addTransition(7, 0, 'b');
+        for (var i = 0; i < 7; ++i) {
+            builder.addTransition(i, (i + 1) % 7, 'a');
+            builder.addTransition(i, i, 'b');
+        }
+        return FACTORY.createCharMachine(builder.build());
+    }
+
+    private static ByteStateMachine<String> createWords() {
+        // Words separated by single spaces, states converge on each space
+        var model = MachineModelBuilder.create(String.class, Byte.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Word")
+                .addState("Space")
+                .addRangeTransition("Init", "Word", (byte) 'a', (byte) 'z')
+                .addRangeTransition("Word", "Word", (byte) 'a', (byte) 'z')
+                .addTransition("Word", "Space", (byte) ' ')
+                .addRangeTransition("Space", "Word", (byte) 'a', (byte) 'z')
+                .build();
+        return FACTORY.createByteMachine(model);
+    }
+
+    private static byte[] generateWords(Random random) {
+        var ret = new byte[LENGTH];
+        for (var i = 0; i < LENGTH; ++i) {
+            ret[i] = random.nextInt(6) == 0 && i > 0 && ret[i - 1] != ' ' ? (byte) ' ' : (byte) ('a' + random.nextInt(26));
+        }
+        return ret;
+    }
+
+    @Test
+    public void testCounter() {
+        var machine = createCounter();
+        var random = new Random(1);
+        for (var i = 0; i < 4; ++i) {
+            var chars = new char[LENGTH + i];
+            for (var j = 0; j < chars.length; ++j) {
+                chars[j] = random.nextBoolean() ? 'a' : 'b';
+            }
+            var expected = machine.run(chars, 0, chars.length);
+            var string = new String(chars);
+            assertAll(
+                    () -> assertEquals(expected, machine.runParallel(chars, 0, chars.length)),
+                    () -> assertEquals(expected, machine.runParallel(string)),
+                    () -> assertEquals(machine.run(chars, 3, 1000), machine.runParallel(chars, 3, 1000))
+            );
+        }
+        var boxed = new Character[LENGTH];
+        for (var i = 0; i < LENGTH; ++i) {
+            boxed[i] = i % 3 == 0 ? 'a' : 'b';
+        }
+        assertEquals(machine.run(boxed), machine.runParallel(boxed));
+        // Exit in the middle of the input
+        boxed[LENGTH / 2] = 'c';
+        assertEquals(-1, machine.runParallel(boxed));
+        assertEquals(7, machine.runParallel(new Character[0]));
+    }
+
+    @Test
+    public void testWords() {
+        var machine = createWords();
+        var bytes = generateWords(new Random(2));
+        assertEquals(machine.run(bytes, 0, bytes.length), machine.runParallel(bytes, 0, bytes.length));
+        bytes[bytes.length - 10] = ' ';
+        bytes[bytes.length - 11] = ' ';
+        assertEquals("Error", machine.runParallel(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testFile(@TempDir Path directory) throws IOException {
+        var machine = createWords();
+        var bytes = generateWords(new Random(3));
+        var file = directory.resolve("words");
+        Files.write(file, bytes);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(5);
+            assertEquals(machine.run(bytes, 5, bytes.length - 5), machine.runParallel(channel));
+            assertEquals(5, channel.position());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.MachineCompiler;
+import com.github.romanqed.jsm.asm.ModelProvider;
+import com.github.romanqed.jsm.asm.PrecompiledMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.MachineModels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+public final class PrecompiledMachineTest extends Assertions {
+    private static final String PACKAGE = "com.github.romanqed.jsm.generated";
+
+    private static MachineModel<String, Character> createNumberModel() {
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Number")
+                .addState("Unreachable")
+                .addRangeTransition("Init", "Number", '0', '9')
+                .addRangeTransition("Number", "Number", '0', '9')
+                .build();
+    }
+
+    private static MachineModel<Integer, String> createWordModel() {
+        return MachineModelBuilder.create(Integer.class, String.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addState(2)
+                .addTransition(0, 1, "hello")
+                .addTransition(1, 2, "world")
+                .build();
+    }
+
+    private static ClassLoader createLoader(Path root) throws MalformedURLException {
+        return new URLClassLoader(new URL[]{root.toUri().toURL()}, PrecompiledMachineTest.class.getClassLoader());
+    }
+
+    @Test
+    public void testCompile(@TempDir Path root) throws Exception {
+        var compiler = new MachineCompiler(PACKAGE);
+        var path = compiler.compile(root, createNumberModel());
+        assertTrue(Files.exists(path));
+        var factory = new PrecompiledMachineFactory(createLoader(root), PACKAGE, MachineModels::prune);
+        var machine = factory.createCharMachine(createNumberModel());
+        assertAll(
+                () -> assertEquals("Number", machine.run("12345")),
+                () -> assertEquals("Error", machine.run("12a")),
+                () -> assertEquals("Init", machine.run("")),
+                () -> assertThrows(IllegalArgumentException.class, () -> factory.create(createWordModel()))
+        );
+    }
+
+    @Test
+    public void testMain(@TempDir Path root) throws Exception {
+        MachineCompiler.main(new String[]{root.toString(), PACKAGE, Provider.class.getName()});
+        var factory = new PrecompiledMachineFactory(createLoader(root), PACKAGE, MachineModels::prune);
+        var number = factory.createCharMachine(createNumberModel());
+        var word = factory.create(createWordModel());
+        assertAll(
+                () -> assertEquals("Number", number.run("42")),
+                () -> assertEquals(2, word.run(List.of("hello", "world"))),
+                () -> assertEquals(-1, word.run(List.of("world")))
+        );
+    }
+
+    @Test
+    public void testMainUsage() {
+        assertThrows(IllegalArgumentException.class, () -> MachineCompiler.main(new String[]{"out"}));
+    }
+
+    public static final class Provider implements ModelProvider {
+
+        @Override
+        public Collection<MachineModel<?, ?>> getModels() {
+            return List.of(createNumberModel(), createWordModel());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.InvalidStateException;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.MachineModels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+public final class PruningTest extends Assertions {
+    private static MachineModel<String, Character> createModel() {
+        // T is a trap: it is not accepting and never leads to an accepting state, U is unreachable
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("T")
+                .addState("U")
+                .addAcceptingState("A")
+                .addTransition("Init", "A", 'a')
+                .addTransition("Init", "T", 'b')
+                .addTransition("A", "A", 'a')
+                .addTransition("A", "T", 'b')
+                .addRangeTransition("T", "T", 'a', 'z')
+                .addTransition("U", "A", 'a')
+                .build();
+    }
+
+    @Test
+    public void testPrune() {
+        var pruned = MachineModels.prune(createModel());
+        var init = pruned.getInit().getTransitions();
+        assertAll(
+                () -> assertEquals(Set.of("A"), pruned.getStates().keySet()),
+                () -> assertEquals(Set.of("A"), pruned.getAccepting()),
+                () -> assertEquals(Set.of("A", "Error"), init.keySet()),
+                () -> assertEquals('b', init.get("Error").getToken().getValues().iterator().next()),
+                () -> assertSame(pruned, MachineModels.prune(pruned))
+        );
+    }
+
+    @Test
+    public void testUndeclaredAcceptance() {
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("U")
+                .addTransition("Init", "A", 'a')
+                .addTransition("U", "A", 'a')
+                .build();
+        var pruned = MachineModels.prune(model);
+        assertAll(
+                () -> assertEquals(Set.of("A"), pruned.getStates().keySet()),
+                () -> assertTrue(pruned.isAccepting("A")),
+                () -> assertTrue(pruned.isAccepting("Init")),
+                () -> assertFalse(pruned.isAccepting("Error"))
+        );
+    }
+
+    @Test
+    public void testDeadInit() {
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addAcceptingState("B")
+                .addTransition("Init", "A", 'a')
+                .addTransition("A", "A")
+                .build();
+        var pruned = MachineModels.prune(model);
+        assertAll(
+                () -> assertTrue(pruned.getStates().isEmpty()),
+                () -> assertTrue(pruned.getInit().getTransitions().isEmpty()),
+                () -> assertNull(pruned.getInit().getUnconditional())
+        );
+    }
+
+    @Test
+    public void testUnreachableAcceptance() {
+        // Only the unreachable state U accepts, so the model accepts nothing
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("U")
+                .addAcceptingState("U")
+                .addTransition("Init", "A", 'a')
+                .build();
+        var pruned = MachineModels.prune(model);
+        var minimized = MachineModels.minimize(model);
+        assertAll(
+                () -> assertTrue(pruned.getAccepting().isEmpty()),
+                () -> assertTrue(pruned.isAcceptingDeclared()),
+                () -> assertFalse(pruned.isAccepting("Init")),
+                () -> assertFalse(minimized.isAccepting("Init")),
+                () -> assertFalse(minimized.isAccepting("A"))
+        );
+        var factories = List.of(new AsmMachineFactory(), new InterpretedMachineFactory());
+        for (var factory : factories) {
+            var machine = factory.create(model);
+            assertFalse(machine.isAccepting(machine.getInitId()));
+            assertFalse(machine.isAccepting(machine.runToId(List.of('a'))));
+        }
+    }
+
+    @Test
+    public void testRemovedAcceptance() {
+        var builder = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addTransition("Init", "A", 'a');
+        var undeclared = builder.build();
+        var model = builder
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addTransition("Init", "A", 'a')
+                .addAcceptingState("A")
+                .removeAcceptingState("A")
+                .build();
+        assertAll(
+                () -> assertTrue(model.isAcceptingDeclared()),
+                () -> assertFalse(model.isAccepting("A")),
+                () -> assertFalse(undeclared.isAcceptingDeclared()),
+                () -> assertTrue(undeclared.isAccepting("A")),
+                () -> assertNotEquals(undeclared.getDigest(), model.getDigest()),
+                () -> assertNotEquals(undeclared.format(), model.format())
+        );
+    }
+
+    @Test
+    public void testAcceptingState() {
+        var builder = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error");
+        assertAll(
+                () -> assertThrows(InvalidStateException.class, () -> builder.addAcceptingState("Error")),
+                () -> assertThrows(InvalidStateException.class, () -> builder.addAcceptingState("A"))
+        );
+    }
+
+    @Test
+    public void testMinimizeAcceptance() {
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addAcceptingState("A")
+                .addAcceptingState("Init")
+                .addTransition("Init", "A", 'a')
+                .addTransition("Init", "B", 'b')
+                .build();
+        assertEquals(Set.of("A", "B"), MachineModels.minimize(model).getStates().keySet());
+    }
+
+    @Test
+    public void testEarlyExit() {
+        var model = createModel();
+        var factories = List.of(new AsmMachineFactory(), new InterpretedMachineFactory());
+        for (var factory : factories) {
+            var machine = factory.create(model);
+            var input = new CountingInput('a', 'a', 'b', 'c', 'd', 'e', 'f');
+            assertEquals("Error", machine.run(input));
+            assertEquals(3, input.count);
+            assertEquals("A", machine.run(List.of('a', 'a')));
+        }
+    }
+
+    private static final class CountingInput implements Iterable<Character> {
+        private final Character[] tokens;
+        private int count;
+
+        private CountingInput(Character... tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public Iterator<Character> iterator() {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return count < tokens.length;
+                }
+
+                @Override
+                public Character next() {
+                    return tokens[count++];
+                }
+            };
+        }
+    }
+}
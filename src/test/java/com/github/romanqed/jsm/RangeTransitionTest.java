@@ -0,0 +1,110 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+public final class RangeTransitionTest extends Assertions {
+    private static final StateMachineFactory FACTORY = new AsmMachineFactory();
+    private static final StateMachineFactory INTERPRETER = new InterpretedMachineFactory();
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] single(Class<T> type, T value) {
+        var ret = (T[]) Array.newInstance(type, 1);
+        ret[0] = value;
+        return ret;
+    }
+
+    @SafeVarargs
+    private static <T> MachineModel<String, T> createModel(Class<T> type, T... bounds) {
+        // Init -[b0, b1]-> A, Init -[b2, b3]-> B, Init -b4-> C, A -[b0, b3]-> A, A -(b5)-> B
+        return MachineModelBuilder.create(String.class, type)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addState("C")
+                .addRangeTransition("Init", "A", bounds[0], bounds[1])
+                .addRangeTransition("Init", "B", bounds[2], bounds[3])
+                .addTransition("Init", "C", single(type, bounds[4]))
+                .addRangeTransition("A", "A", bounds[0], bounds[3])
+                .addTransition("A", "B", single(type, bounds[5]))
+                .build();
+    }
+
+    @SafeVarargs
+    private static <T> void assertRuns(MachineModel<String, T> model, List<T>... inputs) {
+        var machine = FACTORY.create(model);
+        var expected = INTERPRETER.create(model);
+        for (var input : inputs) {
+            assertEquals(expected.run(input), machine.run(input), "Input " + input);
+        }
+    }
+
+    @Test
+    public void testCharRanges() {
+        // Large ranges are dispatched by decision tree
+        var large = createModel(Character.class, 'A', 'Z', 'a', 'z', '_', 'm');
+        assertRuns(large, List.of('a'), List.of('z'), List.of('{'), List.of('Q'), List.of('_'),
+                List.of('B', 'z', 'c'), List.of('B', 'm'), List.of('B', '@'), List.of('M', '_', 'm'));
+        // Small ranges are expanded into switch cases
+        var small = createModel(Character.class, '0', '3', '5', '7', '9', '2');
+        assertRuns(small, List.of('0'), List.of('4'), List.of('7'), List.of('9'), List.of('1', '2'),
+                List.of('3', '6'), List.of('0', '9'));
+        var machine = new AsmMachineFactory().createCharMachine(large);
+        assertAll(
+                () -> assertEquals("A", machine.run("ABC_z")),
+                () -> assertEquals("B", machine.run("Am")),
+                () -> assertEquals("Error", machine.run("A1"))
+        );
+    }
+
+    @Test
+    public void testIntegralRanges() {
+        var ints = createModel(Integer.class, -1000, 1000, 2000, 1_000_000, 1500, 0);
+        assertRuns(ints, List.of(-1000), List.of(1000), List.of(1001), List.of(1500), List.of(999_999),
+                List.of(5, 0), List.of(5, 1_000_000), List.of(5, 1_000_001));
+        var bytes = createModel(Byte.class, (byte) -128, (byte) -1, (byte) 1, (byte) 127, (byte) 0, (byte) 5);
+        assertRuns(bytes, List.of((byte) -128), List.of((byte) 0), List.of((byte) 100),
+                List.of((byte) -5, (byte) 5), List.of((byte) -5, (byte) 6));
+        var longs = createModel(Long.class, Long.MIN_VALUE, -1L, 1L << 40, Long.MAX_VALUE, 0L, 7L);
+        assertRuns(longs, List.of(Long.MIN_VALUE), List.of(0L), List.of(1L), List.of(1L << 41),
+                List.of(-5L, 7L), List.of(-5L, 1L << 42), List.of(-5L, 8L));
+    }
+
+    @Test
+    public void testFloatingRanges() {
+        var doubles = createModel(Double.class, 0.0, 1.0, 2.5, 3.5, 2.0, 0.5);
+        assertRuns(doubles, List.of(0.0), List.of(0.999), List.of(1.5), List.of(2.0), List.of(3.5),
+                List.of(Double.NaN), List.of(0.25, 0.5), List.of(0.25, 3.0), List.of(0.25, 2.0));
+        var floats = createModel(Float.class, 0f, 1.25f, 2.5f, 3.75f, 2f, 0.5f);
+        assertRuns(floats, List.of(0f), List.of(1.5f), List.of(3f), List.of(Float.NaN), List.of(0.1f, 0.5f));
+    }
+
+    @Test
+    public void testStringRanges() {
+        var strings = createModel(String.class, "a", "c", "x", "z", "q", "b");
+        assertRuns(strings, List.of("a"), List.of("bb"), List.of("c"), List.of("ca"), List.of("y"),
+                List.of("q"), List.of("b", "b"), List.of("b", "yy"));
+    }
+
+    @Test
+    public void testOverlappingRanges() {
+        var model = MachineModelBuilder.create(String.class, Integer.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addRangeTransition("Init", "A", 0, 100_000)
+                .addRangeTransition("Init", "B", 50_000, 200_000)
+                .build();
+        assertRuns(model, List.of(0), List.of(49_999), List.of(50_000), List.of(100_000), List.of(200_000),
+                List.of(200_001), List.of(-1));
+    }
+}
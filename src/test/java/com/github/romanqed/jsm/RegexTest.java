@@ -0,0 +1,137 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.Regex;
+import com.github.romanqed.jsm.model.RegexSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public final class RegexTest extends Assertions {
+    private static final String ALPHABET = "abcxyz019_ -.\n\t[]\u00e9";
+    private static final String[] PATTERNS = {
+            "",
+            "abc",
+            "a|b|",
+            "(ab|a)(bc|c)*",
+            "a*b+c?",
+            "(?:x|yz){2,3}",
+            "a{0,2}b{2}c{1,}",
+            "[a-c]+[^a-c]*",
+            "[]a-]+|[-9]",
+            "\\d+(\\.\\d*)?",
+            "\\w\\W\\s\\S",
+            "[\\d\\s]+\\D?",
+            "..?x",
+            "\\x61\\u0062\\0143|\\[\\]",
+            "((a|b)*c)+?",
+            "[^\\n]*\\n",
+            "(a|ab)(c|bcd)(d*)",
+            "[^\\s\\S]",
+            "a[^\\s\\S]|b"
+    };
+
+    private static String random(Random random, int length) {
+        var builder = new StringBuilder(length);
+        for (var i = 0; i < length; ++i) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static boolean matches(CharStateMachine<Integer> machine, String input) {
+        var id = machine.runToId(input);
+        return id != machine.getExitId() && machine.isAccepting(id);
+    }
+
+    @Test
+    public void testMatchesLikeJavaRegex() {
+        var factory = new AsmMachineFactory();
+        var random = new Random(42);
+        for (var regex : PATTERNS) {
+            var expected = Pattern.compile(regex);
+            var machine = factory.createCharMachine(Regex.compile(regex));
+            var raw = factory.createCharMachine(Regex.compile(regex, false));
+            for (var i = 0; i < 2000; ++i) {
+                var input = random(random, random.nextInt(8));
+                var matches = expected.matcher(input).matches();
+                assertEquals(matches, matches(machine, input), () -> regex + " on " + input);
+                assertEquals(matches, matches(raw, input), () -> regex + " on " + input);
+            }
+        }
+    }
+
+    @Test
+    public void testMinimization() {
+        var raw = Regex.compile("(a|b)c", false);
+        var minimized = Regex.compile("(a|b)c");
+        assertAll(
+                () -> assertEquals(0, minimized.getInit().getValue()),
+                () -> assertEquals(-1, minimized.getExit().getValue()),
+                () -> assertTrue(minimized.getStates().size() < raw.getStates().size()),
+                // States after "a" or "b", and after "c"
+                () -> assertEquals(2, minimized.getStates().size())
+        );
+    }
+
+    @Test
+    public void testEquivalentToBuiltModel() {
+        var built = MachineModelBuilder.create(Integer.class, Character.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addState(2)
+                .addAcceptingState(2)
+                .addTransition(0, 1, 'a')
+                .addTransition(1, 2, 'b')
+                .addTransition(2, 2, 'b')
+                .build();
+        assertEquals(built.getDigest(), Regex.compile("ab+").getDigest());
+    }
+
+    @Test
+    public void testNeverMatches() {
+        var factory = new AsmMachineFactory();
+        var machines = List.of(
+                factory.createCharMachine(Regex.compile("[^\\s\\S]")),
+                factory.createCharMachine(Regex.compile("a[^\\s\\S]", false)),
+                factory.createCharMachine(Regex.compile("a[^\\s\\S]"))
+        );
+        var matches = new MatchBuffer();
+        for (var machine : machines) {
+            assertAll(
+                    () -> assertFalse(matches(machine, "")),
+                    () -> assertFalse(matches(machine, "a")),
+                    () -> assertFalse(machine.isAccepting(machine.getInitId())),
+                    () -> assertEquals(0, machine.findAll("aab a", MatchMode.LEFTMOST_LONGEST, matches))
+            );
+        }
+    }
+
+    @Test
+    public void testUnicode() {
+        var machine = new AsmMachineFactory().createCharMachine(Regex.compile("[^\\u0000-\\u00ff]+."));
+        assertAll(
+                () -> assertTrue(matches(machine, "\u4e2d\u6587!")),
+                () -> assertTrue(matches(machine, "\uffff\uffff")),
+                () -> assertFalse(matches(machine, "a\u4e2d")),
+                () -> assertFalse(matches(machine, "\u4e2d\n"))
+        );
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        var invalid = new String[]{
+                "(a", "a)", "[a", "*a", "a**", "a{2,1}", "a{", "^a", "a$", "\\1", "\\q", "[z-a]",
+                "(?=a)", "a++", "[a[b]]", "\\x4"
+        };
+        for (var regex : invalid) {
+            var exception = assertThrows(RegexSyntaxException.class, () -> Regex.compile(regex), regex);
+            assertEquals(regex, exception.getPattern());
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModel;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public final class StateIdTest extends Assertions {
+
+    private static MachineModel<String, Character> createModel() {
+        // Signed integers: [+-]?[0-9]+
+        return MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Sign")
+                .addState("Number")
+                .addAcceptingState("Number")
+                .addTransition("Init", "Sign", '+', '-')
+                .addRangeTransition("Init", "Number", '0', '9')
+                .addRangeTransition("Sign", "Number", '0', '9')
+                .addRangeTransition("Number", "Number", '0', '9')
+                .build();
+    }
+
+    @Test
+    public void testIds() {
+        var model = createModel();
+        var machines = List.of(
+                new AsmMachineFactory().createCharMachine(model),
+                new InterpretedMachineFactory().createCharMachine(model)
+        );
+        for (var machine : machines) {
+            var count = machine.getStateCount();
+            assertEquals(4, count);
+            for (var i = 0; i < count; ++i) {
+                assertEquals(i, machine.idOf(machine.stateOf(i)));
+                assertEquals(model.isAccepting(machine.stateOf(i)), machine.isAccepting(i));
+            }
+            var number = machine.idOf("Number");
+            assertAll(
+                    () -> assertEquals(-1, machine.idOf("Unknown")),
+                    () -> assertEquals(machine.getExitId(), machine.idOf("Error")),
+                    () -> assertEquals(number, machine.runToId("-12")),
+                    () -> assertEquals(number, machine.runToId("x12".toCharArray(), 1, 2)),
+                    () -> assertEquals(number, machine.runToId(new Character[]{'4', '2'})),
+                    () -> assertEquals(number, machine.runToId(List.of('+', '7'))),
+                    () -> assertTrue(machine.isAccepting(number)),
+                    () -> assertFalse(machine.isAccepting(machine.runToId("+"))),
+                    () -> assertFalse(machine.isAccepting(machine.getExitId()))
+            );
+            var cursor = machine.cursor();
+            assertEquals(machine.idOf("Sign"), cursor.stepId('-'));
+            assertEquals(number, cursor.stepId(Character.valueOf('1')));
+            assertEquals(number, cursor.getStateId());
+        }
+    }
+
+    @Test
+    public void testByteIds() {
+        var model = MachineModelBuilder.create(String.class, Byte.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Zero")
+                .addTransition("Init", "Zero", (byte) 0)
+                .build();
+        var machine = new AsmMachineFactory().createByteMachine(model);
+        var zero = machine.idOf("Zero");
+        assertAll(
+                () -> assertEquals(zero, machine.runToId(new byte[]{0}, 0, 1)),
+                () -> assertEquals(zero, machine.runToId(ByteBuffer.wrap(new byte[]{0}))),
+                () -> assertEquals(zero, machine.cursor().stepId((byte) 0)),
+                () -> assertTrue(machine.isAccepting(zero)),
+                () -> assertTrue(machine.isAccepting(machine.getInitId())),
+                () -> assertFalse(machine.isAccepting(machine.getExitId()))
+        );
+    }
+
+    @Test
+    public void testDefaults() {
+        var model = createModel();
+        var source = new AsmMachineFactory().createCharMachine(model);
+        var machine = new MinimalMachine<>(source);
+        var tokens = new Character[]{'1', '2', ' ', '-', '3', 'x'};
+        var number = machine.idOf("Number");
+        var trace = new StateTrace();
+        var matches = new MatchBuffer();
+        var cursor = machine.cursor();
+        assertAll(
+                () -> assertEquals("Number", machine.runParallel(new Character[]{'4', '2'})),
+                () -> assertEquals(number, machine.runToId(List.of('+', '7'))),
+                () -> assertEquals(number, machine.trace(machine.getInitId(), tokens, 0, 2, trace)),
+                () -> assertEquals(List.of(number, number), List.of(trace.get(0), trace.get(1))),
+                () -> assertEquals(2, machine.findAll(tokens, 0, tokens.length, MatchMode.LEFTMOST_LONGEST, matches)),
+                () -> assertEquals("[0, 2, 3, 5]", List.of(
+                        matches.getStart(0), matches.getEnd(0), matches.getStart(1), matches.getEnd(1)
+                ).toString()),
+                () -> assertEquals(machine.idOf("Sign"), cursor.stepId('-')),
+                () -> assertEquals("Number", cursor.step('1'))
+        );
+    }
+
+    // Implements only the methods without default implementations
+    private static final class MinimalMachine<S, T> implements StateMachine<S, T> {
+        private final StateMachine<S, T> machine;
+
+        private MinimalMachine(StateMachine<S, T> machine) {
+            this.machine = machine;
+        }
+
+        @Override
+        public S run(Iterable<T> tokens) {
+            return machine.run(tokens);
+        }
+
+        @Override
+        public S run(T[] tokens) {
+            return machine.run(tokens);
+        }
+
+        @Override
+        public long stamp(Iterable<T> tokens) {
+            return machine.stamp(tokens);
+        }
+
+        @Override
+        public long stamp(T[] tokens) {
+            return machine.stamp(tokens);
+        }
+
+        @Override
+        public int getStateCount() {
+            return machine.getStateCount();
+        }
+
+        @Override
+        public int getInitId() {
+            return machine.getInitId();
+        }
+
+        @Override
+        public int getExitId() {
+            return machine.getExitId();
+        }
+
+        @Override
+        public S stateOf(int id) {
+            return machine.stateOf(id);
+        }
+
+        @Override
+        public int idOf(S state) {
+            return machine.idOf(state);
+        }
+
+        @Override
+        public boolean isAccepting(int id) {
+            return machine.isAccepting(id);
+        }
+
+        @Override
+        public int feed(int state, T[] tokens, int offset, int length) {
+            return machine.feed(state, tokens, offset, length);
+        }
+
+        @Override
+        public S getState() {
+            return machine.getState();
+        }
+
+        @Override
+        public S step(T token) {
+            return machine.step(token);
+        }
+
+        @Override
+        public void reset() {
+            machine.reset();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+
+public final class StateTraceTest extends Assertions {
+    private static final AsmMachineFactory FACTORY = new AsmMachineFactory();
+
+    private static CharStateMachine<String> createMachine() {
+        return FACTORY.createCharMachine(MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("A")
+                .addState("B")
+                .addTransition("Init", "A", 'a')
+                .addTransition("A", "B", 'b')
+                .addTransition("B", "A", 'a')
+                .build());
+    }
+
+    @Test
+    public void testTrace() {
+        var machine = createMachine();
+        var trace = new StateTrace(0);
+        var init = machine.getInitId();
+        var a = machine.idOf("A");
+        var b = machine.idOf("B");
+        var exit = machine.getExitId();
+        assertEquals(a, machine.trace(init, "abababa", 0, 7, trace));
+        assertArrayEquals(new int[]{a, b, a, b, a, b, a}, trace.toArray());
+        var stamp = trace.getStamp();
+        trace.clear();
+        assertEquals(a, machine.trace(init, "abababa".toCharArray(), 0, 7, trace));
+        assertEquals(stamp, trace.getStamp());
+        trace.clear();
+        // Recording stops after the exit state
+        assertEquals(exit, machine.trace(init, new Character[]{'a', 'a', 'b', 'b'}, 0, 4, trace));
+        assertArrayEquals(new int[]{a, exit}, trace.toArray());
+        assertAll(
+                () -> assertEquals(2, trace.size()),
+                () -> assertEquals(exit, trace.get(1)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> trace.get(2))
+        );
+    }
+
+    @Test
+    public void testByteTrace() {
+        var machine = FACTORY.createByteMachine(MachineModelBuilder.create(Integer.class, Byte.class)
+                .setInitState(0)
+                .setExitState(-1)
+                .addState(1)
+                .addTransition(0, 1, (byte) 1)
+                .addTransition(1, 1, (byte) 1)
+                .build());
+        var trace = new StateTrace();
+        var one = machine.idOf(1);
+        machine.trace(machine.getInitId(), new byte[]{1, 1, 1}, 0, 3, trace);
+        var buffer = ByteBuffer.wrap(new byte[]{0, 1, 1, 1}).position(1);
+        var other = new StateTrace();
+        machine.trace(machine.getInitId(), buffer, other);
+        assertAll(
+                () -> assertArrayEquals(new int[]{one, one, one}, trace.toArray()),
+                () -> assertArrayEquals(trace.toArray(), other.toArray()),
+                () -> assertEquals(trace.getStamp(), other.getStamp()),
+                () -> assertEquals(1, buffer.position())
+        );
+    }
+
+    @Test
+    public void testStamps() {
+        // All paths of length 10 over two states have distinct stamps
+        var stamps = new HashSet<Long>();
+        var trace = new StateTrace();
+        for (var path = 0; path < 1 << 10; ++path) {
+            trace.clear();
+            for (var i = 0; i < 10; ++i) {
+                trace.add((path >> i) & 1);
+            }
+            stamps.add(trace.getStamp());
+        }
+        assertEquals(1 << 10, stamps.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.romanqed.jsm;
+
+import com.github.romanqed.jeflect.loader.DefineClassLoader;
+import com.github.romanqed.jeflect.loader.DefineObjectFactory;
+import com.github.romanqed.jsm.asm.AsmMachineFactory;
+import com.github.romanqed.jsm.interpreter.InterpretedMachineFactory;
+import com.github.romanqed.jsm.model.MachineModelBuilder;
+import com.github.romanqed.jsm.model.MachineModels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+
+public final class UnrolledLoopTest extends Assertions {
+    private static final AsmMachineFactory UNROLLED = new AsmMachineFactory(
+            new DefineObjectFactory<>(new DefineClassLoader()), 10, MachineModels::prune, 4);
+    private static final InterpretedMachineFactory INTERPRETER = new InterpretedMachineFactory();
+
+    private static String generate(Random random, String alphabet) {
+        var length = random.nextInt(12);
+        var builder = new StringBuilder(length);
+        for (var i = 0; i < length; ++i) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testCharLoops() {
+        // Identifiers: [a-z][a-z0-9]*
+        var model = MachineModelBuilder.create(String.class, Character.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("Id")
+                .addRangeTransition("Init", "Id", 'a', 'z')
+                .addRangeTransition("Id", "Id", 'a', 'z')
+                .addRangeTransition("Id", "Id", '0', '9')
+                .build();
+        var machine = UNROLLED.createCharMachine(model);
+        var expected = INTERPRETER.createCharMachine(model);
+        var random = new Random(3);
+        for (var i = 0; i < 300; ++i) {
+            var input = generate(random, "abz09_");
+            var chars = input.toCharArray();
+            var boxed = new Character[chars.length];
+            var list = new ArrayList<Character>(chars.length);
+            for (var j = 0; j < chars.length; ++j) {
+                boxed[j] = chars[j];
+                list.add(chars[j]);
+            }
+            var state = expected.run(input);
+            var stamp = expected.stamp(input);
+            assertAll(
+                    () -> assertEquals(state, machine.run(input)),
+                    () -> assertEquals(state, machine.run(chars, 0, chars.length)),
+                    () -> assertEquals(state, machine.run(boxed)),
+                    () -> assertEquals(state, machine.run(list)),
+                    () -> assertEquals(stamp, machine.stamp(input)),
+                    () -> assertEquals(stamp, machine.stamp(chars, 0, chars.length)),
+                    () -> assertEquals(stamp, machine.stamp(boxed)),
+                    () -> assertEquals(stamp, machine.stamp(list))
+            );
+        }
+    }
+
+    @Test
+    public void testByteLoops() {
+        // Runs of 0x01 0x02 pairs
+        var model = MachineModelBuilder.create(String.class, Byte.class)
+                .setInitState("Init")
+                .setExitState("Error")
+                .addState("First")
+                .addState("Second")
+                .addTransition("Init", "First", (byte) 1)
+                .addTransition("First", "Second", (byte) 2)
+                .addTransition("Second", "First", (byte) 1)
+                .build();
+        var machine = UNROLLED.createByteMachine(model);
+        var expected = INTERPRETER.createByteMachine(model);
+        var random = new Random(5);
+        for (var i = 0; i < 300; ++i) {
+            var bytes = new byte[random.nextInt(12)];
+            for (var j = 0; j < bytes.length; ++j) {
+                bytes[j] = random.nextInt(8) == 0 ? 3 : (byte) (j % 2 + 1);
+            }
+            var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            var state = expected.run(bytes, 0, bytes.length);
+            var stamp = expected.stamp(bytes, 0, bytes.length);
+            assertAll(
+                    () -> assertEquals(state, machine.run(bytes, 0, bytes.length)),
+                    () -> assertEquals(state, machine.run(direct)),
+                    () -> assertEquals(stamp, machine.stamp(bytes, 0, bytes.length)),
+                    () -> assertEquals(stamp, machine.stamp(direct))
+            );
+        }
+    }
+}